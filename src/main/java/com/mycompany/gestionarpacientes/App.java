@@ -1,6 +1,12 @@
 package com.mycompany.gestionarpacientes;
 
+import com.mycompany.gestionarpacientes.util.JpaUtil;
+import com.mycompany.gestionarpacientes.util.Metricas;
 import com.mycompany.gestionarpacientes.view.MainFrame;
+import com.mycompany.gestionarpacientes.view.SplashArranque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
 /**
@@ -9,9 +15,61 @@ import javax.swing.SwingUtilities;
  */
 public class App {
 
+    private static final Logger LOGGER = Logger.getLogger(App.class.getName());
+
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> {
-            new MainFrame().setVisible(true);
-        });
+        long inicio = System.nanoTime();
+        SplashArranque splash = crearSplash();
+        // Hibernate y el precalentamiento corren en su propio hilo, el EDT
+        // solo pinta el splash y despues construye la ventana
+        Thread arranque = new Thread(() -> {
+            try {
+                new Arranque(splash::avanzar).ejecutar();
+                SwingUtilities.invokeLater(() -> {
+                    new MainFrame().setVisible(true);
+                    splash.dispose();
+                    long total = System.nanoTime() - inicio;
+                    Metricas.registrar("arranque.total", total);
+                    LOGGER.log(Level.INFO, "ventana lista en {0} ms", total / 1_000_000);
+                });
+            } catch (Throwable e) {
+                // tambien los Error (clases faltantes, inicializadores que fallan),
+                // si no el hilo muere callado y el splash deja viva la JVM
+                LOGGER.log(Level.SEVERE, "no se pudo iniciar la aplicacion", e);
+                SwingUtilities.invokeLater(() -> {
+                    splash.dispose();
+                    JOptionPane.showMessageDialog(null,
+                            "No se pudo conectar con la base de datos:\n" + causa(e),
+                            "Error al iniciar", JOptionPane.ERROR_MESSAGE);
+                    JpaUtil.shutdown();
+                    System.exit(1);
+                });
+            }
+        }, "arranque");
+        arranque.start();
+    }
+
+    private static SplashArranque crearSplash() {
+        SplashArranque[] splash = new SplashArranque[1];
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                splash[0] = new SplashArranque();
+                splash[0].setVisible(true);
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("se interrumpio el inicio", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("no se pudo mostrar la pantalla de inicio", e);
+        }
+        return splash[0];
+    }
+
+    private static String causa(Throwable e) {
+        Throwable raiz = e;
+        while (raiz.getCause() != null) {
+            raiz = raiz.getCause();
+        }
+        return raiz.getMessage() != null ? raiz.getMessage() : raiz.toString();
     }
 }
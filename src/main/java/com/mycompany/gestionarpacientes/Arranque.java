@@ -0,0 +1,165 @@
+package com.mycompany.gestionarpacientes;
+
+import com.mycompany.gestionarpacientes.dto.DoctorDTO;
+import com.mycompany.gestionarpacientes.dto.PacienteDTO;
+import com.mycompany.gestionarpacientes.service.IDoctorService;
+import com.mycompany.gestionarpacientes.service.IPacienteService;
+import com.mycompany.gestionarpacientes.service.impl.DoctorService;
+import com.mycompany.gestionarpacientes.service.impl.PacienteService;
+import com.mycompany.gestionarpacientes.util.ConnectionPool;
+import com.mycompany.gestionarpacientes.util.CursorUtil;
+import com.mycompany.gestionarpacientes.util.JpaUtil;
+import com.mycompany.gestionarpacientes.util.Metricas;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * arranque de la aplicacion fuera del EDT: crea el pool y el
+ * EntityManagerFactory y despues precalienta lo que usa la primera pantalla
+ * (conexiones, consultas, indices de nombres y clases de la vista) para que la
+ * primera interaccion no pague la inicializacion. Cada paso se registra en
+ * {@link Metricas} como arranque.paso
+ *
+ * @author gatog
+ */
+class Arranque {
+
+    private static final Logger LOGGER = Logger.getLogger(Arranque.class.getName());
+    private static final int TAMANO_PAGINA = 50;
+
+    private static final String[] CLASES_VISTA = {
+        "com.mycompany.gestionarpacientes.view.components.LazyTableModel",
+        "com.mycompany.gestionarpacientes.view.components.PanelRound",
+        "com.mycompany.gestionarpacientes.view.components.TextFieldPanel",
+        "com.mycompany.gestionarpacientes.validacion.Regla",
+        "com.mycompany.gestionarpacientes.service.impl.PacienteServiceAsync",
+        "com.mycompany.gestionarpacientes.service.impl.DoctorServiceAsync",
+        "com.mycompany.gestionarpacientes.util.ServicioMedido"
+    };
+
+    /**
+     * recibe el avance del arranque, se llama desde el hilo del arranque
+     */
+    @FunctionalInterface
+    interface Progreso {
+
+        void avanzar(int porcentaje, String mensaje);
+    }
+
+    private final Progreso progreso;
+
+    Arranque(Progreso progreso) {
+        this.progreso = progreso;
+    }
+
+    /**
+     * ejecuta todos los pasos, solo la conexion y el EntityManagerFactory son
+     * obligatorios; si falla un paso del precalentamiento se registra y se
+     * sigue con el siguiente
+     *
+     * @throws RuntimeException si no se pudo conectar con la base de datos
+     */
+    void ejecutar() {
+        paso(5, "conexion", "Conectando con la base de datos (" + JpaUtil.getPerfil() + ")...",
+                ConnectionPool::getDataSource);
+        paso(20, "hibernate", "Preparando el modelo de datos...", JpaUtil::getEntityManagerFactory);
+
+        precalentar(60, "pool", "Abriendo conexiones...", this::llenarPool);
+        precalentar(70, "pacientes", "Cargando pacientes...", Arranque::precalentarPacientes);
+        precalentar(85, "doctores", "Cargando doctores...", Arranque::precalentarDoctores);
+        precalentar(95, "clases", "Preparando la interfaz...", Arranque::cargarClases);
+        progreso.avanzar(100, "Listo");
+    }
+
+    private void paso(int porcentaje, String nombre, String mensaje, Runnable accion) {
+        progreso.avanzar(porcentaje, mensaje);
+        long inicio = System.nanoTime();
+        try {
+            accion.run();
+        } finally {
+            Metricas.registrar("arranque." + nombre, System.nanoTime() - inicio);
+        }
+    }
+
+    private void precalentar(int porcentaje, String nombre, String mensaje, Runnable accion) {
+        try {
+            paso(porcentaje, nombre, mensaje, accion);
+        } catch (RuntimeException e) {
+            Metricas.histograma("arranque." + nombre).registrarError();
+            LOGGER.log(Level.WARNING, "fallo el precalentamiento de " + nombre, e);
+        }
+    }
+
+    /**
+     * pide a la vez tantas conexiones como el minimo de ociosas para que el
+     * pool las abra ahora y no en la primera consulta
+     */
+    private void llenarPool() {
+        DataSource dataSource = ConnectionPool.getDataSource();
+        int minimo = Math.max(1, ConnectionPool.getMetrics().minimoOciosas());
+        List<Connection> conexiones = new ArrayList<>(minimo);
+        try {
+            for (int i = 0; i < minimo; i++) {
+                Connection connection = dataSource.getConnection();
+                conexiones.add(connection);
+                connection.isValid(2);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("no se pudieron abrir las conexiones iniciales", e);
+        } finally {
+            for (Connection connection : conexiones) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.FINE, "error al devolver una conexion al pool", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * ejecuta las consultas de la primera pantalla de pacientes: cuenta,
+     * primera pagina, pagina por cursor y busqueda por nombre (que arma el
+     * indice), asi Hibernate deja sus planes en cache
+     */
+    private static void precalentarPacientes() {
+        IPacienteService service = new PacienteService();
+        service.contarPacientes();
+        List<PacienteDTO> primera = service.listarTodosPacientes(TAMANO_PAGINA, 0);
+        if (!primera.isEmpty()) {
+            PacienteDTO ultimo = primera.get(primera.size() - 1);
+            service.listarPacientesPorCursor(CursorUtil.codificar(ultimo.getNombre(), ultimo.getId()), TAMANO_PAGINA);
+            service.buscarPacientesPorNombre(ultimo.getNombre(), 1, 0);
+        }
+    }
+
+    private static void precalentarDoctores() {
+        IDoctorService service = new DoctorService();
+        List<DoctorDTO> primera = service.listarTodosDoctores(TAMANO_PAGINA, 0);
+        if (!primera.isEmpty()) {
+            DoctorDTO ultimo = primera.get(primera.size() - 1);
+            service.listarDoctoresPorCursor(CursorUtil.codificar(ultimo.getNombre(), ultimo.getId()), TAMANO_PAGINA);
+            service.buscarDoctoresPorNombre(ultimo.getNombre(), 1, 0);
+        }
+    }
+
+    /**
+     * inicializa las clases que la ventana usa al abrirse, la verificacion y
+     * los inicializadores estaticos corren aqui y no en el EDT
+     */
+    private static void cargarClases() {
+        ClassLoader loader = Arranque.class.getClassLoader();
+        for (String clase : CLASES_VISTA) {
+            try {
+                Class.forName(clase, true, loader);
+            } catch (ClassNotFoundException e) {
+                LOGGER.log(Level.FINE, "no se encontro la clase " + clase, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.mycompany.gestionarpacientes.agenda;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * cache en memoria de la agenda de cada doctor, un arbol de intervalos por
+ * doctor y por dia que se carga la primera vez que se consulta ese dia y se
+ * mantiene al dia con las escrituras de esta estacion. Los dias se descartan
+ * por LRU y se recargan despues de edadMaximaMs para recoger las citas
+ * agendadas desde otras estaciones
+ *
+ * una cita se guarda en el dia en que empieza, por eso la duracion de una cita
+ * no puede pasar de 24 horas
+ *
+ * @author gatog
+ */
+public class AgendaDoctores {
+
+    /**
+     * origen de las citas de un dia
+     */
+    public interface Fuente {
+
+        /**
+         * carga las citas activas de un doctor que empiezan en el dia
+         *
+         * @param doctorId id del doctor
+         * @param dia dia a cargar
+         * @return citas del dia
+         */
+        List<Intervalo> cargar(long doctorId, LocalDate dia);
+    }
+
+    /**
+     * cita ocupando la agenda
+     *
+     * @param citaId id de la cita
+     * @param inicio fecha y hora de inicio
+     * @param duracionMinutos duracion en minutos
+     */
+    public record Intervalo(long citaId, LocalDateTime inicio, int duracionMinutos) {
+    }
+
+    private record Clave(long doctorId, LocalDate dia) {
+    }
+
+    /**
+     * agenda de un doctor en un dia, se sincroniza sobre la propia instancia
+     */
+    private static final class Dia {
+
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        // inicio de cada cita para poder quitarla del arbol
+        final Map<Long, Long> inicios = new HashMap<>();
+        long cargadoEn = -1;
+    }
+
+    private final Fuente fuente;
+    private final long edadMaximaMs;
+    private final Map<Clave, Dia> dias;
+
+    /**
+     * @param fuente origen de las citas
+     * @param maximoDias dias que se mantienen en memoria
+     * @param edadMaximaMs tiempo despues del cual un dia se vuelve a cargar
+     */
+    public AgendaDoctores(Fuente fuente, int maximoDias, long edadMaximaMs) {
+        this.fuente = fuente;
+        this.edadMaximaMs = edadMaximaMs;
+        this.dias = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Dia> eldest) {
+                return size() > maximoDias;
+            }
+        };
+    }
+
+    /**
+     * indica si el doctor tiene alguna cita que se cruce con el horario, solo
+     * consulta la base de datos para los dias que no estan en memoria
+     *
+     * @param doctorId id del doctor
+     * @param inicio inicio del horario
+     * @param duracionMinutos duracion del horario
+     * @param citaExcluida cita que no se considera, por ejemplo la que se
+     * reprograma, o null
+     * @return true si hay conflicto
+     */
+    public boolean hayConflicto(long doctorId, LocalDateTime inicio, int duracionMinutos, Long citaExcluida) {
+        long desde = minutos(inicio);
+        long hasta = desde + duracionMinutos;
+        long excluida = citaExcluida == null ? -1 : citaExcluida;
+        // una cita del dia anterior puede terminar dentro de este horario
+        LocalDate ultimo = inicio.plusMinutes(duracionMinutos).toLocalDate();
+        for (LocalDate dia = inicio.toLocalDate().minusDays(1); !dia.isAfter(ultimo); dia = dia.plusDays(1)) {
+            Dia agenda = obtener(doctorId, dia);
+            synchronized (agenda) {
+                if (agenda.arbol.haySolape(desde, hasta, excluida)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * registra una cita, si su dia no esta en memoria no hace nada porque se
+     * leera de la base de datos al cargarlo
+     *
+     * @param doctorId id del doctor
+     * @param cita cita agendada
+     */
+    public void agregar(long doctorId, Intervalo cita) {
+        Dia agenda = enMemoria(doctorId, cita.inicio().toLocalDate());
+        if (agenda != null) {
+            synchronized (agenda) {
+                insertar(agenda, cita);
+            }
+        }
+    }
+
+    /**
+     * quita una cita de la agenda
+     *
+     * @param doctorId id del doctor
+     * @param citaId id de la cita
+     * @param dia dia en que empieza la cita
+     */
+    public void eliminar(long doctorId, long citaId, LocalDate dia) {
+        Dia agenda = enMemoria(doctorId, dia);
+        if (agenda != null) {
+            synchronized (agenda) {
+                Long inicio = agenda.inicios.remove(citaId);
+                if (inicio != null) {
+                    agenda.arbol.eliminar(citaId, inicio);
+                }
+            }
+        }
+    }
+
+    /**
+     * descarta todos los dias en memoria
+     */
+    public void limpiar() {
+        synchronized (dias) {
+            dias.clear();
+        }
+    }
+
+    private Dia obtener(long doctorId, LocalDate dia) {
+        Dia agenda;
+        synchronized (dias) {
+            agenda = dias.computeIfAbsent(new Clave(doctorId, dia), clave -> new Dia());
+        }
+        // la carga corre con el dia bloqueado, las escrituras concurrentes esperan
+        // y como insertar ignora duplicados no importa si la carga ya las vio
+        synchronized (agenda) {
+            if (agenda.cargadoEn < 0 || System.currentTimeMillis() - agenda.cargadoEn > edadMaximaMs) {
+                List<Intervalo> citas = fuente.cargar(doctorId, dia);
+                agenda.arbol = new ArbolIntervalos();
+                agenda.inicios.clear();
+                for (Intervalo cita : citas) {
+                    insertar(agenda, cita);
+                }
+                agenda.cargadoEn = System.currentTimeMillis();
+            }
+        }
+        return agenda;
+    }
+
+    private Dia enMemoria(long doctorId, LocalDate dia) {
+        synchronized (dias) {
+            return dias.get(new Clave(doctorId, dia));
+        }
+    }
+
+    private static void insertar(Dia agenda, Intervalo cita) {
+        long inicio = minutos(cita.inicio());
+        Long anterior = agenda.inicios.put(cita.citaId(), inicio);
+        if (anterior != null) {
+            agenda.arbol.eliminar(cita.citaId(), anterior);
+        }
+        agenda.arbol.insertar(cita.citaId(), inicio, inicio + cita.duracionMinutos());
+    }
+
+    private static long minutos(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+}
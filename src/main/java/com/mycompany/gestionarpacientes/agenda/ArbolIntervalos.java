@@ -0,0 +1,233 @@
+package com.mycompany.gestionarpacientes.agenda;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * arbol AVL de intervalos semiabiertos [inicio, fin) ordenado por (inicio, id),
+ * cada nodo guarda el fin maximo de su subarbol para descartar ramas completas
+ * al buscar solapes, insertar, eliminar y buscar el primer solape cuestan
+ * O(log n)
+ *
+ * no es thread-safe
+ *
+ * @author gatog
+ */
+public class ArbolIntervalos {
+
+    private static final class Nodo {
+
+        final long id;
+        final long inicio;
+        final long fin;
+        long finMaximo;
+        int altura = 1;
+        Nodo izquierdo;
+        Nodo derecho;
+
+        Nodo(long id, long inicio, long fin) {
+            this.id = id;
+            this.inicio = inicio;
+            this.fin = fin;
+            this.finMaximo = fin;
+        }
+    }
+
+    private Nodo raiz;
+    private int tamano;
+
+    /**
+     * agrega un intervalo
+     *
+     * @param id identificador del intervalo, unico junto con el inicio
+     * @param inicio inicio inclusivo
+     * @param fin fin exclusivo, mayor que el inicio
+     */
+    public void insertar(long id, long inicio, long fin) {
+        if (fin <= inicio) {
+            throw new IllegalArgumentException("el fin debe ser mayor que el inicio");
+        }
+        raiz = insertar(raiz, new Nodo(id, inicio, fin));
+    }
+
+    /**
+     * quita un intervalo
+     *
+     * @param id identificador del intervalo
+     * @param inicio inicio con el que se inserto
+     * @return true si estaba en el arbol
+     */
+    public boolean eliminar(long id, long inicio) {
+        int antes = tamano;
+        raiz = eliminar(raiz, id, inicio);
+        return tamano < antes;
+    }
+
+    /**
+     * indica si algun intervalo se cruza con [inicio, fin)
+     *
+     * @param inicio inicio inclusivo
+     * @param fin fin exclusivo
+     * @param idExcluido id que no se considera, por ejemplo la cita que se
+     * reprograma, o un valor negativo
+     * @return true si hay al menos un solape
+     */
+    public boolean haySolape(long inicio, long fin, long idExcluido) {
+        return primerSolape(raiz, inicio, fin, idExcluido) != null;
+    }
+
+    /**
+     * obtiene los ids de los intervalos que se cruzan con [inicio, fin)
+     *
+     * @param inicio inicio inclusivo
+     * @param fin fin exclusivo
+     * @return ids en orden de inicio
+     */
+    public List<Long> solapes(long inicio, long fin) {
+        List<Long> ids = new ArrayList<>();
+        solapes(raiz, inicio, fin, ids);
+        return ids;
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+
+    private static Nodo primerSolape(Nodo nodo, long inicio, long fin, long idExcluido) {
+        while (nodo != null && nodo.finMaximo > inicio) {
+            // si algo a la izquierda termina despues del inicio, ahi esta el primero
+            if (nodo.izquierdo != null && nodo.izquierdo.finMaximo > inicio) {
+                Nodo encontrado = primerSolape(nodo.izquierdo, inicio, fin, idExcluido);
+                if (encontrado != null) {
+                    return encontrado;
+                }
+            }
+            if (nodo.inicio >= fin) {
+                return null;
+            }
+            if (nodo.fin > inicio && nodo.id != idExcluido) {
+                return nodo;
+            }
+            nodo = nodo.derecho;
+        }
+        return null;
+    }
+
+    private static void solapes(Nodo nodo, long inicio, long fin, List<Long> ids) {
+        if (nodo == null || nodo.finMaximo <= inicio) {
+            return;
+        }
+        solapes(nodo.izquierdo, inicio, fin, ids);
+        if (nodo.inicio >= fin) {
+            return;
+        }
+        if (nodo.fin > inicio) {
+            ids.add(nodo.id);
+        }
+        solapes(nodo.derecho, inicio, fin, ids);
+    }
+
+    private Nodo insertar(Nodo nodo, Nodo nuevo) {
+        if (nodo == null) {
+            tamano++;
+            return nuevo;
+        }
+        int comparacion = comparar(nuevo.inicio, nuevo.id, nodo);
+        if (comparacion < 0) {
+            nodo.izquierdo = insertar(nodo.izquierdo, nuevo);
+        } else if (comparacion > 0) {
+            nodo.derecho = insertar(nodo.derecho, nuevo);
+        } else {
+            // el mismo intervalo ya estaba
+            return nodo;
+        }
+        return balancear(nodo);
+    }
+
+    private Nodo eliminar(Nodo nodo, long id, long inicio) {
+        if (nodo == null) {
+            return null;
+        }
+        int comparacion = comparar(inicio, id, nodo);
+        if (comparacion < 0) {
+            nodo.izquierdo = eliminar(nodo.izquierdo, id, inicio);
+        } else if (comparacion > 0) {
+            nodo.derecho = eliminar(nodo.derecho, id, inicio);
+        } else {
+            tamano--;
+            if (nodo.izquierdo == null) {
+                return nodo.derecho;
+            }
+            if (nodo.derecho == null) {
+                return nodo.izquierdo;
+            }
+            Nodo sucesor = nodo.derecho;
+            while (sucesor.izquierdo != null) {
+                sucesor = sucesor.izquierdo;
+            }
+            // se quita el sucesor de la rama derecha y toma el lugar del nodo
+            tamano++;
+            sucesor.derecho = eliminar(nodo.derecho, sucesor.id, sucesor.inicio);
+            sucesor.izquierdo = nodo.izquierdo;
+            nodo = sucesor;
+        }
+        return balancear(nodo);
+    }
+
+    private static int comparar(long inicio, long id, Nodo nodo) {
+        int comparacion = Long.compare(inicio, nodo.inicio);
+        return comparacion != 0 ? comparacion : Long.compare(id, nodo.id);
+    }
+
+    private static Nodo balancear(Nodo nodo) {
+        actualizar(nodo);
+        int factor = altura(nodo.izquierdo) - altura(nodo.derecho);
+        if (factor > 1) {
+            if (altura(nodo.izquierdo.izquierdo) < altura(nodo.izquierdo.derecho)) {
+                nodo.izquierdo = rotarIzquierda(nodo.izquierdo);
+            }
+            return rotarDerecha(nodo);
+        }
+        if (factor < -1) {
+            if (altura(nodo.derecho.derecho) < altura(nodo.derecho.izquierdo)) {
+                nodo.derecho = rotarDerecha(nodo.derecho);
+            }
+            return rotarIzquierda(nodo);
+        }
+        return nodo;
+    }
+
+    private static Nodo rotarDerecha(Nodo nodo) {
+        Nodo izquierdo = nodo.izquierdo;
+        nodo.izquierdo = izquierdo.derecho;
+        izquierdo.derecho = nodo;
+        actualizar(nodo);
+        actualizar(izquierdo);
+        return izquierdo;
+    }
+
+    private static Nodo rotarIzquierda(Nodo nodo) {
+        Nodo derecho = nodo.derecho;
+        nodo.derecho = derecho.izquierdo;
+        derecho.izquierdo = nodo;
+        actualizar(nodo);
+        actualizar(derecho);
+        return derecho;
+    }
+
+    private static void actualizar(Nodo nodo) {
+        nodo.altura = 1 + Math.max(altura(nodo.izquierdo), altura(nodo.derecho));
+        long finMaximo = nodo.fin;
+        if (nodo.izquierdo != null) {
+            finMaximo = Math.max(finMaximo, nodo.izquierdo.finMaximo);
+        }
+        if (nodo.derecho != null) {
+            finMaximo = Math.max(finMaximo, nodo.derecho.finMaximo);
+        }
+        nodo.finMaximo = finMaximo;
+    }
+
+    private static int altura(Nodo nodo) {
+        return nodo == null ? 0 : nodo.altura;
+    }
+}
@@ -0,0 +1,419 @@
+package com.mycompany.gestionarpacientes.agenda;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * motor de disponibilidad que representa el dia de cada doctor como un mapa de
+ * bits de bloques de 15 minutos, un bit encendido es un bloque ocupado. Para
+ * buscar k bloques libres seguidos se combinan los bits libres con versiones
+ * desplazadas de si mismos, asi se revisan 64 bloques por operacion
+ *
+ * los dias se cargan por lotes para todos los doctores de la especialidad, se
+ * descartan por LRU y se recargan despues de edadMaximaMs, ocupar y liberar
+ * los mantienen al dia con las citas de esta estacion
+ *
+ * las consultas a la fuente corren fuera del monitor, asi una carga en frio no
+ * detiene las busquedas de otras especialidades ni las escrituras. Los cambios
+ * que llegan mientras hay una carga en curso se guardan y se vuelven a aplicar
+ * sobre los dias cargados al instalarlos
+ *
+ * @author gatog
+ */
+public class DisponibilidadDoctores {
+
+    public static final int MINUTOS_POR_BLOQUE = 15;
+    private static final int BLOQUES_POR_DIA = 24 * 60 / MINUTOS_POR_BLOQUE;
+    private static final int PALABRAS = (BLOQUES_POR_DIA + 63) / 64;
+
+    /**
+     * origen de los doctores y de sus citas
+     */
+    public interface Fuente {
+
+        /**
+         * @param especialidad especialidad a buscar
+         * @return ids de los doctores de la especialidad
+         */
+        List<Long> doctoresPorEspecialidad(String especialidad);
+
+        /**
+         * carga las citas activas de los doctores que empiezan dentro del rango
+         *
+         * @param doctorIds doctores a cargar
+         * @param desde inicio del rango, inclusivo
+         * @param hasta fin del rango, exclusivo
+         * @return citas encontradas
+         */
+        List<Ocupacion> ocupacion(List<Long> doctorIds, LocalDateTime desde, LocalDateTime hasta);
+    }
+
+    /**
+     * horario ocupado por una cita
+     *
+     * @param citaId id de la cita
+     * @param doctorId id del doctor
+     * @param inicio fecha y hora de inicio
+     * @param duracionMinutos duracion en minutos
+     */
+    public record Ocupacion(long citaId, long doctorId, LocalDateTime inicio, int duracionMinutos) {
+    }
+
+    /**
+     * horario libre encontrado
+     *
+     * @param doctorId id del doctor
+     * @param inicio fecha y hora de inicio
+     */
+    public record Hueco(long doctorId, LocalDateTime inicio) {
+    }
+
+    private record Clave(long doctorId, LocalDate dia) {
+    }
+
+    private record Doctores(List<Long> ids, long cargadoEn) {
+    }
+
+    private record Cambio(Ocupacion cita, boolean ocupa) {
+    }
+
+    private static final class Dia {
+
+        final long[] ocupado = new long[PALABRAS];
+        // bloques [desde, hasta) de cada cita en este dia por id de cita, asi
+        // ocupar o liberar dos veces la misma cita no cambia nada
+        final Map<Long, int[]> citas = new HashMap<>();
+        final long cargadoEn = System.currentTimeMillis();
+    }
+
+    private final Fuente fuente;
+    private final long[] jornada = new long[PALABRAS];
+    private final long edadMaximaMs;
+    private final Map<Clave, Dia> dias;
+    private final Map<String, Doctores> especialidades = new HashMap<>();
+    // cambios recibidos mientras hay cargas en curso, primerCambio es el
+    // numero del primero de la lista
+    private final List<Cambio> cambios = new ArrayList<>();
+    private long primerCambio;
+    private int cargando;
+    private long generacionDoctores;
+
+    /**
+     * @param fuente origen de los doctores y las citas
+     * @param inicioJornada hora a la que empiezan las citas
+     * @param finJornada hora a la que debe terminar la ultima cita
+     * @param maximoDias dias de doctor que se mantienen en memoria
+     * @param edadMaximaMs tiempo despues del cual un dia se vuelve a cargar
+     */
+    public DisponibilidadDoctores(Fuente fuente, LocalTime inicioJornada, LocalTime finJornada,
+            int maximoDias, long edadMaximaMs) {
+        this.fuente = fuente;
+        this.edadMaximaMs = edadMaximaMs;
+        encender(jornada, bloqueSiguiente(inicioJornada), bloqueAnterior(finJornada));
+        this.dias = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Dia> eldest) {
+                return size() > maximoDias;
+            }
+        };
+    }
+
+    /**
+     * busca los primeros horarios libres entre todos los doctores de la
+     * especialidad, ordenados por hora de inicio y luego por doctor
+     *
+     * @param especialidad especialidad de los doctores
+     * @param desde el horario no puede empezar antes
+     * @param hasta el horario debe terminar antes
+     * @param duracionMinutos duracion del horario, se redondea a bloques
+     * @param cantidad maximo de horarios a devolver
+     * @return horarios encontrados, vacio si no hay ninguno
+     */
+    public List<Hueco> buscar(String especialidad, LocalDateTime desde, LocalDateTime hasta,
+            int duracionMinutos, int cantidad) {
+        List<Long> doctores = doctores(especialidad);
+        if (doctores.isEmpty() || !desde.isBefore(hasta)) {
+            return new ArrayList<>();
+        }
+        LocalDate primerDia = desde.toLocalDate();
+        LocalDate ultimoDia = hasta.toLocalDate();
+        cargar(doctores, primerDia, ultimoDia);
+        synchronized (this) {
+            return huecos(doctores, desde, hasta, duracionMinutos, cantidad);
+        }
+    }
+
+    private List<Hueco> huecos(List<Long> doctores, LocalDateTime desde, LocalDateTime hasta,
+            int duracionMinutos, int cantidad) {
+        List<Hueco> huecos = new ArrayList<>();
+        LocalDate primerDia = desde.toLocalDate();
+        LocalDate ultimoDia = hasta.toLocalDate();
+
+        int bloques = (duracionMinutos + MINUTOS_POR_BLOQUE - 1) / MINUTOS_POR_BLOQUE;
+        long[] permitido = new long[PALABRAS];
+        long[] libres = new long[PALABRAS];
+        List<long[]> candidatos = new ArrayList<>();
+
+        for (LocalDate dia = primerDia; !dia.isAfter(ultimoDia) && huecos.size() < cantidad; dia = dia.plusDays(1)) {
+            int primerBloque = dia.equals(primerDia) ? bloqueSiguiente(desde.toLocalTime()) : 0;
+            int finBloques = dia.equals(ultimoDia) ? bloqueAnterior(hasta.toLocalTime()) : BLOQUES_POR_DIA;
+            vaciar(permitido);
+            encender(permitido, primerBloque, finBloques);
+            and(permitido, jornada);
+
+            candidatos.clear();
+            for (Long doctorId : doctores) {
+                Dia agenda = dias.get(new Clave(doctorId, dia));
+                if (agenda == null) {
+                    // el LRU lo descarto durante esta misma busqueda
+                    continue;
+                }
+                for (int w = 0; w < PALABRAS; w++) {
+                    libres[w] = permitido[w] & ~agenda.ocupado[w];
+                }
+                corridas(libres, bloques);
+                for (int w = 0; w < PALABRAS; w++) {
+                    for (long palabra = libres[w]; palabra != 0; palabra &= palabra - 1) {
+                        candidatos.add(new long[]{w * 64 + Long.numberOfTrailingZeros(palabra), doctorId});
+                    }
+                }
+            }
+            candidatos.sort(Comparator.<long[]>comparingLong(c -> c[0]).thenComparingLong(c -> c[1]));
+            for (int i = 0; i < candidatos.size() && huecos.size() < cantidad; i++) {
+                long[] candidato = candidatos.get(i);
+                huecos.add(new Hueco(candidato[1], dia.atStartOfDay().plusMinutes(candidato[0] * MINUTOS_POR_BLOQUE)));
+            }
+        }
+        return huecos;
+    }
+
+    /**
+     * marca como ocupado el horario de una cita nueva, los dias que no estan
+     * en memoria se ignoran porque se leeran de la base de datos. Si la cita
+     * ya estaba en el dia, por ejemplo porque la carga la leyo despues del
+     * commit, solo se actualiza su horario
+     *
+     * @param cita cita agendada
+     */
+    public synchronized void ocupar(Ocupacion cita) {
+        cambiar(new Cambio(cita, true));
+    }
+
+    /**
+     * libera el horario de una cita cancelada o eliminada, los bloques que
+     * comparte con otra cita siguen ocupados y una cita que no estaba en el
+     * dia se ignora
+     *
+     * @param cita cita liberada
+     */
+    public synchronized void liberar(Ocupacion cita) {
+        cambiar(new Cambio(cita, false));
+    }
+
+    /**
+     * descarta la lista de doctores por especialidad, se llama cuando se
+     * registra, cambia o elimina un doctor
+     */
+    public synchronized void invalidarDoctores() {
+        especialidades.clear();
+        generacionDoctores++;
+    }
+
+    /**
+     * descarta todo lo que esta en memoria
+     */
+    public synchronized void limpiar() {
+        especialidades.clear();
+        generacionDoctores++;
+        dias.clear();
+    }
+
+    private List<Long> doctores(String especialidad) {
+        String clave = especialidad.trim().toLowerCase();
+        long generacion;
+        synchronized (this) {
+            Doctores doctores = especialidades.get(clave);
+            if (doctores != null && System.currentTimeMillis() - doctores.cargadoEn() <= edadMaximaMs) {
+                return doctores.ids();
+            }
+            generacion = generacionDoctores;
+        }
+        Doctores doctores = new Doctores(List.copyOf(fuente.doctoresPorEspecialidad(especialidad.trim())), System.currentTimeMillis());
+        synchronized (this) {
+            // si un doctor cambio durante la consulta la lista puede estar vieja
+            if (generacion == generacionDoctores) {
+                especialidades.put(clave, doctores);
+            }
+        }
+        return doctores.ids();
+    }
+
+    /**
+     * carga en una sola consulta los dias que faltan de los doctores, la
+     * consulta corre sin el monitor y los dias se instalan al terminar
+     */
+    private void cargar(List<Long> doctores, LocalDate primerDia, LocalDate ultimoDia) {
+        List<Long> faltantes = new ArrayList<>();
+        long desdeCambio;
+        synchronized (this) {
+            long ahora = System.currentTimeMillis();
+            for (Long doctorId : doctores) {
+                for (LocalDate dia = primerDia; !dia.isAfter(ultimoDia); dia = dia.plusDays(1)) {
+                    Dia agenda = dias.get(new Clave(doctorId, dia));
+                    if (agenda == null || ahora - agenda.cargadoEn > edadMaximaMs) {
+                        faltantes.add(doctorId);
+                        break;
+                    }
+                }
+            }
+            if (faltantes.isEmpty()) {
+                return;
+            }
+            cargando++;
+            desdeCambio = primerCambio + cambios.size();
+        }
+
+        Map<Clave, Dia> cargados = new HashMap<>();
+        boolean listo = false;
+        try {
+            for (Long doctorId : faltantes) {
+                for (LocalDate dia = primerDia; !dia.isAfter(ultimoDia); dia = dia.plusDays(1)) {
+                    cargados.put(new Clave(doctorId, dia), new Dia());
+                }
+            }
+            // las citas del dia anterior pueden terminar dentro del primer dia
+            List<Ocupacion> citas = fuente.ocupacion(faltantes,
+                    primerDia.minusDays(1).atStartOfDay(), ultimoDia.plusDays(1).atStartOfDay());
+            for (Ocupacion cita : citas) {
+                marcar(cargados, cita, true);
+            }
+            listo = true;
+        } finally {
+            synchronized (this) {
+                if (listo) {
+                    // la consulta pudo leer la base antes o despues de cada
+                    // cambio, como marcar es idempotente se aplican todos
+                    for (int i = (int) (desdeCambio - primerCambio); i < cambios.size(); i++) {
+                        marcar(cargados, cambios.get(i).cita(), cambios.get(i).ocupa());
+                    }
+                    dias.putAll(cargados);
+                }
+                if (--cargando == 0) {
+                    primerCambio += cambios.size();
+                    cambios.clear();
+                }
+            }
+        }
+    }
+
+    private void cambiar(Cambio cambio) {
+        marcar(dias, cambio.cita(), cambio.ocupa());
+        if (cargando > 0) {
+            cambios.add(cambio);
+        }
+    }
+
+    private static void marcar(Map<Clave, Dia> dias, Ocupacion cita, boolean ocupa) {
+        LocalDateTime inicio = cita.inicio();
+        LocalDateTime fin = inicio.plusMinutes(cita.duracionMinutos());
+        for (LocalDate dia = inicio.toLocalDate(); dia.atStartOfDay().isBefore(fin); dia = dia.plusDays(1)) {
+            Dia agenda = dias.get(new Clave(cita.doctorId(), dia));
+            if (agenda == null) {
+                continue;
+            }
+            int desde = dia.equals(inicio.toLocalDate()) ? bloqueAnterior(inicio.toLocalTime()) : 0;
+            int hasta = dia.equals(fin.toLocalDate()) ? bloqueSiguiente(fin.toLocalTime()) : BLOQUES_POR_DIA;
+            int[] anterior = ocupa
+                    ? agenda.citas.put(cita.citaId(), new int[]{desde, hasta})
+                    : agenda.citas.remove(cita.citaId());
+            if (anterior == null && ocupa) {
+                encender(agenda.ocupado, desde, hasta);
+            } else if (anterior != null) {
+                recalcular(agenda);
+            }
+        }
+    }
+
+    /**
+     * vuelve a armar los bits del dia con las citas que quedan, un dia tiene
+     * pocas citas asi que es mas simple que llevar la cuenta por bloque
+     */
+    private static void recalcular(Dia agenda) {
+        vaciar(agenda.ocupado);
+        for (int[] bloques : agenda.citas.values()) {
+            encender(agenda.ocupado, bloques[0], bloques[1]);
+        }
+    }
+
+    /**
+     * deja encendido el bit j solo si los bits j .. j+k-1 estaban encendidos,
+     * el largo cubierto se duplica en cada paso asi que son log2(k) pasos
+     */
+    private static void corridas(long[] bits, int k) {
+        long[] desplazado = new long[PALABRAS];
+        int cubierto = 1;
+        while (cubierto < k) {
+            int paso = Math.min(cubierto, k - cubierto);
+            desplazar(bits, paso, desplazado);
+            and(bits, desplazado);
+            cubierto += paso;
+        }
+    }
+
+    /**
+     * el bit j del destino toma el valor del bit j+n del origen
+     */
+    private static void desplazar(long[] origen, int n, long[] destino) {
+        int palabras = n >>> 6;
+        int bits = n & 63;
+        for (int w = 0; w < PALABRAS; w++) {
+            int fuente = w + palabras;
+            long bajo = fuente < PALABRAS ? origen[fuente] : 0L;
+            long alto = fuente + 1 < PALABRAS ? origen[fuente + 1] : 0L;
+            destino[w] = bits == 0 ? bajo : (bajo >>> bits) | (alto << (64 - bits));
+        }
+    }
+
+    private static void and(long[] destino, long[] mascara) {
+        for (int w = 0; w < PALABRAS; w++) {
+            destino[w] &= mascara[w];
+        }
+    }
+
+    private static void vaciar(long[] bits) {
+        for (int w = 0; w < PALABRAS; w++) {
+            bits[w] = 0L;
+        }
+    }
+
+    /**
+     * enciende los bits [desde, hasta)
+     */
+    private static void encender(long[] bits, int desde, int hasta) {
+        for (int bloque = desde; bloque < hasta; bloque++) {
+            bits[bloque >>> 6] |= 1L << bloque;
+        }
+    }
+
+    /**
+     * primer bloque que empieza en la hora o despues
+     */
+    private static int bloqueSiguiente(LocalTime hora) {
+        int minutos = (hora.toSecondOfDay() + 59) / 60;
+        return Math.min(BLOQUES_POR_DIA, (minutos + MINUTOS_POR_BLOQUE - 1) / MINUTOS_POR_BLOQUE);
+    }
+
+    /**
+     * bloque que contiene la hora, o el numero de bloques que terminan antes
+     */
+    private static int bloqueAnterior(LocalTime hora) {
+        return hora.toSecondOfDay() / 60 / MINUTOS_POR_BLOQUE;
+    }
+}
@@ -0,0 +1,148 @@
+package com.mycompany.gestionarpacientes.dto;
+
+import com.mycompany.gestionarpacientes.entitys.EstadoCita;
+import java.time.LocalDateTime;
+
+/**
+ * DTO para transferir informacion de Cita entre capas, incluye el nombre del
+ * doctor y del paciente para mostrarlos sin cargar las entidades
+ *
+ * @author gatog
+ */
+public class CitaDTO {
+
+    private Long id;
+    private Long doctorId;
+    private String doctorNombre;
+    private Long pacienteId;
+    private String pacienteNombre;
+    private LocalDateTime fechaHora;
+    private int duracionMinutos;
+    private EstadoCita estado;
+    private String diagnostico;
+    private String tratamiento;
+
+    public CitaDTO() {
+    }
+
+    public CitaDTO(Long id, Long doctorId, String doctorNombre, Long pacienteId, String pacienteNombre,
+            LocalDateTime fechaHora, int duracionMinutos, EstadoCita estado, String diagnostico, String tratamiento) {
+        this.id = id;
+        this.doctorId = doctorId;
+        this.doctorNombre = doctorNombre;
+        this.pacienteId = pacienteId;
+        this.pacienteNombre = pacienteNombre;
+        this.fechaHora = fechaHora;
+        this.duracionMinutos = duracionMinutos;
+        this.estado = estado;
+        this.diagnostico = diagnostico;
+        this.tratamiento = tratamiento;
+    }
+
+    public CitaDTO(Long doctorId, Long pacienteId, LocalDateTime fechaHora, int duracionMinutos) {
+        this.doctorId = doctorId;
+        this.pacienteId = pacienteId;
+        this.fechaHora = fechaHora;
+        this.duracionMinutos = duracionMinutos;
+    }
+
+    // Getters y Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public String getDoctorNombre() {
+        return doctorNombre;
+    }
+
+    public void setDoctorNombre(String doctorNombre) {
+        this.doctorNombre = doctorNombre;
+    }
+
+    public Long getPacienteId() {
+        return pacienteId;
+    }
+
+    public void setPacienteId(Long pacienteId) {
+        this.pacienteId = pacienteId;
+    }
+
+    public String getPacienteNombre() {
+        return pacienteNombre;
+    }
+
+    public void setPacienteNombre(String pacienteNombre) {
+        this.pacienteNombre = pacienteNombre;
+    }
+
+    public LocalDateTime getFechaHora() {
+        return fechaHora;
+    }
+
+    public void setFechaHora(LocalDateTime fechaHora) {
+        this.fechaHora = fechaHora;
+    }
+
+    public int getDuracionMinutos() {
+        return duracionMinutos;
+    }
+
+    public void setDuracionMinutos(int duracionMinutos) {
+        this.duracionMinutos = duracionMinutos;
+    }
+
+    /**
+     * @return fecha y hora en que termina la cita
+     */
+    public LocalDateTime getFechaHoraFin() {
+        return fechaHora == null ? null : fechaHora.plusMinutes(duracionMinutos);
+    }
+
+    public EstadoCita getEstado() {
+        return estado;
+    }
+
+    public void setEstado(EstadoCita estado) {
+        this.estado = estado;
+    }
+
+    public String getDiagnostico() {
+        return diagnostico;
+    }
+
+    public void setDiagnostico(String diagnostico) {
+        this.diagnostico = diagnostico;
+    }
+
+    public String getTratamiento() {
+        return tratamiento;
+    }
+
+    public void setTratamiento(String tratamiento) {
+        this.tratamiento = tratamiento;
+    }
+
+    @Override
+    public String toString() {
+        return "CitaDTO{"
+                + "id=" + id
+                + ", doctorId=" + doctorId
+                + ", pacienteId=" + pacienteId
+                + ", fechaHora=" + fechaHora
+                + ", duracionMinutos=" + duracionMinutos
+                + ", estado=" + estado
+                + '}';
+    }
+}
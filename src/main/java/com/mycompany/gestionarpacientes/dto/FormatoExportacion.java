@@ -0,0 +1,17 @@
+package com.mycompany.gestionarpacientes.dto;
+
+/**
+ * formatos de archivo para exportar registros
+ *
+ * @author gatog
+ */
+public enum FormatoExportacion {
+    /**
+     * valores separados por coma con una linea de encabezado
+     */
+    CSV,
+    /**
+     * un objeto JSON por linea (JSON Lines)
+     */
+    JSONL
+}
@@ -0,0 +1,80 @@
+package com.mycompany.gestionarpacientes.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO con un horario libre de un doctor
+ *
+ * @author gatog
+ */
+public class HuecoDTO {
+
+    private Long doctorId;
+    private String doctorNombre;
+    private String especialidad;
+    private LocalDateTime fechaHora;
+    private int duracionMinutos;
+
+    public HuecoDTO() {
+    }
+
+    public HuecoDTO(Long doctorId, String doctorNombre, String especialidad,
+            LocalDateTime fechaHora, int duracionMinutos) {
+        this.doctorId = doctorId;
+        this.doctorNombre = doctorNombre;
+        this.especialidad = especialidad;
+        this.fechaHora = fechaHora;
+        this.duracionMinutos = duracionMinutos;
+    }
+
+    // Getters y Setters
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    public String getDoctorNombre() {
+        return doctorNombre;
+    }
+
+    public void setDoctorNombre(String doctorNombre) {
+        this.doctorNombre = doctorNombre;
+    }
+
+    public String getEspecialidad() {
+        return especialidad;
+    }
+
+    public void setEspecialidad(String especialidad) {
+        this.especialidad = especialidad;
+    }
+
+    public LocalDateTime getFechaHora() {
+        return fechaHora;
+    }
+
+    public void setFechaHora(LocalDateTime fechaHora) {
+        this.fechaHora = fechaHora;
+    }
+
+    public int getDuracionMinutos() {
+        return duracionMinutos;
+    }
+
+    public void setDuracionMinutos(int duracionMinutos) {
+        this.duracionMinutos = duracionMinutos;
+    }
+
+    @Override
+    public String toString() {
+        return "HuecoDTO{"
+                + "doctorId=" + doctorId
+                + ", doctorNombre='" + doctorNombre + '\''
+                + ", fechaHora=" + fechaHora
+                + ", duracionMinutos=" + duracionMinutos
+                + '}';
+    }
+}
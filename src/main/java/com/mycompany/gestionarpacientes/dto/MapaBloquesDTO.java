@@ -0,0 +1,51 @@
+package com.mycompany.gestionarpacientes.dto;
+
+import java.util.List;
+
+/**
+ * DTO con la posicion de cada bloque de una lista ordenada por (nombre, id):
+ * el total de filas y el cursor de la ultima fila de cada bloque completo, asi
+ * cualquier bloque se pide por llave sin saltar filas con offset
+ *
+ * @author gatog
+ */
+public class MapaBloquesDTO {
+
+    private final long total;
+    private final int filasPorBloque;
+    private final List<String> cursores;
+
+    public MapaBloquesDTO(long total, int filasPorBloque, List<String> cursores) {
+        this.total = total;
+        this.filasPorBloque = filasPorBloque;
+        this.cursores = cursores;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getFilasPorBloque() {
+        return filasPorBloque;
+    }
+
+    /**
+     * obtiene el cursor desde el que empieza un bloque
+     *
+     * @param bloque numero de bloque
+     * @return cursor de la ultima fila del bloque anterior, null para el
+     * primer bloque o si el bloque queda despues del final
+     */
+    public String cursorDelBloque(int bloque) {
+        return bloque > 0 && bloque <= cursores.size() ? cursores.get(bloque - 1) : null;
+    }
+
+    @Override
+    public String toString() {
+        return "MapaBloquesDTO{"
+                + "total=" + total
+                + ", filasPorBloque=" + filasPorBloque
+                + ", bloques=" + cursores.size()
+                + '}';
+    }
+}
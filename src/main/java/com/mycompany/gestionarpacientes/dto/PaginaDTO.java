@@ -0,0 +1,45 @@
+package com.mycompany.gestionarpacientes.dto;
+
+import java.util.List;
+
+/**
+ * DTO que representa una pagina de resultados obtenida por cursor, el cursor
+ * es opaco y solo debe devolverse al servicio para pedir la siguiente pagina
+ *
+ * @author gatog
+ * @param <T> tipo de los elementos de la pagina
+ */
+public class PaginaDTO<T> {
+
+    private final List<T> elementos;
+    private final String siguienteCursor;
+
+    public PaginaDTO(List<T> elementos, String siguienteCursor) {
+        this.elementos = elementos;
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    /**
+     * @return cursor para pedir la siguiente pagina o null si esta es la
+     * ultima
+     */
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    public boolean hayMas() {
+        return siguienteCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "PaginaDTO{"
+                + "elementos=" + elementos.size()
+                + ", siguienteCursor='" + siguienteCursor + '\''
+                + '}';
+    }
+}
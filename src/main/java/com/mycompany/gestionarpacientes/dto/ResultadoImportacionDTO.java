@@ -0,0 +1,75 @@
+package com.mycompany.gestionarpacientes.dto;
+
+import java.util.List;
+
+/**
+ * DTO con el resumen de una importacion masiva, solo guarda el detalle de los
+ * primeros registros rechazados para que el tamano no dependa del archivo
+ *
+ * @author gatog
+ */
+public class ResultadoImportacionDTO {
+
+    private final long leidos;
+    private final long importados;
+    private final long rechazados;
+    private final long duracionMs;
+    private final List<Rechazo> primerosRechazos;
+
+    public ResultadoImportacionDTO(long leidos, long importados, long rechazados, long duracionMs,
+            List<Rechazo> primerosRechazos) {
+        this.leidos = leidos;
+        this.importados = importados;
+        this.rechazados = rechazados;
+        this.duracionMs = duracionMs;
+        this.primerosRechazos = List.copyOf(primerosRechazos);
+    }
+
+    public long getLeidos() {
+        return leidos;
+    }
+
+    public long getImportados() {
+        return importados;
+    }
+
+    public long getRechazados() {
+        return rechazados;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    /**
+     * @return registros importados por segundo
+     */
+    public double getFilasPorSegundo() {
+        return duracionMs == 0 ? importados : importados * 1000.0 / duracionMs;
+    }
+
+    public List<Rechazo> getPrimerosRechazos() {
+        return primerosRechazos;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoImportacionDTO{"
+                + "leidos=" + leidos
+                + ", importados=" + importados
+                + ", rechazados=" + rechazados
+                + ", duracionMs=" + duracionMs
+                + ", filasPorSegundo=" + String.format("%.1f", getFilasPorSegundo())
+                + '}';
+    }
+
+    /**
+     * registro que no se importo
+     *
+     * @param linea linea del archivo donde empieza el registro
+     * @param dni DNI del registro si se pudo leer
+     * @param motivo razon del rechazo
+     */
+    public record Rechazo(long linea, String dni, String motivo) {
+    }
+}
@@ -8,22 +8,45 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import java.time.LocalDateTime;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "citas")
+@TableGenerator(table = "id_generadores", pkColumnName = "entidad", valueColumnName = "siguiente_id",
+        pkColumnValue = "citas", initialValue = 1, allocationSize = 50)
+@Table(name = "citas", indexes = {
+    @Index(name = "idx_citas_doctor_fecha", columnList = "doctor_id, fecha_hora"),
+    @Index(name = "idx_citas_paciente_fecha", columnList = "paciente_id, fecha_hora")
+})
+@NamedEntityGraph(name = Cita.GRAFO_HISTORIAL, attributeNodes = {
+    @NamedAttributeNode("doctor"),
+    @NamedAttributeNode("paciente")
+})
 public class Cita {
 
+    /**
+     * grafo que trae el doctor y el paciente en la misma consulta que la cita
+     */
+    public static final String GRAFO_HISTORIAL = "Cita.historial";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE)
     private Long id;
 
     @Column(name = "fecha_hora", nullable = false)
     private LocalDateTime fechaHora;
 
+    @ColumnDefault("30")
+    @Column(name = "duracion_minutos", nullable = false)
+    private int duracionMinutos = 30;
+
     @Column(columnDefinition = "TEXT") // Se usa para textos largos en la base de datos
     private String diagnostico;
 
@@ -60,6 +83,14 @@ public class Cita {
         this.fechaHora = fechaHora;
     }
 
+    public int getDuracionMinutos() {
+        return duracionMinutos;
+    }
+
+    public void setDuracionMinutos(int duracionMinutos) {
+        this.duracionMinutos = duracionMinutos;
+    }
+
     public String getDiagnostico() {
         return diagnostico;
     }
@@ -1,20 +1,31 @@
 package com.mycompany.gestionarpacientes.entitys;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import java.util.ArrayList;
 import java.util.List;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  *
  * @author angel
  */
 @Entity
-@Table(name = "doctores")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "doctores")
+@TableGenerator(table = "id_generadores", pkColumnName = "entidad", valueColumnName = "siguiente_id",
+        pkColumnValue = "doctores", initialValue = 1, allocationSize = 50)
+@Table(name = "doctores", indexes = {
+    @Index(name = "idx_doctores_nombre_id", columnList = "nombre, id")
+})
 public class Doctor extends Persona {
 
     @Column(nullable = false, length = 50)
@@ -1,21 +1,32 @@
 package com.mycompany.gestionarpacientes.entitys;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  *
  * @author angel
  */
 @Entity
-@Table(name = "pacientes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pacientes")
+@TableGenerator(table = "id_generadores", pkColumnName = "entidad", valueColumnName = "siguiente_id",
+        pkColumnValue = "pacientes", initialValue = 1, allocationSize = 50)
+@Table(name = "pacientes", indexes = {
+    @Index(name = "idx_pacientes_nombre_id", columnList = "nombre, id")
+})
 public class Paciente extends Persona {
 
     @Column(name = "fecha_nacimiento", nullable = false)
@@ -13,8 +13,10 @@ import jakarta.persistence.MappedSuperclass;
 @MappedSuperclass
 public abstract class Persona {
 
+    // los ids se reservan por bloques en id_generadores para que Hibernate pueda
+    // agrupar los INSERT en lotes JDBC, cada entidad declara su @TableGenerator
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE)
     protected Long id;
 
     @Column(name = "nombre", nullable = false, length = 50)
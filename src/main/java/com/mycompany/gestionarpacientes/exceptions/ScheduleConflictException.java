@@ -0,0 +1,21 @@
+package com.mycompany.gestionarpacientes.exceptions;
+
+/**
+ * excepcion personalizada lanzada cuando una cita se cruza con otra cita del
+ * mismo doctor
+ *
+ * @author gatog
+ */
+public class ScheduleConflictException extends RuntimeException {
+
+    private final Object conflictingId;
+
+    public ScheduleConflictException(Object conflictingId) {
+        super(String.format("el horario se cruza con la cita %s", conflictingId));
+        this.conflictingId = conflictingId;
+    }
+
+    public Object getConflictingId() {
+        return conflictingId;
+    }
+}
@@ -0,0 +1,88 @@
+package com.mycompany.gestionarpacientes.repository;
+
+import com.mycompany.gestionarpacientes.dto.CitaDTO;
+import com.mycompany.gestionarpacientes.entitys.Cita;
+import com.mycompany.gestionarpacientes.exceptions.RepositoryException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ *
+ * @author gatog
+ */
+public interface ICitaRepository {
+
+    Cita agregar(Cita cita) throws RepositoryException;
+
+    Cita actualizar(Cita cita) throws RepositoryException;
+
+    Cita eliminar(Long id) throws RepositoryException;
+
+    Cita buscarPorId(Long id) throws RepositoryException;
+
+    /**
+     * proyecta a DTO las citas de un doctor que empiezan dentro del rango,
+     * usa el indice (doctor_id, fecha_hora)
+     *
+     * @param doctorId id del doctor
+     * @param desde inicio del rango, inclusivo
+     * @param hasta fin del rango, exclusivo
+     * @return DTOs ordenados por fecha y hora
+     * @throws RepositoryException si falla la consulta
+     */
+    List<CitaDTO> proyectarPorDoctorEntre(Long doctorId, LocalDateTime desde, LocalDateTime hasta) throws RepositoryException;
+
+    /**
+     * obtiene el horario de las citas no canceladas de varios doctores que
+     * empiezan dentro del rango, sin cargar entidades
+     *
+     * @param doctorIds ids de los doctores
+     * @param desde inicio del rango, inclusivo
+     * @param hasta fin del rango, exclusivo
+     * @return arreglos [citaId, doctorId, fechaHora, duracionMinutos]
+     * @throws RepositoryException si falla la consulta
+     */
+    List<Object[]> listarOcupacion(List<Long> doctorIds, LocalDateTime desde, LocalDateTime hasta) throws RepositoryException;
+
+    /**
+     * obtiene el horario de las citas no canceladas de un paciente que
+     * empiezan desde la fecha indicada, sin cargar entidades
+     *
+     * @param pacienteId id del paciente
+     * @param desde inicio del rango, inclusivo
+     * @return arreglos [citaId, doctorId, fechaHora, duracionMinutos]
+     * @throws RepositoryException si falla la consulta
+     */
+    List<Object[]> listarOcupacionPorPaciente(Long pacienteId, LocalDateTime desde) throws RepositoryException;
+
+    List<CitaDTO> proyectarPorPaciente(Long pacienteId, int limit, int offset) throws RepositoryException;
+
+    /**
+     * obtiene una pagina del historial de un paciente de la mas reciente a la
+     * mas antigua, el doctor y el paciente llegan con el grafo
+     * {@link Cita#GRAFO_HISTORIAL} en una sola sentencia SQL
+     *
+     * @param pacienteId id del paciente
+     * @param ultimaFecha fecha de la ultima cita de la pagina anterior o null
+     * para la primera pagina
+     * @param ultimoId id de la ultima cita de la pagina anterior
+     * @param limit numero maximo de citas
+     * @return citas con doctor y paciente inicializados
+     * @throws RepositoryException si falla la consulta
+     */
+    List<Cita> listarHistorialPaciente(Long pacienteId, LocalDateTime ultimaFecha, Long ultimoId, int limit) throws RepositoryException;
+
+    /**
+     * obtiene una pagina del historial de un doctor, igual que
+     * {@link #listarHistorialPaciente(Long, LocalDateTime, Long, int)}
+     *
+     * @param doctorId id del doctor
+     * @param ultimaFecha fecha de la ultima cita de la pagina anterior o null
+     * para la primera pagina
+     * @param ultimoId id de la ultima cita de la pagina anterior
+     * @param limit numero maximo de citas
+     * @return citas con doctor y paciente inicializados
+     * @throws RepositoryException si falla la consulta
+     */
+    List<Cita> listarHistorialDoctor(Long doctorId, LocalDateTime ultimaFecha, Long ultimoId, int limit) throws RepositoryException;
+}
@@ -1,8 +1,11 @@
 package com.mycompany.gestionarpacientes.repository;
 
+import com.mycompany.gestionarpacientes.dto.DoctorDTO;
 import com.mycompany.gestionarpacientes.entitys.Doctor;
 import com.mycompany.gestionarpacientes.exceptions.RepositoryException;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  *
@@ -17,10 +20,92 @@ public interface IDoctorRepository {
     Doctor eliminar(Long id) throws RepositoryException;
 
     Doctor buscarPorId(Long id) throws RepositoryException;
+
+    /**
+     * busca el doctor y bloquea su fila hasta que termine la transaccion, sirve
+     * para serializar las escrituras sobre la agenda del doctor
+     *
+     * @param id id del doctor
+     * @return el doctor o null si no existe
+     * @throws RepositoryException si falla la consulta
+     */
+    Doctor bloquearPorId(Long id) throws RepositoryException;
+
+    Doctor buscarPorCedula(String cedulaProfesional) throws RepositoryException;
+
+    boolean existePorCedula(String cedulaProfesional) throws RepositoryException;
     
     List<Doctor> listarTodos(int limit, int offset) throws RepositoryException;
 
     List<Doctor> listarPorNombre(String nombre, int limit, int offset) throws RepositoryException;
 
+    /**
+     * proyecta directo a DTO, sin cargar entidades administradas, las filas
+     * ordenadas por nombre
+     *
+     * @param limit numero maximo de filas
+     * @param offset filas a saltar
+     * @return DTOs ordenados por nombre e id
+     * @throws RepositoryException si falla la consulta
+     */
+    List<DoctorDTO> proyectarTodos(int limit, int offset) throws RepositoryException;
+
+    List<DoctorDTO> proyectarPorNombre(String nombre, int limit, int offset) throws RepositoryException;
+
+    /**
+     * proyecta directo a DTO por llave (nombre, id) las filas que van despues
+     * de la ultima fila entregada, sin saltar filas con offset
+     *
+     * @param ultimoNombre nombre de la ultima fila entregada o null para la
+     * primera pagina
+     * @param ultimoId id de la ultima fila entregada
+     * @param limit numero maximo de filas
+     * @return DTOs ordenados por nombre e id
+     * @throws RepositoryException si falla la consulta
+     */
+    List<DoctorDTO> proyectarTodosDesde(String ultimoNombre, Long ultimoId, int limit) throws RepositoryException;
+
+    List<DoctorDTO> proyectarPorNombreDesde(String nombre, String ultimoNombre, Long ultimoId, int limit) throws RepositoryException;
+
+    /**
+     * proyecta a DTO las filas con los ids indicados buscando por llave
+     * primaria, el orden del resultado no esta garantizado
+     *
+     * @param ids ids a buscar
+     * @return DTOs encontrados
+     * @throws RepositoryException si falla la consulta
+     */
+    List<DoctorDTO> proyectarPorIds(List<Long> ids) throws RepositoryException;
+
+    /**
+     * recorre id, nombre y apellido de todas las filas para construir el
+     * indice de busqueda, el stream debe consumirse antes de cerrar el
+     * EntityManager
+     *
+     * @return stream de arreglos [id, nombre, apellido]
+     * @throws RepositoryException si falla la consulta
+     */
+    Stream<Object[]> recorrerNombres() throws RepositoryException;
+
     List<Doctor> listarPorEspecialidad(String especialidad, int limit, int offset) throws RepositoryException;
+
+    /**
+     * obtiene solo los ids de los doctores cuya especialidad contiene el texto
+     *
+     * @param especialidad texto a buscar
+     * @return ids ordenados
+     * @throws RepositoryException si falla la consulta
+     */
+    List<Long> listarIdsPorEspecialidad(String especialidad) throws RepositoryException;
+
+    /**
+     * recorre todos los doctores ordenados por id con un cursor de solo avance,
+     * el driver trae las filas por bloques y el contexto de persistencia se
+     * limpia cada bloque, la memoria no depende del tamano de la tabla
+     *
+     * @param receptor recibe cada doctor en orden
+     * @return numero de doctores recorridos
+     * @throws RepositoryException si falla la consulta
+     */
+    long exportarTodos(Consumer<DoctorDTO> receptor) throws RepositoryException;
 }
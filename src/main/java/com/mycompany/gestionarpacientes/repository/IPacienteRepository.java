@@ -1,8 +1,12 @@
 package com.mycompany.gestionarpacientes.repository;
 
+import com.mycompany.gestionarpacientes.dto.PacienteDTO;
 import com.mycompany.gestionarpacientes.entitys.Paciente;
 import com.mycompany.gestionarpacientes.exceptions.RepositoryException;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  *
@@ -17,10 +21,103 @@ public interface IPacienteRepository {
     Paciente eliminar(Long id) throws RepositoryException;
 
     Paciente buscarPorId(Long id) throws RepositoryException;
+
+    Paciente buscarPorDni(String dni) throws RepositoryException;
+
+    boolean existePorDni(String dni) throws RepositoryException;
+
+    /**
+     * obtiene cuales de los DNI ya estan registrados, en una sola consulta
+     *
+     * @param dnis DNI a revisar, no mas de unos miles por llamada
+     * @return los DNI que ya existen
+     * @throws RepositoryException si falla la consulta
+     */
+    List<String> listarDnisExistentes(Collection<String> dnis) throws RepositoryException;
     
     List<Paciente> listarTodos(int limit, int offset) throws RepositoryException;
 
     List<Paciente> listarPorNombre(String nombre, int limit, int offset) throws RepositoryException;
 
+    /**
+     * proyecta directo a DTO, sin cargar entidades administradas, las filas
+     * ordenadas por nombre
+     *
+     * @param limit numero maximo de filas
+     * @param offset filas a saltar
+     * @return DTOs ordenados por nombre e id
+     * @throws RepositoryException si falla la consulta
+     */
+    List<PacienteDTO> proyectarTodos(int limit, int offset) throws RepositoryException;
+
+    List<PacienteDTO> proyectarPorNombre(String nombre, int limit, int offset) throws RepositoryException;
+
+    /**
+     * proyecta directo a DTO por llave (nombre, id) las filas que van despues
+     * de la ultima fila entregada, sin saltar filas con offset
+     *
+     * @param ultimoNombre nombre de la ultima fila entregada o null para la
+     * primera pagina
+     * @param ultimoId id de la ultima fila entregada
+     * @param limit numero maximo de filas
+     * @return DTOs ordenados por nombre e id
+     * @throws RepositoryException si falla la consulta
+     */
+    List<PacienteDTO> proyectarTodosDesde(String ultimoNombre, Long ultimoId, int limit) throws RepositoryException;
+
+    List<PacienteDTO> proyectarPorNombreDesde(String nombre, String ultimoNombre, Long ultimoId, int limit) throws RepositoryException;
+
+    /**
+     * proyecta a DTO las filas con los ids indicados buscando por llave
+     * primaria, el orden del resultado no esta garantizado
+     *
+     * @param ids ids a buscar
+     * @return DTOs encontrados
+     * @throws RepositoryException si falla la consulta
+     */
+    List<PacienteDTO> proyectarPorIds(List<Long> ids) throws RepositoryException;
+
+    /**
+     * recorre id, nombre y apellido de todas las filas para construir el
+     * indice de busqueda, el stream debe consumirse antes de cerrar el
+     * EntityManager
+     *
+     * @return stream de arreglos [id, nombre, apellido]
+     * @throws RepositoryException si falla la consulta
+     */
+    Stream<Object[]> recorrerNombres() throws RepositoryException;
+
+    /**
+     * cuenta todos los pacientes registrados
+     *
+     * @return numero de filas
+     * @throws RepositoryException si falla la consulta
+     */
+    long contarTodos() throws RepositoryException;
+
     List<Paciente> listarPorTipoDeSeguro(String tipoSeguro, int limit, int offset) throws RepositoryException;
+
+    /**
+     * recorre todos los pacientes ordenados por id con un cursor de solo avance,
+     * el driver trae las filas por bloques y el contexto de persistencia se
+     * limpia cada bloque, la memoria no depende del tamano de la tabla
+     *
+     * @param receptor recibe cada paciente en orden
+     * @return numero de pacientes recorridos
+     * @throws RepositoryException si falla la consulta
+     */
+    long exportarTodos(Consumer<PacienteDTO> receptor) throws RepositoryException;
+
+    /**
+     * recorre la llave (nombre, id) de todas las filas en el orden de la
+     * paginacion por cursor, solo lee el indice de nombre e id y no arma
+     * entidades ni DTOs
+     *
+     * @param cada se entrega la llave de la fila cada-esima, la ultima de cada
+     * bloque de ese tamano
+     * @param receptor recibe arreglos [nombre, id]
+     * @return numero de filas recorridas
+     * @throws RepositoryException si falla la consulta
+     */
+    long recorrerLlaves(int cada, Consumer<Object[]> receptor) throws RepositoryException;
 }
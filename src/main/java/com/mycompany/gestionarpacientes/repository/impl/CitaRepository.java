@@ -0,0 +1,199 @@
+package com.mycompany.gestionarpacientes.repository.impl;
+
+import com.mycompany.gestionarpacientes.dto.CitaDTO;
+import com.mycompany.gestionarpacientes.entitys.Cita;
+import com.mycompany.gestionarpacientes.entitys.EstadoCita;
+import com.mycompany.gestionarpacientes.exceptions.EntityNotFoundException;
+import com.mycompany.gestionarpacientes.exceptions.RepositoryException;
+import com.mycompany.gestionarpacientes.repository.ICitaRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * clase de acceso de datos
+ *
+ * @author gatog
+ */
+public class CitaRepository implements ICitaRepository {
+
+    /**
+     * proyeccion que construye el DTO desde la consulta con el nombre del
+     * doctor y del paciente, sin cargar ninguna de las tres entidades
+     */
+    private static final String SELECT_DTO = "SELECT new com.mycompany.gestionarpacientes.dto.CitaDTO("
+            + "c.id, d.id, CONCAT(d.nombre, ' ', d.apellido), p.id, CONCAT(p.nombre, ' ', p.apellido), "
+            + "c.fechaHora, c.duracionMinutos, c.estado, c.diagnostico, c.tratamiento) "
+            + "FROM Cita c JOIN c.doctor d JOIN c.paciente p ";
+
+    /**
+     * condicion de pagina siguiente sobre la llave (fechaHora, id) en orden
+     * descendente, el primer termino permite un rango sobre el indice
+     */
+    private static final String CONDICION_HISTORIAL = "AND c.fechaHora <= :ultimaFecha "
+            + "AND (c.fechaHora < :ultimaFecha OR c.id < :ultimoId) ";
+
+    private final EntityManager entityManager;
+
+    public CitaRepository(EntityManager em) {
+        this.entityManager = em;
+    }
+
+    @Override
+    public Cita agregar(Cita cita) throws RepositoryException {
+        try {
+            entityManager.persist(cita);
+            entityManager.flush();
+            return cita;
+        } catch (Exception e) {
+            throw new RepositoryException("insertar", "no se pudo insertar la cita", e);
+        }
+    }
+
+    @Override
+    public Cita actualizar(Cita cita) throws RepositoryException {
+        try {
+            return entityManager.merge(cita);
+        } catch (Exception e) {
+            throw new RepositoryException("actualizar", "no se pudo actualizar la cita", e);
+        }
+    }
+
+    @Override
+    public Cita eliminar(Long id) throws RepositoryException {
+        try {
+            Cita cita = entityManager.find(Cita.class, id);
+            if (cita == null) {
+                throw new EntityNotFoundException("no se encontro la cita indicada");
+            }
+            entityManager.remove(cita);
+            return cita;
+        } catch (EntityNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RepositoryException("eliminar", "no se pudo eliminar la cita", e);
+        }
+    }
+
+    @Override
+    public Cita buscarPorId(Long id) throws RepositoryException {
+        try {
+            return entityManager.find(Cita.class, id);
+        } catch (Exception e) {
+            throw new RepositoryException("buscar", "no se pudo buscar la cita", e);
+        }
+    }
+
+    @Override
+    public List<CitaDTO> proyectarPorDoctorEntre(Long doctorId, LocalDateTime desde, LocalDateTime hasta) throws RepositoryException {
+        try {
+            String jpql = SELECT_DTO
+                    + "WHERE d.id = :doctorId "
+                    + "AND c.fechaHora >= :desde AND c.fechaHora < :hasta "
+                    + "ORDER BY c.fechaHora ASC, c.id ASC";
+
+            TypedQuery<CitaDTO> query = entityManager.createQuery(jpql, CitaDTO.class);
+            query.setParameter("doctorId", doctorId);
+            query.setParameter("desde", desde);
+            query.setParameter("hasta", hasta);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("proyectarPorDoctorEntre", "no fue posible listar las citas del doctor", ex);
+        }
+    }
+
+    @Override
+    public List<Object[]> listarOcupacion(List<Long> doctorIds, LocalDateTime desde, LocalDateTime hasta) throws RepositoryException {
+        try {
+            String jpql = "SELECT c.id, c.doctor.id, c.fechaHora, c.duracionMinutos FROM Cita c "
+                    + "WHERE c.doctor.id IN :doctorIds "
+                    + "AND c.fechaHora >= :desde AND c.fechaHora < :hasta "
+                    + "AND c.estado <> :cancelada";
+
+            TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class);
+            query.setParameter("doctorIds", doctorIds);
+            query.setParameter("desde", desde);
+            query.setParameter("hasta", hasta);
+            query.setParameter("cancelada", EstadoCita.CANCELADA);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("listarOcupacion", "no fue posible obtener el horario de los doctores", ex);
+        }
+    }
+
+    @Override
+    public List<Object[]> listarOcupacionPorPaciente(Long pacienteId, LocalDateTime desde) throws RepositoryException {
+        try {
+            String jpql = "SELECT c.id, c.doctor.id, c.fechaHora, c.duracionMinutos FROM Cita c "
+                    + "WHERE c.paciente.id = :pacienteId "
+                    + "AND c.fechaHora >= :desde "
+                    + "AND c.estado <> :cancelada";
+
+            TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class);
+            query.setParameter("pacienteId", pacienteId);
+            query.setParameter("desde", desde);
+            query.setParameter("cancelada", EstadoCita.CANCELADA);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("listarOcupacionPorPaciente", "no fue posible obtener el horario del paciente", ex);
+        }
+    }
+
+    @Override
+    public List<CitaDTO> proyectarPorPaciente(Long pacienteId, int limit, int offset) throws RepositoryException {
+        try {
+            String jpql = SELECT_DTO
+                    + "WHERE p.id = :pacienteId "
+                    + "ORDER BY c.fechaHora DESC, c.id DESC";
+
+            TypedQuery<CitaDTO> query = entityManager.createQuery(jpql, CitaDTO.class);
+            query.setParameter("pacienteId", pacienteId);
+            query.setMaxResults(limit);
+            query.setFirstResult(offset);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("proyectarPorPaciente", "no fue posible listar las citas del paciente", ex);
+        }
+    }
+
+    @Override
+    public List<Cita> listarHistorialPaciente(Long pacienteId, LocalDateTime ultimaFecha, Long ultimoId, int limit) throws RepositoryException {
+        try {
+            return listarHistorial("c.paciente.id", pacienteId, ultimaFecha, ultimoId, limit);
+        } catch (Exception ex) {
+            throw new RepositoryException("listarHistorialPaciente", "no fue posible listar el historial del paciente", ex);
+        }
+    }
+
+    @Override
+    public List<Cita> listarHistorialDoctor(Long doctorId, LocalDateTime ultimaFecha, Long ultimoId, int limit) throws RepositoryException {
+        try {
+            return listarHistorial("c.doctor.id", doctorId, ultimaFecha, ultimoId, limit);
+        } catch (Exception ex) {
+            throw new RepositoryException("listarHistorialDoctor", "no fue posible listar el historial del doctor", ex);
+        }
+    }
+
+    private List<Cita> listarHistorial(String propietario, Long id, LocalDateTime ultimaFecha, Long ultimoId, int limit) {
+        String jpql = "SELECT c FROM Cita c "
+                + "WHERE " + propietario + " = :id "
+                + (ultimaFecha != null ? CONDICION_HISTORIAL : "")
+                + "ORDER BY c.fechaHora DESC, c.id DESC";
+
+        TypedQuery<Cita> query = entityManager.createQuery(jpql, Cita.class);
+        query.setParameter("id", id);
+        if (ultimaFecha != null) {
+            query.setParameter("ultimaFecha", ultimaFecha);
+            query.setParameter("ultimoId", ultimoId);
+        }
+        query.setHint("jakarta.persistence.fetchgraph", entityManager.getEntityGraph(Cita.GRAFO_HISTORIAL));
+        query.setMaxResults(limit);
+
+        return query.getResultList();
+    }
+}
@@ -1,12 +1,23 @@
 package com.mycompany.gestionarpacientes.repository.impl;
 
+import com.mycompany.gestionarpacientes.dto.DoctorDTO;
 import com.mycompany.gestionarpacientes.entitys.Doctor;
 import com.mycompany.gestionarpacientes.exceptions.EntityNotFoundException;
 import com.mycompany.gestionarpacientes.exceptions.RepositoryException;
 import com.mycompany.gestionarpacientes.repository.IDoctorRepository;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.TypedQuery;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 
 /**
  *
@@ -14,6 +25,29 @@ import java.util.List;
  */
 public class DoctorRepository implements IDoctorRepository {
 
+    /**
+     * proyeccion que construye el DTO desde la consulta, las filas no entran
+     * al contexto de persistencia ni se copian desde una entidad
+     */
+    private static final String SELECT_DTO = "SELECT new com.mycompany.gestionarpacientes.dto.DoctorDTO("
+            + "d.id, d.nombre, d.apellido, d.dni, d.email, d.especialidad, d.cedulaProfesional) "
+            + "FROM Doctor d ";
+
+    /**
+     * condicion de pagina siguiente sobre la llave (nombre, id), el primer
+     * termino permite que MySQL haga un rango sobre el indice de nombre
+     */
+    private static final String CONDICION_CURSOR = "d.nombre >= :ultimoNombre "
+            + "AND (d.nombre > :ultimoNombre OR d.id > :ultimoId) ";
+
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    /**
+     * filas que el driver trae por viaje al exportar, con MySQL requiere
+     * useCursorFetch=true en la URL
+     */
+    private static final int TAMANO_FETCH = 500;
+
     private final EntityManager entityManager;
 
     public DoctorRepository(EntityManager em) {
@@ -65,12 +99,53 @@ public class DoctorRepository implements IDoctorRepository {
         }
     }
 
+    @Override
+    public Doctor bloquearPorId(Long id) throws RepositoryException {
+        try {
+            return entityManager.find(Doctor.class, id, LockModeType.PESSIMISTIC_WRITE);
+        } catch (Exception e) {
+            throw new RepositoryException("bloquear", "no se pudo bloquear el doctor", e);
+        }
+    }
+
+    @Override
+    public Doctor buscarPorCedula(String cedulaProfesional) throws RepositoryException {
+        try {
+            String jpql = "SELECT d FROM Doctor d "
+                    + "WHERE d.cedulaProfesional = :cedula";
+
+            TypedQuery<Doctor> query = entityManager.createQuery(jpql, Doctor.class);
+            query.setParameter("cedula", cedulaProfesional);
+            query.setMaxResults(1);
+
+            return query.getResultStream().findFirst().orElse(null);
+        } catch (Exception ex) {
+            throw new RepositoryException("buscarPorCedula", "no se pudo buscar el doctor", ex);
+        }
+    }
+
+    @Override
+    public boolean existePorCedula(String cedulaProfesional) throws RepositoryException {
+        try {
+            String jpql = "SELECT d.id FROM Doctor d "
+                    + "WHERE d.cedulaProfesional = :cedula";
+
+            TypedQuery<Long> query = entityManager.createQuery(jpql, Long.class);
+            query.setParameter("cedula", cedulaProfesional);
+            query.setMaxResults(1);
+
+            return !query.getResultList().isEmpty();
+        } catch (Exception ex) {
+            throw new RepositoryException("existePorCedula", "no se pudo verificar la cédula del doctor", ex);
+        }
+    }
+
     @Override
     public List<Doctor> listarPorNombre(String nombre, int limit, int offset) throws RepositoryException {
         try {
             String jpql = "SELECT d FROM Doctor d "
                     + "WHERE LOWER(d.nombre) LIKE LOWER(:nombre) "
-                    + "ORDER BY d.nombre ASC";
+                    + "ORDER BY d.nombre ASC, d.id ASC";
 
             TypedQuery<Doctor> query = entityManager.createQuery(jpql, Doctor.class);
             query.setParameter("nombre", "%" + nombre + "%");
@@ -88,7 +163,7 @@ public class DoctorRepository implements IDoctorRepository {
         try {
             String jpql = "SELECT d FROM Doctor d "
                     + "WHERE LOWER(d.especialidad) LIKE LOWER(:especialidad) "
-                    + "ORDER BY d.nombre ASC";
+                    + "ORDER BY d.nombre ASC, d.id ASC";
 
             TypedQuery<Doctor> query = entityManager.createQuery(jpql, Doctor.class);
             query.setParameter("especialidad", "%" + especialidad + "%");
@@ -101,11 +176,27 @@ public class DoctorRepository implements IDoctorRepository {
         }
     }
 
+    @Override
+    public List<Long> listarIdsPorEspecialidad(String especialidad) throws RepositoryException {
+        try {
+            String jpql = "SELECT d.id FROM Doctor d "
+                    + "WHERE LOWER(d.especialidad) LIKE LOWER(:especialidad) "
+                    + "ORDER BY d.id ASC";
+
+            TypedQuery<Long> query = entityManager.createQuery(jpql, Long.class);
+            query.setParameter("especialidad", "%" + especialidad + "%");
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("listarIdsPorEspecialidad", "no fue posible listar los doctores", ex);
+        }
+    }
+
     @Override
     public List<Doctor> listarTodos(int limit, int offset) throws RepositoryException {
         try {
             String jpql = "SELECT d FROM Doctor d "
-                    + "ORDER BY d.nombre ASC";
+                    + "ORDER BY d.nombre ASC, d.id ASC";
 
             TypedQuery<Doctor> query = entityManager.createQuery(jpql, Doctor.class);
             query.setMaxResults(limit);
@@ -116,4 +207,147 @@ public class DoctorRepository implements IDoctorRepository {
             throw new RepositoryException("listarTodos", "no fue posible listar los doctores", ex);
         }
     }
+
+    @Override
+    public List<DoctorDTO> proyectarTodos(int limit, int offset) throws RepositoryException {
+        try {
+            String jpql = SELECT_DTO
+                    + "ORDER BY d.nombre ASC, d.id ASC";
+
+            TypedQuery<DoctorDTO> query = entityManager.createQuery(jpql, DoctorDTO.class);
+            query.setMaxResults(limit);
+            query.setFirstResult(offset);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("proyectarTodos", "no fue posible listar los doctores", ex);
+        }
+    }
+
+    @Override
+    public List<DoctorDTO> proyectarPorNombre(String nombre, int limit, int offset) throws RepositoryException {
+        try {
+            String jpql = SELECT_DTO
+                    + "WHERE (LOWER(d.nombre) LIKE LOWER(:nombre) ESCAPE '!' OR LOWER(d.apellido) LIKE LOWER(:nombre) ESCAPE '!') "
+                    + "ORDER BY d.nombre ASC, d.id ASC";
+
+            TypedQuery<DoctorDTO> query = entityManager.createQuery(jpql, DoctorDTO.class);
+            query.setParameter("nombre", patronContiene(nombre));
+            query.setMaxResults(limit);
+            query.setFirstResult(offset);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("proyectarPorNombre", "no fue posible listar los doctores", ex);
+        }
+    }
+
+    @Override
+    public List<DoctorDTO> proyectarTodosDesde(String ultimoNombre, Long ultimoId, int limit) throws RepositoryException {
+        try {
+            String jpql = SELECT_DTO
+                    + (ultimoNombre != null ? "WHERE " + CONDICION_CURSOR : "")
+                    + "ORDER BY d.nombre ASC, d.id ASC";
+
+            TypedQuery<DoctorDTO> query = entityManager.createQuery(jpql, DoctorDTO.class);
+            if (ultimoNombre != null) {
+                query.setParameter("ultimoNombre", ultimoNombre);
+                query.setParameter("ultimoId", ultimoId);
+            }
+            query.setMaxResults(limit);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("proyectarTodosDesde", "no fue posible listar los doctores", ex);
+        }
+    }
+
+    @Override
+    public List<DoctorDTO> proyectarPorNombreDesde(String nombre, String ultimoNombre, Long ultimoId, int limit) throws RepositoryException {
+        try {
+            String jpql = SELECT_DTO
+                    + "WHERE (LOWER(d.nombre) LIKE LOWER(:nombre) ESCAPE '!' OR LOWER(d.apellido) LIKE LOWER(:nombre) ESCAPE '!') "
+                    + (ultimoNombre != null ? "AND " + CONDICION_CURSOR : "")
+                    + "ORDER BY d.nombre ASC, d.id ASC";
+
+            TypedQuery<DoctorDTO> query = entityManager.createQuery(jpql, DoctorDTO.class);
+            query.setParameter("nombre", patronContiene(nombre));
+            if (ultimoNombre != null) {
+                query.setParameter("ultimoNombre", ultimoNombre);
+                query.setParameter("ultimoId", ultimoId);
+            }
+            query.setMaxResults(limit);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("proyectarPorNombreDesde", "no fue posible listar los doctores", ex);
+        }
+    }
+
+    @Override
+    public List<DoctorDTO> proyectarPorIds(List<Long> ids) throws RepositoryException {
+        try {
+            if (ids.isEmpty()) {
+                return new ArrayList<>();
+            }
+            String jpql = SELECT_DTO
+                    + "WHERE d.id IN :ids";
+
+            TypedQuery<DoctorDTO> query = entityManager.createQuery(jpql, DoctorDTO.class);
+            query.setParameter("ids", ids);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("proyectarPorIds", "no fue posible listar los doctores", ex);
+        }
+    }
+
+    @Override
+    public Stream<Object[]> recorrerNombres() throws RepositoryException {
+        try {
+            String jpql = "SELECT d.id, d.nombre, d.apellido FROM Doctor d";
+
+            TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class);
+            return query.getResultStream();
+        } catch (Exception ex) {
+            throw new RepositoryException("recorrerNombres", "no fue posible leer los doctores", ex);
+        }
+    }
+
+    @Override
+    public long exportarTodos(Consumer<DoctorDTO> receptor) throws RepositoryException {
+        try {
+            Session session = entityManager.unwrap(Session.class);
+            String jpql = SELECT_DTO + "ORDER BY d.id";
+
+            long total = 0;
+            try (ScrollableResults<DoctorDTO> filas = session.createSelectionQuery(jpql, DoctorDTO.class)
+                    .setFetchSize(TAMANO_FETCH)
+                    .setReadOnly(true)
+                    .setCacheMode(CacheMode.IGNORE)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (filas.next()) {
+                    receptor.accept(filas.get());
+                    if (++total % TAMANO_FETCH == 0) {
+                        session.clear();
+                    }
+                }
+            }
+            return total;
+        } catch (UncheckedIOException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new RepositoryException("exportarTodos", "no fue posible recorrer los doctores", ex);
+        }
+    }
+
+    /**
+     * patron LIKE que busca el texto como subcadena, con los espacios
+     * reducidos igual que en el indice de nombres y los comodines % y _ del
+     * texto escapados con !
+     */
+    private static String patronContiene(String texto) {
+        String limpio = ESPACIOS.matcher(texto.trim()).replaceAll(" ");
+        return "%" + limpio.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
 }
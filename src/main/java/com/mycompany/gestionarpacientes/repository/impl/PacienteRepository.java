@@ -1,12 +1,23 @@
 package com.mycompany.gestionarpacientes.repository.impl;
 
+import com.mycompany.gestionarpacientes.dto.PacienteDTO;
 import com.mycompany.gestionarpacientes.entitys.Paciente;
 import com.mycompany.gestionarpacientes.exceptions.EntityNotFoundException;
 import com.mycompany.gestionarpacientes.exceptions.RepositoryException;
 import com.mycompany.gestionarpacientes.repository.IPacienteRepository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 
 /**
  * clase de acceso de datos
@@ -15,6 +26,29 @@ import java.util.List;
  */
 public class PacienteRepository implements IPacienteRepository {
 
+    /**
+     * proyeccion que construye el DTO desde la consulta, las filas no entran
+     * al contexto de persistencia ni se copian desde una entidad
+     */
+    private static final String SELECT_DTO = "SELECT new com.mycompany.gestionarpacientes.dto.PacienteDTO("
+            + "p.id, p.nombre, p.apellido, p.dni, p.email, p.fechaNacimiento, p.tipoSangre, p.seguroMedico) "
+            + "FROM Paciente p ";
+
+    /**
+     * condicion de pagina siguiente sobre la llave (nombre, id), el primer
+     * termino permite que MySQL haga un rango sobre el indice de nombre
+     */
+    private static final String CONDICION_CURSOR = "p.nombre >= :ultimoNombre "
+            + "AND (p.nombre > :ultimoNombre OR p.id > :ultimoId) ";
+
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    /**
+     * filas que el driver trae por viaje al exportar, con MySQL requiere
+     * useCursorFetch=true en la URL
+     */
+    private static final int TAMANO_FETCH = 500;
+
     private final EntityManager entityManager;
 
     public PacienteRepository(EntityManager em) {
@@ -66,12 +100,73 @@ public class PacienteRepository implements IPacienteRepository {
         }
     }
 
+    @Override
+    public Paciente buscarPorDni(String dni) throws RepositoryException {
+        try {
+            String jpql = "SELECT p FROM Paciente p "
+                    + "WHERE p.dni = :dni";
+
+            TypedQuery<Paciente> query = entityManager.createQuery(jpql, Paciente.class);
+            query.setParameter("dni", dni);
+            query.setMaxResults(1);
+
+            return query.getResultStream().findFirst().orElse(null);
+        } catch (Exception ex) {
+            throw new RepositoryException("buscarPorDni", "no se pudo buscar el paciente", ex);
+        }
+    }
+
+    @Override
+    public boolean existePorDni(String dni) throws RepositoryException {
+        try {
+            String jpql = "SELECT p.id FROM Paciente p "
+                    + "WHERE p.dni = :dni";
+
+            TypedQuery<Long> query = entityManager.createQuery(jpql, Long.class);
+            query.setParameter("dni", dni);
+            query.setMaxResults(1);
+
+            return !query.getResultList().isEmpty();
+        } catch (Exception ex) {
+            throw new RepositoryException("existePorDni", "no se pudo verificar el DNI del paciente", ex);
+        }
+    }
+
+    @Override
+    public List<String> listarDnisExistentes(Collection<String> dnis) throws RepositoryException {
+        try {
+            if (dnis.isEmpty()) {
+                return new ArrayList<>();
+            }
+            String jpql = "SELECT p.dni FROM Paciente p "
+                    + "WHERE p.dni IN :dnis";
+
+            TypedQuery<String> query = entityManager.createQuery(jpql, String.class);
+            query.setParameter("dnis", dnis);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("listarDnisExistentes", "no se pudieron verificar los DNI", ex);
+        }
+    }
+
+    @Override
+    public long contarTodos() throws RepositoryException {
+        try {
+            String jpql = "SELECT COUNT(p) FROM Paciente p";
+
+            return entityManager.createQuery(jpql, Long.class).getSingleResult();
+        } catch (Exception ex) {
+            throw new RepositoryException("contarTodos", "no fue posible contar los pacientes", ex);
+        }
+    }
+
     @Override
     public List<Paciente> listarPorNombre(String nombre, int limit, int offset) throws RepositoryException {
         try {
             String jpql = "SELECT p FROM Paciente p "
                     + "WHERE LOWER(p.nombre) LIKE LOWER(:nombre) "
-                    + "ORDER BY p.nombre ASC";
+                    + "ORDER BY p.nombre ASC, p.id ASC";
 
             TypedQuery<Paciente> query = entityManager.createQuery(jpql, Paciente.class);
             query.setParameter("nombre", "%" + nombre + "%");
@@ -89,7 +184,7 @@ public class PacienteRepository implements IPacienteRepository {
         try {
             String jpql = "SELECT p FROM Paciente p "
                     + "WHERE LOWER(p.seguroMedico) LIKE LOWER(:tipoSeguro) "
-                    + "ORDER BY p.nombre ASC";
+                    + "ORDER BY p.nombre ASC, p.id ASC";
 
             TypedQuery<Paciente> query = entityManager.createQuery(jpql, Paciente.class);
             query.setParameter("tipoSeguro", "%" + tipoSeguro + "%");
@@ -106,7 +201,7 @@ public class PacienteRepository implements IPacienteRepository {
     public List<Paciente> listarTodos(int limit, int offset) throws RepositoryException {
         try {
             String jpql = "SELECT p FROM Paciente p "
-                    + "ORDER BY p.nombre ASC";
+                    + "ORDER BY p.nombre ASC, p.id ASC";
 
             TypedQuery<Paciente> query = entityManager.createQuery(jpql, Paciente.class);
             query.setMaxResults(limit);
@@ -117,4 +212,171 @@ public class PacienteRepository implements IPacienteRepository {
             throw new RepositoryException("listarTodos", "no fue posible listar los pacientes", ex);
         }
     }
+
+    @Override
+    public List<PacienteDTO> proyectarTodos(int limit, int offset) throws RepositoryException {
+        try {
+            String jpql = SELECT_DTO
+                    + "ORDER BY p.nombre ASC, p.id ASC";
+
+            TypedQuery<PacienteDTO> query = entityManager.createQuery(jpql, PacienteDTO.class);
+            query.setMaxResults(limit);
+            query.setFirstResult(offset);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("proyectarTodos", "no fue posible listar los pacientes", ex);
+        }
+    }
+
+    @Override
+    public List<PacienteDTO> proyectarPorNombre(String nombre, int limit, int offset) throws RepositoryException {
+        try {
+            String jpql = SELECT_DTO
+                    + "WHERE (LOWER(p.nombre) LIKE LOWER(:nombre) ESCAPE '!' OR LOWER(p.apellido) LIKE LOWER(:nombre) ESCAPE '!') "
+                    + "ORDER BY p.nombre ASC, p.id ASC";
+
+            TypedQuery<PacienteDTO> query = entityManager.createQuery(jpql, PacienteDTO.class);
+            query.setParameter("nombre", patronContiene(nombre));
+            query.setMaxResults(limit);
+            query.setFirstResult(offset);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("proyectarPorNombre", "no fue posible listar los pacientes", ex);
+        }
+    }
+
+    @Override
+    public List<PacienteDTO> proyectarTodosDesde(String ultimoNombre, Long ultimoId, int limit) throws RepositoryException {
+        try {
+            String jpql = SELECT_DTO
+                    + (ultimoNombre != null ? "WHERE " + CONDICION_CURSOR : "")
+                    + "ORDER BY p.nombre ASC, p.id ASC";
+
+            TypedQuery<PacienteDTO> query = entityManager.createQuery(jpql, PacienteDTO.class);
+            if (ultimoNombre != null) {
+                query.setParameter("ultimoNombre", ultimoNombre);
+                query.setParameter("ultimoId", ultimoId);
+            }
+            query.setMaxResults(limit);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("proyectarTodosDesde", "no fue posible listar los pacientes", ex);
+        }
+    }
+
+    @Override
+    public List<PacienteDTO> proyectarPorNombreDesde(String nombre, String ultimoNombre, Long ultimoId, int limit) throws RepositoryException {
+        try {
+            String jpql = SELECT_DTO
+                    + "WHERE (LOWER(p.nombre) LIKE LOWER(:nombre) ESCAPE '!' OR LOWER(p.apellido) LIKE LOWER(:nombre) ESCAPE '!') "
+                    + (ultimoNombre != null ? "AND " + CONDICION_CURSOR : "")
+                    + "ORDER BY p.nombre ASC, p.id ASC";
+
+            TypedQuery<PacienteDTO> query = entityManager.createQuery(jpql, PacienteDTO.class);
+            query.setParameter("nombre", patronContiene(nombre));
+            if (ultimoNombre != null) {
+                query.setParameter("ultimoNombre", ultimoNombre);
+                query.setParameter("ultimoId", ultimoId);
+            }
+            query.setMaxResults(limit);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("proyectarPorNombreDesde", "no fue posible listar los pacientes", ex);
+        }
+    }
+
+    @Override
+    public List<PacienteDTO> proyectarPorIds(List<Long> ids) throws RepositoryException {
+        try {
+            if (ids.isEmpty()) {
+                return new ArrayList<>();
+            }
+            String jpql = SELECT_DTO
+                    + "WHERE p.id IN :ids";
+
+            TypedQuery<PacienteDTO> query = entityManager.createQuery(jpql, PacienteDTO.class);
+            query.setParameter("ids", ids);
+
+            return query.getResultList();
+        } catch (Exception ex) {
+            throw new RepositoryException("proyectarPorIds", "no fue posible listar los pacientes", ex);
+        }
+    }
+
+    @Override
+    public Stream<Object[]> recorrerNombres() throws RepositoryException {
+        try {
+            String jpql = "SELECT p.id, p.nombre, p.apellido FROM Paciente p";
+
+            TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class);
+            return query.getResultStream();
+        } catch (Exception ex) {
+            throw new RepositoryException("recorrerNombres", "no fue posible leer los pacientes", ex);
+        }
+    }
+
+    @Override
+    public long exportarTodos(Consumer<PacienteDTO> receptor) throws RepositoryException {
+        try {
+            Session session = entityManager.unwrap(Session.class);
+            String jpql = SELECT_DTO + "ORDER BY p.id";
+
+            long total = 0;
+            try (ScrollableResults<PacienteDTO> filas = session.createSelectionQuery(jpql, PacienteDTO.class)
+                    .setFetchSize(TAMANO_FETCH)
+                    .setReadOnly(true)
+                    .setCacheMode(CacheMode.IGNORE)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (filas.next()) {
+                    receptor.accept(filas.get());
+                    if (++total % TAMANO_FETCH == 0) {
+                        session.clear();
+                    }
+                }
+            }
+            return total;
+        } catch (UncheckedIOException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new RepositoryException("exportarTodos", "no fue posible recorrer los pacientes", ex);
+        }
+    }
+
+    @Override
+    public long recorrerLlaves(int cada, Consumer<Object[]> receptor) throws RepositoryException {
+        try {
+            Session session = entityManager.unwrap(Session.class);
+            String jpql = "SELECT p.nombre, p.id FROM Paciente p ORDER BY p.nombre ASC, p.id ASC";
+
+            long total = 0;
+            try (ScrollableResults<Object[]> filas = session.createSelectionQuery(jpql, Object[].class)
+                    .setFetchSize(TAMANO_FETCH)
+                    .setReadOnly(true)
+                    .setCacheMode(CacheMode.IGNORE)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (filas.next()) {
+                    if (++total % cada == 0) {
+                        receptor.accept(filas.get());
+                    }
+                }
+            }
+            return total;
+        } catch (Exception ex) {
+            throw new RepositoryException("recorrerLlaves", "no fue posible recorrer los pacientes", ex);
+        }
+    }
+
+    /**
+     * patron LIKE que busca el texto como subcadena, con los espacios
+     * reducidos igual que en el indice de nombres y los comodines % y _ del
+     * texto escapados con !
+     */
+    private static String patronContiene(String texto) {
+        String limpio = ESPACIOS.matcher(texto.trim()).replaceAll(" ");
+        return "%" + limpio.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
 }
@@ -0,0 +1,560 @@
+package com.mycompany.gestionarpacientes.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * indice invertido de trigramas en memoria sobre nombre y apellido. Aplica la
+ * misma regla que la consulta SQL de respaldo: una fila coincide si el texto
+ * buscado aparece dentro del nombre o dentro del apellido, cada uno por
+ * separado, y las mayusculas y acentos se tratan segun la {@link Intercalacion}
+ * de la base. Las consultas de 3 o mas caracteres se resuelven con los
+ * trigramas, las de 1 o 2 recorren los textos en memoria.
+ *
+ * El indice se carga en segundo plano la primera vez que se usa, mientras no
+ * este listo las busquedas devuelven null para que el servicio use SQL. Las
+ * escrituras del servicio lo mantienen al dia y se recarga completo cuando
+ * supera la edad maxima, para recoger cambios hechos por otras estaciones.
+ *
+ * @author gatog
+ */
+public class IndiceNombres {
+
+    private static final Logger LOGGER = Logger.getLogger(IndiceNombres.class.getName());
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    /**
+     * separa nombre y apellido en el texto indexado, nunca aparece en una
+     * consulta porque los espacios se reducen a uno solo
+     */
+    private static final char SEPARADOR = '\n';
+
+    /**
+     * orden de los resultados por la llave del nombre y el id; la llave se
+     * arma con la intercalacion de la base, asi el orden y los cursores son
+     * los mismos que los de ORDER BY nombre, id en SQL
+     */
+    private static final Comparator<Entrada> ORDEN = Comparator
+            .comparing(Entrada::llave)
+            .thenComparingLong(Entrada::id);
+
+    /**
+     * entradas ordenadas que guarda la cache entre todas las consultas, al
+     * pasar el limite se descartan las menos usadas
+     */
+    private static final int MAXIMO_EN_CACHE = 1_000_000;
+
+    private final String nombre;
+    private final Fuente fuente;
+    private final long edadMaximaMs;
+    private final Supplier<Intercalacion> intercalacion;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean cargando = new AtomicBoolean(false);
+    private final CacheOrdenados cache = new CacheOrdenados();
+    private Datos datos;
+    private List<Operacion> pendientes;
+    /**
+     * cambia con cada escritura o recarga, una lista de la cache solo sirve si
+     * se ordeno en la misma version
+     */
+    private long version;
+    private volatile long cargadoEn;
+
+    /**
+     * @param nombre nombre del indice para los logs
+     * @param fuente recorre todas las filas de la tabla
+     * @param edadMaximaMs tiempo tras el cual se recarga completo, 0 para no
+     * recargar
+     * @param intercalacion intercalacion de las columnas, se consulta en cada
+     * carga
+     */
+    public IndiceNombres(String nombre, Fuente fuente, long edadMaximaMs, Supplier<Intercalacion> intercalacion) {
+        this.nombre = nombre;
+        this.fuente = fuente;
+        this.edadMaximaMs = edadMaximaMs;
+        this.intercalacion = intercalacion;
+    }
+
+    /**
+     * busca por nombre o apellido y devuelve una pagina de ids por offset
+     *
+     * @param texto texto a buscar
+     * @param offset resultados a saltar
+     * @param limit numero maximo de resultados
+     * @return ids ordenados por nombre e id, o null si el indice no esta listo
+     */
+    public List<Long> buscar(String texto, int offset, int limit) {
+        Ordenados ordenados = buscarOrdenado(texto);
+        if (ordenados == null) {
+            return null;
+        }
+        List<Entrada> resultados = ordenados.entradas();
+        int desde = Math.min(offset, resultados.size());
+        int hasta = Math.min(desde + limit, resultados.size());
+        return ids(resultados.subList(desde, hasta));
+    }
+
+    /**
+     * busca por nombre o apellido y devuelve los ids que van despues de la
+     * llave (nombre, id) indicada
+     *
+     * @param texto texto a buscar
+     * @param ultimoNombre nombre de la ultima fila entregada o null
+     * @param ultimoId id de la ultima fila entregada
+     * @param limit numero maximo de resultados
+     * @return ids ordenados por nombre e id, o null si el indice no esta listo
+     */
+    public List<Long> buscarDespues(String texto, String ultimoNombre, Long ultimoId, int limit) {
+        Ordenados ordenados = buscarOrdenado(texto);
+        if (ordenados == null) {
+            return null;
+        }
+        List<Entrada> resultados = ordenados.entradas();
+        int desde = 0;
+        if (ultimoNombre != null) {
+            Entrada llave = new Entrada(ultimoId, ordenados.intercalacion().llave(ultimoNombre));
+            int pos = Collections.binarySearch(resultados, llave, ORDEN);
+            desde = pos >= 0 ? pos + 1 : -pos - 1;
+        }
+        int hasta = Math.min(desde + limit, resultados.size());
+        return ids(resultados.subList(desde, hasta));
+    }
+
+    public void agregar(long id, String nombre, String apellido) {
+        escribir(new Operacion(id, nombre, apellido, false));
+    }
+
+    public void actualizar(long id, String nombre, String apellido) {
+        escribir(new Operacion(id, nombre, apellido, false));
+    }
+
+    public void eliminar(long id) {
+        escribir(new Operacion(id, null, null, true));
+    }
+
+    /**
+     * @return true si las busquedas se estan resolviendo en memoria
+     */
+    public boolean estaListo() {
+        lock.readLock().lock();
+        try {
+            return datos != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return numero de filas vivas en el indice, 0 si no esta listo
+     */
+    public int tamano() {
+        lock.readLock().lock();
+        try {
+            return datos == null ? 0 : datos.totalVivos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * inicia la carga del indice en segundo plano si aun no esta cargado
+     */
+    public void precargar() {
+        if (!estaListo()) {
+            iniciarCarga();
+        }
+    }
+
+    /**
+     * resultados de la consulta ya ordenados; al paginar la misma consulta se
+     * reutiliza la lista de la cache mientras el indice no cambie
+     */
+    private Ordenados buscarOrdenado(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+
+        Ordenados ordenados = null;
+        List<Entrada> sinOrdenar = null;
+        String consulta = null;
+        Intercalacion intercalacionLeida = null;
+        long versionLeida = 0;
+        lock.readLock().lock();
+        try {
+            if (datos != null) {
+                intercalacionLeida = datos.intercalacion;
+                consulta = intercalacionLeida.plegar(texto);
+                versionLeida = version;
+                ordenados = cache.obtener(consulta, versionLeida);
+                if (ordenados == null) {
+                    sinOrdenar = datos.buscar(consulta);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (consulta == null || (edadMaximaMs > 0 && System.currentTimeMillis() - cargadoEn > edadMaximaMs)) {
+            iniciarCarga();
+        }
+        if (sinOrdenar != null) {
+            sinOrdenar.sort(ORDEN);
+            ordenados = new Ordenados(versionLeida, intercalacionLeida, sinOrdenar);
+            cache.guardar(consulta, ordenados);
+        }
+        return ordenados;
+    }
+
+
+    private void escribir(Operacion operacion) {
+        lock.writeLock().lock();
+        try {
+            if (datos != null) {
+                datos.aplicar(operacion);
+            }
+            if (pendientes != null) {
+                pendientes.add(operacion);
+            }
+            version++;
+            cache.limpiar();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void iniciarCarga() {
+        if (!cargando.compareAndSet(false, true)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pendientes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Thread hilo = new Thread(this::cargar, "indice-" + nombre);
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    private void cargar() {
+        long inicio = System.nanoTime();
+        try {
+            Datos nuevos = new Datos(intercalacion.get());
+            fuente.recorrer((id, nombreFila, apellido) -> nuevos.aplicar(new Operacion(id, nombreFila, apellido, false)));
+
+            lock.writeLock().lock();
+            try {
+                // cambios que llegaron mientras se leia la tabla
+                for (Operacion operacion : pendientes) {
+                    nuevos.aplicar(operacion);
+                }
+                datos = nuevos;
+                version++;
+                cache.limpiar();
+                cargadoEn = System.currentTimeMillis();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            LOGGER.log(Level.INFO, "indice de {0} cargado con {1} filas en {2} ms", new Object[]{
+                nombre, nuevos.totalVivos, (System.nanoTime() - inicio) / 1_000_000});
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "no se pudo cargar el indice de " + nombre + ", se usara SQL", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendientes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            cargando.set(false);
+        }
+    }
+
+    private static List<Long> ids(List<Entrada> entradas) {
+        List<Long> ids = new ArrayList<>(entradas.size());
+        for (Entrada entrada : entradas) {
+            ids.add(entrada.id());
+        }
+        return ids;
+    }
+
+    private static long trigrama(CharSequence texto, int i) {
+        return ((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2);
+    }
+
+    /**
+     * recorre todas las filas de la tabla para construir el indice
+     */
+    @FunctionalInterface
+    public interface Fuente {
+
+        void recorrer(Receptor receptor) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Receptor {
+
+        void aceptar(long id, String nombre, String apellido);
+    }
+
+    /**
+     * como compara la base de datos las columnas de nombre, el indice pliega
+     * el texto igual que LOWER(columna) LIKE LOWER(:texto) en esa base
+     */
+    public enum Intercalacion {
+        /**
+         * ignora mayusculas y acentos, como utf8mb4_0900_ai_ci (la de MySQL 8
+         * por defecto) o utf8mb4_general_ci
+         */
+        SIN_MAYUSCULAS_NI_ACENTOS,
+        /**
+         * compara los caracteres tal cual, como la intercalacion por defecto
+         * de H2; con LOWER solo se ignoran las mayusculas
+         */
+        BINARIA;
+
+        /**
+         * @return el texto en minusculas, sin acentos si la intercalacion los
+         * ignora y con un solo espacio entre palabras
+         */
+        String plegar(String texto) {
+            if (texto == null) {
+                return "";
+            }
+            String plegado = texto.toLowerCase(Locale.ROOT);
+            if (this == SIN_MAYUSCULAS_NI_ACENTOS) {
+                plegado = MARCAS.matcher(Normalizer.normalize(plegado, Normalizer.Form.NFD)).replaceAll("");
+            }
+            return ESPACIOS.matcher(plegado.trim()).replaceAll(" ");
+        }
+
+        /**
+         * @return llave de orden del nombre: sin mayusculas ni acentos, o el
+         * nombre tal cual si la intercalacion es binaria
+         */
+        String llave(String nombre) {
+            if (nombre == null) {
+                return "";
+            }
+            if (this == BINARIA) {
+                return nombre;
+            }
+            return MARCAS.matcher(Normalizer.normalize(nombre.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)).replaceAll("");
+        }
+    }
+
+    /**
+     * @param llave nombre plegado con la intercalacion, define el orden
+     */
+    private record Entrada(long id, String llave) {
+    }
+
+    /**
+     * resultados de una consulta ordenados en una version del indice
+     */
+    private record Ordenados(long version, Intercalacion intercalacion, List<Entrada> entradas) {
+    }
+
+    /**
+     * listas ordenadas de las ultimas consultas, limitada por el total de
+     * entradas y no por el numero de consultas
+     */
+    private static final class CacheOrdenados {
+
+        private final LinkedHashMap<String, Ordenados> porConsulta = new LinkedHashMap<>(16, 0.75f, true);
+        private int total;
+
+        synchronized Ordenados obtener(String consulta, long version) {
+            Ordenados ordenados = porConsulta.get(consulta);
+            return ordenados != null && ordenados.version() == version ? ordenados : null;
+        }
+
+        synchronized void guardar(String consulta, Ordenados ordenados) {
+            if (ordenados.entradas().size() > MAXIMO_EN_CACHE) {
+                return;
+            }
+            Ordenados anterior = porConsulta.put(consulta, ordenados);
+            if (anterior != null) {
+                total -= anterior.entradas().size();
+            }
+            total += ordenados.entradas().size();
+            Iterator<Ordenados> viejos = porConsulta.values().iterator();
+            while (total > MAXIMO_EN_CACHE && viejos.hasNext()) {
+                total -= viejos.next().entradas().size();
+                viejos.remove();
+            }
+        }
+
+        synchronized void limpiar() {
+            porConsulta.clear();
+            total = 0;
+        }
+    }
+
+    private record Operacion(long id, String nombre, String apellido, boolean eliminar) {
+    }
+
+    /**
+     * estructura del indice, los documentos se numeran en orden de llegada de
+     * modo que las listas de cada trigrama quedan ordenadas al agregar al
+     * final. Actualizar o eliminar marca el documento como muerto y cuando hay
+     * demasiados muertos se compacta
+     */
+    private static final class Datos {
+
+        private final Intercalacion intercalacion;
+        private final Map<Long, Postings> postings = new HashMap<>();
+        private final Map<Long, Integer> docPorId = new HashMap<>();
+        private final BitSet vivos = new BitSet();
+        private long[] ids = new long[1024];
+        private String[] llaves = new String[1024];
+        private String[] textos = new String[1024];
+        private int siguienteDoc;
+        private int totalVivos;
+
+        Datos(Intercalacion intercalacion) {
+            this.intercalacion = intercalacion;
+        }
+
+        void aplicar(Operacion operacion) {
+            Integer anterior = docPorId.remove(operacion.id());
+            if (anterior != null) {
+                vivos.clear(anterior);
+                totalVivos--;
+            }
+            if (!operacion.eliminar()) {
+                indexar(operacion.id(), intercalacion.llave(operacion.nombre()),
+                        intercalacion.plegar(operacion.nombre()) + SEPARADOR + intercalacion.plegar(operacion.apellido()));
+            }
+            if (siguienteDoc > 1024 && siguienteDoc - totalVivos > siguienteDoc / 2) {
+                compactar();
+            }
+        }
+
+        private void indexar(long id, String llave, String texto) {
+            if (siguienteDoc == ids.length) {
+                int capacidad = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacidad);
+                llaves = Arrays.copyOf(llaves, capacidad);
+                textos = Arrays.copyOf(textos, capacidad);
+            }
+            int doc = siguienteDoc++;
+            ids[doc] = id;
+            llaves[doc] = llave;
+            textos[doc] = texto;
+            vivos.set(doc);
+            totalVivos++;
+            docPorId.put(id, doc);
+
+            for (int i = 0; i + 3 <= texto.length(); i++) {
+                postings.computeIfAbsent(trigrama(texto, i), k -> new Postings()).agregar(doc);
+            }
+        }
+
+        private void compactar() {
+            long[] idsViejos = ids;
+            String[] llavesViejas = llaves;
+            String[] textosViejos = textos;
+            BitSet vivosViejos = (BitSet) vivos.clone();
+
+            postings.clear();
+            docPorId.clear();
+            vivos.clear();
+            ids = new long[Math.max(1024, totalVivos * 2)];
+            llaves = new String[ids.length];
+            textos = new String[ids.length];
+            siguienteDoc = 0;
+            totalVivos = 0;
+
+            for (int doc = vivosViejos.nextSetBit(0); doc >= 0; doc = vivosViejos.nextSetBit(doc + 1)) {
+                indexar(idsViejos[doc], llavesViejas[doc], textosViejos[doc]);
+            }
+        }
+
+        List<Entrada> buscar(String texto) {
+            String consulta = intercalacion.plegar(texto);
+            List<Entrada> resultados = new ArrayList<>();
+            if (consulta.length() < 3) {
+                // sin trigramas que intersectar, se recorren los textos vivos
+                for (int doc = vivos.nextSetBit(0); doc >= 0; doc = vivos.nextSetBit(doc + 1)) {
+                    if (textos[doc].contains(consulta)) {
+                        resultados.add(new Entrada(ids[doc], llaves[doc]));
+                    }
+                }
+                return resultados;
+            }
+
+            int total = consulta.length() - 2;
+            Postings[] listas = new Postings[total];
+            for (int i = 0; i < total; i++) {
+                Postings lista = postings.get(trigrama(consulta, i));
+                if (lista == null) {
+                    return resultados;
+                }
+                listas[i] = lista;
+            }
+            Arrays.sort(listas, Comparator.comparingInt(p -> p.tamano));
+
+            Postings menor = listas[0];
+            for (int k = 0; k < menor.tamano; k++) {
+                int doc = menor.docs[k];
+                if (!vivos.get(doc) || !estaEnTodas(listas, doc)) {
+                    continue;
+                }
+                // los trigramas pueden coincidir en distinto orden, se verifica el texto
+                if (textos[doc].contains(consulta)) {
+                    resultados.add(new Entrada(ids[doc], llaves[doc]));
+                }
+            }
+            return resultados;
+        }
+
+        private static boolean estaEnTodas(Postings[] listas, int doc) {
+            for (int i = 1; i < listas.length; i++) {
+                if (Arrays.binarySearch(listas[i].docs, 0, listas[i].tamano, doc) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * lista ordenada de documentos que contienen un trigrama
+     */
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+        private int tamano;
+
+        void agregar(int doc) {
+            if (tamano > 0 && docs[tamano - 1] == doc) {
+                return;
+            }
+            if (tamano == docs.length) {
+                docs = Arrays.copyOf(docs, tamano * 2);
+            }
+            docs[tamano++] = doc;
+        }
+    }
+}
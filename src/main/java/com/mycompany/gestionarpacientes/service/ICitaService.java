@@ -0,0 +1,144 @@
+package com.mycompany.gestionarpacientes.service;
+
+import com.mycompany.gestionarpacientes.dto.CitaDTO;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
+import com.mycompany.gestionarpacientes.entitys.EstadoCita;
+import com.mycompany.gestionarpacientes.exceptions.ServiceException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Interfaz de servicio para la gestión de citas
+ *
+ * @author gatog
+ */
+public interface ICitaService {
+
+    /**
+     * Agenda una nueva cita, la agenda del doctor se bloquea mientras se
+     * verifica que el horario este libre
+     *
+     * @param citaDTO datos de la cita, doctor, paciente, fecha y duracion
+     * @return cita agendada con su ID
+     * @throws ServiceException si los datos no son validos o el horario ya
+     * esta ocupado
+     */
+    CitaDTO agendarCita(CitaDTO citaDTO) throws ServiceException;
+
+    /**
+     * Cambia la fecha y duracion de una cita
+     *
+     * @param id ID de la cita
+     * @param fechaHora nueva fecha y hora
+     * @param duracionMinutos nueva duracion
+     * @return cita reprogramada
+     * @throws ServiceException si la cita no existe o el horario ya esta
+     * ocupado
+     */
+    CitaDTO reprogramarCita(Long id, LocalDateTime fechaHora, int duracionMinutos) throws ServiceException;
+
+    /**
+     * Cambia el estado de una cita, una cita cancelada libera su horario y no
+     * puede volver a activarse
+     *
+     * @param id ID de la cita
+     * @param estado nuevo estado
+     * @return cita actualizada
+     * @throws ServiceException si la cita no existe o el cambio no es valido
+     */
+    CitaDTO cambiarEstadoCita(Long id, EstadoCita estado) throws ServiceException;
+
+    /**
+     * Registra el diagnostico y el tratamiento de una cita
+     *
+     * @param id ID de la cita
+     * @param diagnostico diagnostico del doctor
+     * @param tratamiento receta o instrucciones
+     * @return cita actualizada
+     * @throws ServiceException si la cita no existe
+     */
+    CitaDTO registrarDiagnostico(Long id, String diagnostico, String tratamiento) throws ServiceException;
+
+    /**
+     * Elimina una cita
+     *
+     * @param id ID de la cita
+     * @return cita eliminada
+     * @throws ServiceException si la cita no existe
+     */
+    CitaDTO eliminarCita(Long id) throws ServiceException;
+
+    /**
+     * Busca una cita por su ID
+     *
+     * @param id ID de la cita
+     * @return cita encontrada o null
+     * @throws ServiceException si hay error en la busqueda
+     */
+    CitaDTO buscarCitaPorId(Long id) throws ServiceException;
+
+    /**
+     * Obtiene las citas de un doctor en un dia, incluidas las canceladas
+     *
+     * @param doctorId ID del doctor
+     * @param dia dia a consultar
+     * @return citas ordenadas por hora
+     * @throws ServiceException si hay error en la busqueda
+     */
+    List<CitaDTO> listarCitasPorDoctorYDia(Long doctorId, LocalDate dia) throws ServiceException;
+
+    /**
+     * Obtiene las citas de un paciente, de la mas reciente a la mas antigua
+     *
+     * @param pacienteId ID del paciente
+     * @param limit
+     * @param offset
+     * @return citas del paciente
+     * @throws ServiceException si hay error en la busqueda
+     */
+    List<CitaDTO> listarCitasPorPaciente(Long pacienteId, int limit, int offset) throws ServiceException;
+
+    /**
+     * Obtiene el historial medico de un paciente de la cita mas reciente a la
+     * mas antigua paginando con cursor, cada pagina se resuelve con una sola
+     * sentencia SQL sin importar cuantas citas o doctores traiga
+     *
+     * @param pacienteId ID del paciente
+     * @param cursor cursor devuelto por la pagina anterior o null para la
+     * primera pagina
+     * @param limit numero maximo de citas de la pagina
+     * @return pagina de citas con el cursor de la siguiente
+     * @throws ServiceException si el cursor no es valido o hay error en la
+     * busqueda
+     */
+    PaginaDTO<CitaDTO> listarHistorialPaciente(Long pacienteId, String cursor, int limit) throws ServiceException;
+
+    /**
+     * Obtiene el historial de citas de un doctor paginando con cursor, igual
+     * que {@link #listarHistorialPaciente(Long, String, int)}
+     *
+     * @param doctorId ID del doctor
+     * @param cursor cursor devuelto por la pagina anterior o null para la
+     * primera pagina
+     * @param limit numero maximo de citas de la pagina
+     * @return pagina de citas con el cursor de la siguiente
+     * @throws ServiceException si el cursor no es valido o hay error en la
+     * busqueda
+     */
+    PaginaDTO<CitaDTO> listarHistorialDoctor(Long doctorId, String cursor, int limit) throws ServiceException;
+
+    /**
+     * Indica si el doctor tiene libre el horario, se resuelve con la agenda
+     * en memoria y solo consulta la base de datos la primera vez que se
+     * revisa un dia, pensado para validar el formulario mientras se escribe
+     *
+     * @param doctorId ID del doctor
+     * @param fechaHora inicio del horario
+     * @param duracionMinutos duracion del horario
+     * @param citaExcluida cita que se esta reprogramando o null
+     * @return true si no hay otra cita en ese horario
+     * @throws ServiceException si los datos no son validos
+     */
+    boolean estaDisponible(Long doctorId, LocalDateTime fechaHora, int duracionMinutos, Long citaExcluida) throws ServiceException;
+}
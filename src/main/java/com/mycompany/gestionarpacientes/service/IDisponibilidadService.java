@@ -0,0 +1,45 @@
+package com.mycompany.gestionarpacientes.service;
+
+import com.mycompany.gestionarpacientes.dto.HuecoDTO;
+import com.mycompany.gestionarpacientes.exceptions.ServiceException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Interfaz de servicio para buscar horarios libres de los doctores
+ *
+ * @author gatog
+ */
+public interface IDisponibilidadService {
+
+    /**
+     * Busca el primer horario libre entre todos los doctores de la
+     * especialidad
+     *
+     * @param especialidad especialidad de los doctores
+     * @param desde el horario no puede empezar antes
+     * @param hasta el horario debe terminar antes
+     * @param duracionMinutos duracion de la cita
+     * @return el horario mas temprano o null si no hay ninguno
+     * @throws ServiceException si los datos no son validos o hay error al
+     * consultar
+     */
+    HuecoDTO buscarPrimerHorarioLibre(String especialidad, LocalDateTime desde, LocalDateTime hasta,
+            int duracionMinutos) throws ServiceException;
+
+    /**
+     * Busca los primeros horarios libres entre todos los doctores de la
+     * especialidad, ordenados por hora
+     *
+     * @param especialidad especialidad de los doctores
+     * @param desde los horarios no pueden empezar antes
+     * @param hasta los horarios deben terminar antes
+     * @param duracionMinutos duracion de la cita
+     * @param cantidad maximo de horarios a devolver
+     * @return horarios encontrados
+     * @throws ServiceException si los datos no son validos o hay error al
+     * consultar
+     */
+    List<HuecoDTO> buscarHorariosLibres(String especialidad, LocalDateTime desde, LocalDateTime hasta,
+            int duracionMinutos, int cantidad) throws ServiceException;
+}
@@ -1,7 +1,10 @@
 package com.mycompany.gestionarpacientes.service;
 
 import com.mycompany.gestionarpacientes.dto.DoctorDTO;
+import com.mycompany.gestionarpacientes.dto.FormatoExportacion;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
 import com.mycompany.gestionarpacientes.exceptions.ServiceException;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -58,7 +61,12 @@ public interface IDoctorService {
     DoctorDTO buscarDoctorPorCedula(String cedulaProfesional) throws ServiceException;
 
     /**
-     * Busca doctores por nombre
+     * Busca doctores por nombre. Una fila coincide si el texto aparece dentro
+     * del nombre o dentro del apellido, cada uno por separado, sin distinguir
+     * mayusculas; los acentos se ignoran si la intercalacion de la base los
+     * ignora (db.intercalacionInsensible). Los espacios de sobra del texto se
+     * reducen y % y _ se buscan literalmente. La regla es la misma si responde
+     * el indice en memoria o la consulta SQL
      *
      * @param nombre nombre o parte del nombre a buscar
      * @param limit
@@ -88,4 +96,42 @@ public interface IDoctorService {
      * @throws ServiceException si hay error al listar
      */
     List<DoctorDTO> listarTodosDoctores(int limit, int offset) throws ServiceException;
+
+    /**
+     * Obtiene una pagina de doctores ordenada por nombre usando un cursor en
+     * lugar de offset, el costo es el mismo para cualquier pagina
+     *
+     * @param cursor cursor devuelto por la pagina anterior o null para la
+     * primera pagina
+     * @param limit numero maximo de doctores de la pagina
+     * @return pagina de doctores con el cursor de la siguiente
+     * @throws ServiceException si el cursor no es valido o hay error al listar
+     */
+    PaginaDTO<DoctorDTO> listarDoctoresPorCursor(String cursor, int limit) throws ServiceException;
+
+    /**
+     * Busca doctores por nombre paginando con cursor, con la misma regla de
+     * coincidencia que buscarDoctoresPorNombre
+     *
+     * @param nombre nombre o parte del nombre a buscar
+     * @param cursor cursor devuelto por la pagina anterior o null para la
+     * primera pagina
+     * @param limit numero maximo de doctores de la pagina
+     * @return pagina de doctores que coinciden con el cursor de la siguiente
+     * @throws ServiceException si el cursor no es valido o hay error en la
+     * busqueda
+     */
+    PaginaDTO<DoctorDTO> buscarDoctoresPorNombreCursor(String nombre, String cursor, int limit) throws ServiceException;
+
+    /**
+     * Exporta todos los doctores a un archivo en una sola pasada, las filas
+     * se escriben conforme llegan de la base de datos
+     *
+     * @param archivo archivo de destino, se reemplaza si existe
+     * @param formato CSV con encabezado o JSON Lines
+     * @return numero de doctores exportados
+     * @throws ServiceException si no se puede escribir el archivo o hay error
+     * al leer los doctores
+     */
+    long exportarDoctores(Path archivo, FormatoExportacion formato) throws ServiceException;
 }
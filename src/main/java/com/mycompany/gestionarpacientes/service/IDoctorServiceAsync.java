@@ -0,0 +1,73 @@
+package com.mycompany.gestionarpacientes.service;
+
+import com.mycompany.gestionarpacientes.dto.DoctorDTO;
+import com.mycompany.gestionarpacientes.dto.FormatoExportacion;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interfaz de servicio asincrona para la gestión de doctores, cada operacion
+ * corre fuera del hilo que la llama y el futuro se completa con el resultado o
+ * con la ServiceException que lanzo el servicio
+ *
+ * @author gatog
+ */
+public interface IDoctorServiceAsync {
+
+    /**
+     * version asincrona de {@link IDoctorService#registrarDoctor(DoctorDTO)}
+     */
+    CompletableFuture<DoctorDTO> registrarDoctorAsync(DoctorDTO doctorDTO);
+
+    /**
+     * version asincrona de {@link IDoctorService#actualizarDoctor(DoctorDTO)}
+     */
+    CompletableFuture<DoctorDTO> actualizarDoctorAsync(DoctorDTO doctorDTO);
+
+    /**
+     * version asincrona de {@link IDoctorService#eliminarDoctor(Long)}
+     */
+    CompletableFuture<DoctorDTO> eliminarDoctorAsync(Long id);
+
+    /**
+     * version asincrona de {@link IDoctorService#buscarDoctorPorId(Long)}
+     */
+    CompletableFuture<DoctorDTO> buscarDoctorPorIdAsync(Long id);
+
+    /**
+     * version asincrona de {@link IDoctorService#buscarDoctorPorCedula(String)}
+     */
+    CompletableFuture<DoctorDTO> buscarDoctorPorCedulaAsync(String cedulaProfesional);
+
+    /**
+     * version asincrona de {@link IDoctorService#buscarDoctoresPorNombre(String,int,int)}
+     */
+    CompletableFuture<List<DoctorDTO>> buscarDoctoresPorNombreAsync(String nombre, int limit, int offset);
+
+    /**
+     * version asincrona de {@link IDoctorService#buscarDoctoresPorEspecialidad(String,int,int)}
+     */
+    CompletableFuture<List<DoctorDTO>> buscarDoctoresPorEspecialidadAsync(String especialidad, int limit, int offset);
+
+    /**
+     * version asincrona de {@link IDoctorService#listarTodosDoctores(int,int)}
+     */
+    CompletableFuture<List<DoctorDTO>> listarTodosDoctoresAsync(int limit, int offset);
+
+    /**
+     * version asincrona de {@link IDoctorService#listarDoctoresPorCursor(String,int)}
+     */
+    CompletableFuture<PaginaDTO<DoctorDTO>> listarDoctoresPorCursorAsync(String cursor, int limit);
+
+    /**
+     * version asincrona de {@link IDoctorService#buscarDoctoresPorNombreCursor(String,String,int)}
+     */
+    CompletableFuture<PaginaDTO<DoctorDTO>> buscarDoctoresPorNombreCursorAsync(String nombre, String cursor, int limit);
+
+    /**
+     * version asincrona de {@link IDoctorService#exportarDoctores(Path,FormatoExportacion)}
+     */
+    CompletableFuture<Long> exportarDoctoresAsync(Path archivo, FormatoExportacion formato);
+}
@@ -1,7 +1,12 @@
 package com.mycompany.gestionarpacientes.service;
 
+import com.mycompany.gestionarpacientes.dto.FormatoExportacion;
+import com.mycompany.gestionarpacientes.dto.MapaBloquesDTO;
 import com.mycompany.gestionarpacientes.dto.PacienteDTO;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
+import com.mycompany.gestionarpacientes.dto.ResultadoImportacionDTO;
 import com.mycompany.gestionarpacientes.exceptions.ServiceException;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -59,7 +64,12 @@ public interface IPacienteService {
     PacienteDTO buscarPacientePorDni(String dni) throws ServiceException;
 
     /**
-     * Busca pacientes por nombre
+     * Busca pacientes por nombre. Una fila coincide si el texto aparece dentro
+     * del nombre o dentro del apellido, cada uno por separado, sin distinguir
+     * mayusculas; los acentos se ignoran si la intercalacion de la base los
+     * ignora (db.intercalacionInsensible). Los espacios de sobra del texto se
+     * reducen y % y _ se buscan literalmente. La regla es la misma si responde
+     * el indice en memoria o la consulta SQL
      *
      * @param nombre nombre o parte del nombre a buscar
      * @param limit
@@ -89,4 +99,76 @@ public interface IPacienteService {
      * @throws ServiceException si hay error al listar
      */
     List<PacienteDTO> listarTodosPacientes(int limit, int offset) throws ServiceException;
+
+    /**
+     * Cuenta los pacientes registrados
+     *
+     * @return numero total de pacientes
+     * @throws ServiceException si hay error al contar
+     */
+    long contarPacientes() throws ServiceException;
+
+    /**
+     * Obtiene una pagina de pacientes ordenada por nombre usando un cursor en
+     * lugar de offset, el costo es el mismo para cualquier pagina
+     *
+     * @param cursor cursor devuelto por la pagina anterior o null para la
+     * primera pagina
+     * @param limit numero maximo de pacientes de la pagina
+     * @return pagina de pacientes con el cursor de la siguiente
+     * @throws ServiceException si el cursor no es valido o hay error al listar
+     */
+    PaginaDTO<PacienteDTO> listarPacientesPorCursor(String cursor, int limit) throws ServiceException;
+
+    /**
+     * Obtiene el cursor con el que empieza cada bloque de la lista de
+     * pacientes ordenada por nombre, con el una tabla pide cualquier bloque
+     * por listarPacientesPorCursor sin recorrer las filas anteriores. Lee una
+     * vez el indice de nombre completo
+     *
+     * @param filasPorBloque filas de cada bloque
+     * @return total de pacientes y cursor de cada bloque
+     * @throws ServiceException si el tamano no es valido o hay error al leer
+     */
+    MapaBloquesDTO mapearBloquesPacientes(int filasPorBloque) throws ServiceException;
+
+    /**
+     * Busca pacientes por nombre paginando con cursor, con la misma regla de
+     * coincidencia que buscarPacientesPorNombre
+     *
+     * @param nombre nombre o parte del nombre a buscar
+     * @param cursor cursor devuelto por la pagina anterior o null para la
+     * primera pagina
+     * @param limit numero maximo de pacientes de la pagina
+     * @return pagina de pacientes que coinciden con el cursor de la siguiente
+     * @throws ServiceException si el cursor no es valido o hay error en la
+     * busqueda
+     */
+    PaginaDTO<PacienteDTO> buscarPacientesPorNombreCursor(String nombre, String cursor, int limit) throws ServiceException;
+
+    /**
+     * Importa pacientes desde un archivo CSV con encabezado (nombre, apellido,
+     * dni, fecha_nacimiento y opcionalmente email, tipo_sangre,
+     * seguro_medico), los registros invalidos o con DNI repetido se rechazan
+     * sin detener la importacion
+     *
+     * @param archivo archivo CSV en UTF-8
+     * @param tamanoLote registros por lote de insercion
+     * @return resumen con los registros importados, rechazados y la velocidad
+     * @throws ServiceException si no se puede leer el archivo o el encabezado
+     * no es valido
+     */
+    ResultadoImportacionDTO importarPacientes(Path archivo, int tamanoLote) throws ServiceException;
+
+    /**
+     * Exporta todos los pacientes a un archivo en una sola pasada, las filas
+     * se escriben conforme llegan de la base de datos
+     *
+     * @param archivo archivo de destino, se reemplaza si existe
+     * @param formato CSV con encabezado o JSON Lines
+     * @return numero de pacientes exportados
+     * @throws ServiceException si no se puede escribir el archivo o hay error
+     * al leer los pacientes
+     */
+    long exportarPacientes(Path archivo, FormatoExportacion formato) throws ServiceException;
 }
@@ -0,0 +1,90 @@
+package com.mycompany.gestionarpacientes.service;
+
+import com.mycompany.gestionarpacientes.dto.FormatoExportacion;
+import com.mycompany.gestionarpacientes.dto.MapaBloquesDTO;
+import com.mycompany.gestionarpacientes.dto.PacienteDTO;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
+import com.mycompany.gestionarpacientes.dto.ResultadoImportacionDTO;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interfaz de servicio asincrona para la gestión de pacientes, cada operacion
+ * corre fuera del hilo que la llama y el futuro se completa con el resultado o
+ * con la ServiceException que lanzo el servicio
+ *
+ * @author gatog
+ */
+public interface IPacienteServiceAsync {
+
+    /**
+     * version asincrona de {@link IPacienteService#registrarPaciente(PacienteDTO)}
+     */
+    CompletableFuture<PacienteDTO> registrarPacienteAsync(PacienteDTO pacienteDTO);
+
+    /**
+     * version asincrona de {@link IPacienteService#actualizarPaciente(PacienteDTO)}
+     */
+    CompletableFuture<PacienteDTO> actualizarPacienteAsync(PacienteDTO pacienteDTO);
+
+    /**
+     * version asincrona de {@link IPacienteService#eliminarPaciente(Long)}
+     */
+    CompletableFuture<PacienteDTO> eliminarPacienteAsync(Long id);
+
+    /**
+     * version asincrona de {@link IPacienteService#buscarPacientePorId(Long)}
+     */
+    CompletableFuture<PacienteDTO> buscarPacientePorIdAsync(Long id);
+
+    /**
+     * version asincrona de {@link IPacienteService#buscarPacientePorDni(String)}
+     */
+    CompletableFuture<PacienteDTO> buscarPacientePorDniAsync(String dni);
+
+    /**
+     * version asincrona de {@link IPacienteService#buscarPacientesPorNombre(String,int,int)}
+     */
+    CompletableFuture<List<PacienteDTO>> buscarPacientesPorNombreAsync(String nombre, int limit, int offset);
+
+    /**
+     * version asincrona de {@link IPacienteService#buscarPacientesPorTipoSeguro(String,int,int)}
+     */
+    CompletableFuture<List<PacienteDTO>> buscarPacientesPorTipoSeguroAsync(String tipoSeguro, int limit, int offset);
+
+    /**
+     * version asincrona de {@link IPacienteService#listarTodosPacientes(int,int)}
+     */
+    CompletableFuture<List<PacienteDTO>> listarTodosPacientesAsync(int limit, int offset);
+
+    /**
+     * version asincrona de {@link IPacienteService#contarPacientes()}
+     */
+    CompletableFuture<Long> contarPacientesAsync();
+
+    /**
+     * version asincrona de {@link IPacienteService#listarPacientesPorCursor(String,int)}
+     */
+    CompletableFuture<PaginaDTO<PacienteDTO>> listarPacientesPorCursorAsync(String cursor, int limit);
+
+    /**
+     * version asincrona de {@link IPacienteService#mapearBloquesPacientes(int)}
+     */
+    CompletableFuture<MapaBloquesDTO> mapearBloquesPacientesAsync(int filasPorBloque);
+
+    /**
+     * version asincrona de {@link IPacienteService#buscarPacientesPorNombreCursor(String,String,int)}
+     */
+    CompletableFuture<PaginaDTO<PacienteDTO>> buscarPacientesPorNombreCursorAsync(String nombre, String cursor, int limit);
+
+    /**
+     * version asincrona de {@link IPacienteService#importarPacientes(Path,int)}
+     */
+    CompletableFuture<ResultadoImportacionDTO> importarPacientesAsync(Path archivo, int tamanoLote);
+
+    /**
+     * version asincrona de {@link IPacienteService#exportarPacientes(Path,FormatoExportacion)}
+     */
+    CompletableFuture<Long> exportarPacientesAsync(Path archivo, FormatoExportacion formato);
+}
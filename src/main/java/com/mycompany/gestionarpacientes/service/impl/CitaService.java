@@ -0,0 +1,557 @@
+package com.mycompany.gestionarpacientes.service.impl;
+
+import com.mycompany.gestionarpacientes.agenda.AgendaDoctores;
+import com.mycompany.gestionarpacientes.dto.CitaDTO;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
+import com.mycompany.gestionarpacientes.entitys.Cita;
+import com.mycompany.gestionarpacientes.entitys.Doctor;
+import com.mycompany.gestionarpacientes.entitys.EstadoCita;
+import com.mycompany.gestionarpacientes.entitys.Paciente;
+import com.mycompany.gestionarpacientes.exceptions.EntityNotFoundException;
+import com.mycompany.gestionarpacientes.exceptions.RepositoryException;
+import com.mycompany.gestionarpacientes.exceptions.ScheduleConflictException;
+import com.mycompany.gestionarpacientes.exceptions.ServiceException;
+import com.mycompany.gestionarpacientes.repository.ICitaRepository;
+import com.mycompany.gestionarpacientes.repository.IDoctorRepository;
+import com.mycompany.gestionarpacientes.repository.IPacienteRepository;
+import com.mycompany.gestionarpacientes.repository.impl.CitaRepository;
+import com.mycompany.gestionarpacientes.repository.impl.DoctorRepository;
+import com.mycompany.gestionarpacientes.repository.impl.PacienteRepository;
+import com.mycompany.gestionarpacientes.service.ICitaService;
+import com.mycompany.gestionarpacientes.util.CursorUtil;
+import com.mycompany.gestionarpacientes.util.JpaUtil;
+import jakarta.persistence.EntityManager;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación del servicio de gestión de citas
+ *
+ * @author gatog
+ */
+public class CitaService implements ICitaService {
+
+    public static final int DURACION_POR_DEFECTO_MINUTOS = 30;
+    public static final int DURACION_MAXIMA_MINUTOS = 8 * 60;
+
+    /**
+     * agenda en memoria para revisar conflictos sin ir a la base de datos, un
+     * dia se recarga cada 5 minutos para recoger las citas de otras estaciones
+     */
+    private static final AgendaDoctores AGENDA = new AgendaDoctores(CitaService::cargarAgenda, 2000, 5 * 60 * 1000L);
+
+    @Override
+    public CitaDTO agendarCita(CitaDTO citaDTO) throws ServiceException {
+        try {
+            validarDatosCita(citaDTO);
+            int duracion = duracionOPorDefecto(citaDTO.getDuracionMinutos());
+
+            JpaUtil.beginTransaction();
+
+            EntityManager em = JpaUtil.getEntityManager();
+            IDoctorRepository doctorRepository = new DoctorRepository(em);
+            IPacienteRepository pacienteRepository = new PacienteRepository(em);
+            ICitaRepository repository = new CitaRepository(em);
+
+            // el bloqueo del doctor serializa las citas que compiten por su agenda
+            Doctor doctor = doctorRepository.bloquearPorId(citaDTO.getDoctorId());
+            if (doctor == null) {
+                throw new EntityNotFoundException("Doctor", citaDTO.getDoctorId());
+            }
+
+            Paciente paciente = pacienteRepository.buscarPorId(citaDTO.getPacienteId());
+            if (paciente == null) {
+                throw new EntityNotFoundException("Paciente", citaDTO.getPacienteId());
+            }
+
+            verificarHorarioLibre(repository, doctor.getId(), citaDTO.getFechaHora(), duracion, null);
+
+            Cita cita = new Cita();
+            cita.setDoctor(doctor);
+            cita.setPaciente(paciente);
+            cita.setFechaHora(citaDTO.getFechaHora());
+            cita.setDuracionMinutos(duracion);
+            cita.setEstado(EstadoCita.PROGRAMADA);
+
+            Cita citaGuardada = repository.agregar(cita);
+
+            JpaUtil.commitTransaction();
+            AGENDA.agregar(doctor.getId(), intervalo(citaGuardada));
+            DisponibilidadService.citaAgendada(citaGuardada.getId(), doctor.getId(), citaGuardada.getFechaHora(), citaGuardada.getDuracionMinutos());
+
+            return convertirADTO(citaGuardada);
+
+        } catch (ScheduleConflictException e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("agendar cita", "horario ocupado", e);
+        } catch (EntityNotFoundException e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("agendar cita", e.getMessage(), e);
+        } catch (RepositoryException e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("agendar cita", "error en la persistencia", e);
+        } catch (Exception e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("agendar cita", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public CitaDTO reprogramarCita(Long id, LocalDateTime fechaHora, int duracionMinutos) throws ServiceException {
+        try {
+            if (id == null) {
+                throw new ServiceException("El ID de la cita no puede ser nulo");
+            }
+            if (fechaHora == null) {
+                throw new ServiceException("La fecha de la cita es obligatoria");
+            }
+            int duracion = duracionOPorDefecto(duracionMinutos);
+            validarDuracion(duracion);
+
+            JpaUtil.beginTransaction();
+
+            EntityManager em = JpaUtil.getEntityManager();
+            ICitaRepository repository = new CitaRepository(em);
+
+            Cita cita = repository.buscarPorId(id);
+            if (cita == null) {
+                throw new EntityNotFoundException("Cita", id);
+            }
+            if (cita.getEstado() == EstadoCita.CANCELADA || cita.getEstado() == EstadoCita.FINALIZADA) {
+                throw new ServiceException("No se puede reprogramar una cita " + cita.getEstado().name().toLowerCase());
+            }
+
+            Long doctorId = cita.getDoctor().getId();
+            new DoctorRepository(em).bloquearPorId(doctorId);
+            verificarHorarioLibre(repository, doctorId, fechaHora, duracion, id);
+
+            LocalDateTime fechaAnterior = cita.getFechaHora();
+            int duracionAnterior = cita.getDuracionMinutos();
+            cita.setFechaHora(fechaHora);
+            cita.setDuracionMinutos(duracion);
+
+            Cita citaActualizada = repository.actualizar(cita);
+
+            JpaUtil.commitTransaction();
+            AGENDA.eliminar(doctorId, id, fechaAnterior.toLocalDate());
+            AGENDA.agregar(doctorId, intervalo(citaActualizada));
+            DisponibilidadService.citaLiberada(id, doctorId, fechaAnterior, duracionAnterior);
+            DisponibilidadService.citaAgendada(id, doctorId, citaActualizada.getFechaHora(), citaActualizada.getDuracionMinutos());
+
+            return convertirADTO(citaActualizada);
+
+        } catch (ScheduleConflictException e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("reprogramar cita", "horario ocupado", e);
+        } catch (EntityNotFoundException e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("reprogramar cita", "cita no encontrada", e);
+        } catch (RepositoryException e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("reprogramar cita", "error en la persistencia", e);
+        } catch (Exception e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("reprogramar cita", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public CitaDTO cambiarEstadoCita(Long id, EstadoCita estado) throws ServiceException {
+        try {
+            if (id == null) {
+                throw new ServiceException("El ID de la cita no puede ser nulo");
+            }
+            if (estado == null) {
+                throw new ServiceException("El estado de la cita es obligatorio");
+            }
+
+            JpaUtil.beginTransaction();
+
+            ICitaRepository repository = new CitaRepository(JpaUtil.getEntityManager());
+
+            Cita cita = repository.buscarPorId(id);
+            if (cita == null) {
+                throw new EntityNotFoundException("Cita", id);
+            }
+            // volver a activar una cita cancelada requeriria revisar de nuevo el horario
+            if (cita.getEstado() == EstadoCita.CANCELADA && estado != EstadoCita.CANCELADA) {
+                throw new ServiceException("Una cita cancelada no puede volver a activarse, agende una nueva");
+            }
+
+            boolean libera = estado == EstadoCita.CANCELADA && cita.getEstado() != EstadoCita.CANCELADA;
+            cita.setEstado(estado);
+            Cita citaActualizada = repository.actualizar(cita);
+
+            JpaUtil.commitTransaction();
+            if (libera) {
+                Long doctorId = citaActualizada.getDoctor().getId();
+                AGENDA.eliminar(doctorId, id, citaActualizada.getFechaHora().toLocalDate());
+                DisponibilidadService.citaLiberada(id, doctorId, citaActualizada.getFechaHora(), citaActualizada.getDuracionMinutos());
+            }
+
+            return convertirADTO(citaActualizada);
+
+        } catch (EntityNotFoundException e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("cambiar estado de la cita", "cita no encontrada", e);
+        } catch (RepositoryException e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("cambiar estado de la cita", "error en la persistencia", e);
+        } catch (Exception e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("cambiar estado de la cita", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public CitaDTO registrarDiagnostico(Long id, String diagnostico, String tratamiento) throws ServiceException {
+        try {
+            if (id == null) {
+                throw new ServiceException("El ID de la cita no puede ser nulo");
+            }
+            if (tratamiento != null && tratamiento.length() > 500) {
+                throw new ServiceException("El tratamiento no puede pasar de 500 caracteres");
+            }
+
+            JpaUtil.beginTransaction();
+
+            ICitaRepository repository = new CitaRepository(JpaUtil.getEntityManager());
+
+            Cita cita = repository.buscarPorId(id);
+            if (cita == null) {
+                throw new EntityNotFoundException("Cita", id);
+            }
+
+            cita.setDiagnostico(diagnostico);
+            cita.setTratamiento(tratamiento);
+            Cita citaActualizada = repository.actualizar(cita);
+
+            JpaUtil.commitTransaction();
+
+            return convertirADTO(citaActualizada);
+
+        } catch (EntityNotFoundException e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("registrar diagnostico", "cita no encontrada", e);
+        } catch (RepositoryException e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("registrar diagnostico", "error en la persistencia", e);
+        } catch (Exception e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("registrar diagnostico", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public CitaDTO eliminarCita(Long id) throws ServiceException {
+        try {
+            if (id == null) {
+                throw new ServiceException("El ID de la cita no puede ser nulo");
+            }
+
+            JpaUtil.beginTransaction();
+
+            ICitaRepository repository = new CitaRepository(JpaUtil.getEntityManager());
+
+            Cita citaEliminada = repository.eliminar(id);
+            CitaDTO dto = convertirADTO(citaEliminada);
+
+            JpaUtil.commitTransaction();
+            AGENDA.eliminar(dto.getDoctorId(), id, dto.getFechaHora().toLocalDate());
+            if (dto.getEstado() != EstadoCita.CANCELADA) {
+                DisponibilidadService.citaLiberada(id, dto.getDoctorId(), dto.getFechaHora(), dto.getDuracionMinutos());
+            }
+
+            return dto;
+
+        } catch (EntityNotFoundException e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("eliminar cita", "cita no encontrada", e);
+        } catch (RepositoryException e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("eliminar cita", "error en la persistencia", e);
+        } catch (Exception e) {
+            JpaUtil.rollbackTransaction();
+            throw new ServiceException("eliminar cita", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public CitaDTO buscarCitaPorId(Long id) throws ServiceException {
+        try {
+            if (id == null) {
+                throw new ServiceException("El ID de la cita no puede ser nulo");
+            }
+
+            ICitaRepository repository = new CitaRepository(JpaUtil.getReadOnlyEntityManager());
+            return convertirADTO(repository.buscarPorId(id));
+
+        } catch (RepositoryException e) {
+            throw new ServiceException("buscar cita por ID", "error en la búsqueda", e);
+        } catch (Exception e) {
+            throw new ServiceException("buscar cita por ID", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public List<CitaDTO> listarCitasPorDoctorYDia(Long doctorId, LocalDate dia) throws ServiceException {
+        try {
+            if (doctorId == null || dia == null) {
+                throw new ServiceException("El doctor y el dia son obligatorios");
+            }
+
+            ICitaRepository repository = new CitaRepository(JpaUtil.getReadOnlyEntityManager());
+            return repository.proyectarPorDoctorEntre(doctorId, dia.atStartOfDay(), dia.plusDays(1).atStartOfDay());
+
+        } catch (RepositoryException e) {
+            throw new ServiceException("listar citas del doctor", "error en la búsqueda", e);
+        } catch (Exception e) {
+            throw new ServiceException("listar citas del doctor", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public List<CitaDTO> listarCitasPorPaciente(Long pacienteId, int limit, int offset) throws ServiceException {
+        try {
+            if (pacienteId == null) {
+                throw new ServiceException("El ID del paciente no puede ser nulo");
+            }
+            validarPaginacion(limit, offset);
+
+            ICitaRepository repository = new CitaRepository(JpaUtil.getReadOnlyEntityManager());
+            return repository.proyectarPorPaciente(pacienteId, limit, offset);
+
+        } catch (RepositoryException e) {
+            throw new ServiceException("listar citas del paciente", "error en la búsqueda", e);
+        } catch (Exception e) {
+            throw new ServiceException("listar citas del paciente", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public PaginaDTO<CitaDTO> listarHistorialPaciente(Long pacienteId, String cursor, int limit) throws ServiceException {
+        try {
+            if (pacienteId == null) {
+                throw new ServiceException("El ID del paciente no puede ser nulo");
+            }
+            validarPaginacion(limit, 0);
+            CursorUtil.Posicion posicion = cursor == null ? null : CursorUtil.decodificar(cursor);
+
+            ICitaRepository repository = new CitaRepository(JpaUtil.getReadOnlyEntityManager());
+            List<Cita> citas = repository.listarHistorialPaciente(pacienteId,
+                    posicion == null ? null : LocalDateTime.parse(posicion.nombre()),
+                    posicion == null ? null : posicion.id(),
+                    limit + 1);
+            return crearPagina(citas, limit);
+
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new ServiceException("listar historial del paciente", "cursor inválido", e);
+        } catch (RepositoryException e) {
+            throw new ServiceException("listar historial del paciente", "error en la búsqueda", e);
+        } catch (Exception e) {
+            throw new ServiceException("listar historial del paciente", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public PaginaDTO<CitaDTO> listarHistorialDoctor(Long doctorId, String cursor, int limit) throws ServiceException {
+        try {
+            if (doctorId == null) {
+                throw new ServiceException("El ID del doctor no puede ser nulo");
+            }
+            validarPaginacion(limit, 0);
+            CursorUtil.Posicion posicion = cursor == null ? null : CursorUtil.decodificar(cursor);
+
+            ICitaRepository repository = new CitaRepository(JpaUtil.getReadOnlyEntityManager());
+            List<Cita> citas = repository.listarHistorialDoctor(doctorId,
+                    posicion == null ? null : LocalDateTime.parse(posicion.nombre()),
+                    posicion == null ? null : posicion.id(),
+                    limit + 1);
+            return crearPagina(citas, limit);
+
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new ServiceException("listar historial del doctor", "cursor inválido", e);
+        } catch (RepositoryException e) {
+            throw new ServiceException("listar historial del doctor", "error en la búsqueda", e);
+        } catch (Exception e) {
+            throw new ServiceException("listar historial del doctor", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public boolean estaDisponible(Long doctorId, LocalDateTime fechaHora, int duracionMinutos, Long citaExcluida) throws ServiceException {
+        try {
+            if (doctorId == null || fechaHora == null) {
+                throw new ServiceException("El doctor y la fecha son obligatorios");
+            }
+            int duracion = duracionOPorDefecto(duracionMinutos);
+            validarDuracion(duracion);
+
+            return !AGENDA.hayConflicto(doctorId, fechaHora, duracion, citaExcluida);
+
+        } catch (RepositoryException e) {
+            throw new ServiceException("revisar disponibilidad", "error en la búsqueda", e);
+        } catch (Exception e) {
+            throw new ServiceException("revisar disponibilidad", "error inesperado: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * revisa contra la base de datos que el horario no se cruce con otra cita
+     * activa del doctor, debe llamarse con la fila del doctor bloqueada
+     */
+    private void verificarHorarioLibre(ICitaRepository repository, Long doctorId, LocalDateTime inicio,
+            int duracion, Long citaExcluida) throws RepositoryException {
+        LocalDateTime fin = inicio.plusMinutes(duracion);
+        // ninguna cita dura mas que DURACION_MAXIMA_MINUTOS, las que empiezan antes no pueden cruzarse
+        List<CitaDTO> cercanas = repository.proyectarPorDoctorEntre(doctorId, inicio.minusMinutes(DURACION_MAXIMA_MINUTOS), fin);
+        for (CitaDTO otra : cercanas) {
+            if (otra.getEstado() != EstadoCita.CANCELADA
+                    && !otra.getId().equals(citaExcluida)
+                    && otra.getFechaHoraFin().isAfter(inicio)) {
+                throw new ScheduleConflictException(otra.getId());
+            }
+        }
+    }
+
+    /**
+     * quita de la agenda y de la disponibilidad las citas borradas junto con
+     * su paciente, se llama despues del commit
+     *
+     * @param citas arreglos [citaId, doctorId, fechaHora, duracionMinutos]
+     * de {@link ICitaRepository#listarOcupacionPorPaciente}
+     */
+    static void citasEliminadas(List<Object[]> citas) {
+        for (Object[] cita : citas) {
+            long citaId = (Long) cita[0];
+            long doctorId = (Long) cita[1];
+            LocalDateTime fechaHora = (LocalDateTime) cita[2];
+            AGENDA.eliminar(doctorId, citaId, fechaHora.toLocalDate());
+            DisponibilidadService.citaLiberada(citaId, doctorId, fechaHora, (Integer) cita[3]);
+        }
+    }
+
+    private static List<AgendaDoctores.Intervalo> cargarAgenda(long doctorId, LocalDate dia) {
+        try {
+            ICitaRepository repository = new CitaRepository(JpaUtil.getReadOnlyEntityManager());
+            return repository.proyectarPorDoctorEntre(doctorId, dia.atStartOfDay(), dia.plusDays(1).atStartOfDay())
+                    .stream()
+                    .filter(cita -> cita.getEstado() != EstadoCita.CANCELADA)
+                    .map(cita -> new AgendaDoctores.Intervalo(cita.getId(), cita.getFechaHora(), cita.getDuracionMinutos()))
+                    .toList();
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    private static AgendaDoctores.Intervalo intervalo(Cita cita) {
+        return new AgendaDoctores.Intervalo(cita.getId(), cita.getFechaHora(), cita.getDuracionMinutos());
+    }
+
+    /**
+     * convierte las citas de un historial, el cursor apunta a la llave
+     * (fechaHora, id) de la ultima cita entregada
+     */
+    private PaginaDTO<CitaDTO> crearPagina(List<Cita> citas, int limit) {
+        boolean hayMas = citas.size() > limit;
+        List<CitaDTO> elementos = new ArrayList<>(Math.min(citas.size(), limit));
+        for (int i = 0; i < citas.size() && i < limit; i++) {
+            elementos.add(convertirADTO(citas.get(i)));
+        }
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            CitaDTO ultima = elementos.get(elementos.size() - 1);
+            siguienteCursor = CursorUtil.codificar(ultima.getFechaHora().toString(), ultima.getId());
+        }
+        return new PaginaDTO<>(elementos, siguienteCursor);
+    }
+
+    private CitaDTO convertirADTO(Cita cita) {
+        if (cita == null) {
+            return null;
+        }
+
+        Doctor doctor = cita.getDoctor();
+        Paciente paciente = cita.getPaciente();
+        return new CitaDTO(
+                cita.getId(),
+                doctor.getId(),
+                doctor.getNombre() + " " + doctor.getApellido(),
+                paciente.getId(),
+                paciente.getNombre() + " " + paciente.getApellido(),
+                cita.getFechaHora(),
+                cita.getDuracionMinutos(),
+                cita.getEstado(),
+                cita.getDiagnostico(),
+                cita.getTratamiento()
+        );
+    }
+
+    private int duracionOPorDefecto(int duracionMinutos) {
+        return duracionMinutos == 0 ? DURACION_POR_DEFECTO_MINUTOS : duracionMinutos;
+    }
+
+    private void validarDatosCita(CitaDTO citaDTO) throws ServiceException {
+        if (citaDTO == null) {
+            throw new ServiceException("Los datos de la cita no pueden ser nulos");
+        }
+
+        if (citaDTO.getDoctorId() == null) {
+            throw new ServiceException("El doctor de la cita es obligatorio");
+        }
+
+        if (citaDTO.getPacienteId() == null) {
+            throw new ServiceException("El paciente de la cita es obligatorio");
+        }
+
+        if (citaDTO.getFechaHora() == null) {
+            throw new ServiceException("La fecha de la cita es obligatoria");
+        }
+
+        validarDuracion(duracionOPorDefecto(citaDTO.getDuracionMinutos()));
+    }
+
+    private void validarDuracion(int duracion) throws ServiceException {
+        if (duracion < 1 || duracion > DURACION_MAXIMA_MINUTOS) {
+            throw new ServiceException("La duración debe estar entre 1 y " + DURACION_MAXIMA_MINUTOS + " minutos");
+        }
+    }
+
+    private void validarPaginacion(int limit, int offset) throws ServiceException {
+        if (limit <= 0) {
+            throw new ServiceException("El límite debe ser mayor a 0");
+        }
+
+        if (offset < 0) {
+            throw new ServiceException("El offset no puede ser negativo");
+        }
+
+        if (limit > 1000) {
+            throw new ServiceException("El límite no puede ser mayor a 1000");
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.mycompany.gestionarpacientes.service.impl;
+
+import com.mycompany.gestionarpacientes.agenda.DisponibilidadDoctores;
+import com.mycompany.gestionarpacientes.dto.DoctorDTO;
+import com.mycompany.gestionarpacientes.dto.HuecoDTO;
+import com.mycompany.gestionarpacientes.exceptions.RepositoryException;
+import com.mycompany.gestionarpacientes.exceptions.ServiceException;
+import com.mycompany.gestionarpacientes.repository.ICitaRepository;
+import com.mycompany.gestionarpacientes.repository.IDoctorRepository;
+import com.mycompany.gestionarpacientes.repository.impl.CitaRepository;
+import com.mycompany.gestionarpacientes.repository.impl.DoctorRepository;
+import com.mycompany.gestionarpacientes.service.IDisponibilidadService;
+import com.mycompany.gestionarpacientes.util.JpaUtil;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación del servicio de disponibilidad de doctores
+ *
+ * @author gatog
+ */
+public class DisponibilidadService implements IDisponibilidadService {
+
+    public static final LocalTime INICIO_JORNADA = LocalTime.of(8, 0);
+    public static final LocalTime FIN_JORNADA = LocalTime.of(18, 0);
+    public static final int MAXIMO_DIAS_BUSQUEDA = 31;
+
+    /**
+     * mapa de bits de la agenda de cada doctor, un dia se recarga cada 5
+     * minutos para recoger las citas agendadas desde otras estaciones
+     */
+    private static final DisponibilidadDoctores MOTOR = new DisponibilidadDoctores(new DisponibilidadDoctores.Fuente() {
+        @Override
+        public List<Long> doctoresPorEspecialidad(String especialidad) {
+            return new DoctorRepository(JpaUtil.getReadOnlyEntityManager()).listarIdsPorEspecialidad(especialidad);
+        }
+
+        @Override
+        public List<DisponibilidadDoctores.Ocupacion> ocupacion(List<Long> doctorIds, LocalDateTime desde, LocalDateTime hasta) {
+            ICitaRepository repository = new CitaRepository(JpaUtil.getReadOnlyEntityManager());
+            List<DisponibilidadDoctores.Ocupacion> citas = new ArrayList<>();
+            for (Object[] fila : repository.listarOcupacion(doctorIds, desde, hasta)) {
+                citas.add(new DisponibilidadDoctores.Ocupacion((Long) fila[0], (Long) fila[1],
+                        (LocalDateTime) fila[2], (Integer) fila[3]));
+            }
+            return citas;
+        }
+    }, INICIO_JORNADA, FIN_JORNADA, 50_000, 5 * 60 * 1000L);
+
+    @Override
+    public HuecoDTO buscarPrimerHorarioLibre(String especialidad, LocalDateTime desde, LocalDateTime hasta,
+            int duracionMinutos) throws ServiceException {
+        List<HuecoDTO> huecos = buscarHorariosLibres(especialidad, desde, hasta, duracionMinutos, 1);
+        return huecos.isEmpty() ? null : huecos.get(0);
+    }
+
+    @Override
+    public List<HuecoDTO> buscarHorariosLibres(String especialidad, LocalDateTime desde, LocalDateTime hasta,
+            int duracionMinutos, int cantidad) throws ServiceException {
+        try {
+            validarBusqueda(especialidad, desde, hasta, duracionMinutos, cantidad);
+
+            // el motor consulta la base de datos con el EntityManager de este hilo
+            List<DisponibilidadDoctores.Hueco> huecos = MOTOR.buscar(especialidad, desde, hasta, duracionMinutos, cantidad);
+            if (huecos.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            IDoctorRepository repository = new DoctorRepository(JpaUtil.getReadOnlyEntityManager());
+            List<Long> ids = huecos.stream().map(DisponibilidadDoctores.Hueco::doctorId).distinct().toList();
+            Map<Long, DoctorDTO> doctores = repository.proyectarPorIds(ids).stream()
+                    .collect(Collectors.toMap(DoctorDTO::getId, Function.identity()));
+
+            List<HuecoDTO> resultado = new ArrayList<>(huecos.size());
+            for (DisponibilidadDoctores.Hueco hueco : huecos) {
+                DoctorDTO doctor = doctores.get(hueco.doctorId());
+                if (doctor != null) {
+                    resultado.add(new HuecoDTO(doctor.getId(), doctor.getNombre() + " " + doctor.getApellido(),
+                            doctor.getEspecialidad(), hueco.inicio(), duracionMinutos));
+                }
+            }
+            return resultado;
+
+        } catch (RepositoryException e) {
+            throw new ServiceException("buscar horarios libres", "error en la búsqueda", e);
+        } catch (Exception e) {
+            throw new ServiceException("buscar horarios libres", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    /**
+     * marca el horario de una cita como ocupado, se llama despues del commit
+     */
+    static void citaAgendada(long citaId, long doctorId, LocalDateTime fechaHora, int duracionMinutos) {
+        MOTOR.ocupar(new DisponibilidadDoctores.Ocupacion(citaId, doctorId, fechaHora, duracionMinutos));
+    }
+
+    /**
+     * libera el horario de una cita cancelada, eliminada o reprogramada, se
+     * llama despues del commit
+     */
+    static void citaLiberada(long citaId, long doctorId, LocalDateTime fechaHora, int duracionMinutos) {
+        MOTOR.liberar(new DisponibilidadDoctores.Ocupacion(citaId, doctorId, fechaHora, duracionMinutos));
+    }
+
+    /**
+     * descarta los doctores por especialidad despues de registrar, cambiar o
+     * eliminar un doctor
+     */
+    static void doctoresCambiaron() {
+        MOTOR.invalidarDoctores();
+    }
+
+    private void validarBusqueda(String especialidad, LocalDateTime desde, LocalDateTime hasta,
+            int duracionMinutos, int cantidad) throws ServiceException {
+        if (especialidad == null || especialidad.trim().isEmpty()) {
+            throw new ServiceException("La especialidad es obligatoria");
+        }
+
+        if (desde == null || hasta == null || !desde.isBefore(hasta)) {
+            throw new ServiceException("El rango de fechas no es válido");
+        }
+
+        if (desde.plusDays(MAXIMO_DIAS_BUSQUEDA).isBefore(hasta)) {
+            throw new ServiceException("El rango no puede pasar de " + MAXIMO_DIAS_BUSQUEDA + " días");
+        }
+
+        if (duracionMinutos < 1 || duracionMinutos > CitaService.DURACION_MAXIMA_MINUTOS) {
+            throw new ServiceException("La duración debe estar entre 1 y " + CitaService.DURACION_MAXIMA_MINUTOS + " minutos");
+        }
+
+        if (cantidad <= 0 || cantidad > 1000) {
+            throw new ServiceException("La cantidad debe estar entre 1 y 1000");
+        }
+    }
+}
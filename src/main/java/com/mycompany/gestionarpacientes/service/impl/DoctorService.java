@@ -1,6 +1,8 @@
 package com.mycompany.gestionarpacientes.service.impl;
 
 import com.mycompany.gestionarpacientes.dto.DoctorDTO;
+import com.mycompany.gestionarpacientes.dto.FormatoExportacion;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
 import com.mycompany.gestionarpacientes.entitys.Doctor;
 import com.mycompany.gestionarpacientes.exceptions.DuplicateEntityException;
 import com.mycompany.gestionarpacientes.exceptions.EntityNotFoundException;
@@ -8,10 +10,22 @@ import com.mycompany.gestionarpacientes.exceptions.RepositoryException;
 import com.mycompany.gestionarpacientes.exceptions.ServiceException;
 import com.mycompany.gestionarpacientes.repository.IDoctorRepository;
 import com.mycompany.gestionarpacientes.repository.impl.DoctorRepository;
+import com.mycompany.gestionarpacientes.search.IndiceNombres;
 import com.mycompany.gestionarpacientes.service.IDoctorService;
+import com.mycompany.gestionarpacientes.util.ConnectionPool;
+import com.mycompany.gestionarpacientes.util.CursorUtil;
+import com.mycompany.gestionarpacientes.util.EscritorRegistros;
 import com.mycompany.gestionarpacientes.util.JpaUtil;
+import com.mycompany.gestionarpacientes.validacion.Regla;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementación del servicio de gestión de doctores
@@ -20,20 +34,30 @@ import java.util.stream.Collectors;
  */
 public class DoctorService implements IDoctorService {
 
+    /**
+     * indice en memoria para buscar por nombre o apellido, se recarga cada 10
+     * minutos para recoger los cambios hechos desde otras estaciones
+     */
+    private static final IndiceNombres INDICE = new IndiceNombres("doctores", DoctorService::recorrerNombres, 10 * 60 * 1000L,
+            () -> ConnectionPool.usarIntercalacionInsensible()
+            ? IndiceNombres.Intercalacion.SIN_MAYUSCULAS_NI_ACENTOS
+            : IndiceNombres.Intercalacion.BINARIA);
+
+    private static final String[] COLUMNAS_EXPORTACION = {"id", "nombre", "apellido", "dni", "email", "especialidad", "cedula_profesional"};
+
     @Override
     public DoctorDTO registrarDoctor(DoctorDTO doctorDTO) throws ServiceException {
         try {
             validarDatosDoctor(doctorDTO);
             
-            DoctorDTO existente = buscarDoctorPorCedula(doctorDTO.getCedulaProfesional());
-            if (existente != null) {
-                throw new DuplicateEntityException("Ya existe un doctor con la cédula: " + doctorDTO.getCedulaProfesional());
-            }
-            
             JpaUtil.beginTransaction();
             
             IDoctorRepository repository = new DoctorRepository(JpaUtil.getEntityManager());
             
+            if (repository.existePorCedula(doctorDTO.getCedulaProfesional())) {
+                throw new DuplicateEntityException("Ya existe un doctor con la cédula: " + doctorDTO.getCedulaProfesional());
+            }
+            
             Doctor doctor = new Doctor();
             doctor.setNombre(doctorDTO.getNombre());
             doctor.setApellido(doctorDTO.getApellido());
@@ -45,6 +69,8 @@ public class DoctorService implements IDoctorService {
             Doctor doctorGuardado = repository.agregar(doctor);
             
             JpaUtil.commitTransaction();
+            INDICE.agregar(doctorGuardado.getId(), doctorGuardado.getNombre(), doctorGuardado.getApellido());
+            DisponibilidadService.doctoresCambiaron();
             
             return convertirADTO(doctorGuardado);
             
@@ -90,6 +116,8 @@ public class DoctorService implements IDoctorService {
             Doctor doctorActualizado = repository.actualizar(doctorExistente);
             
             JpaUtil.commitTransaction();
+            INDICE.actualizar(doctorActualizado.getId(), doctorActualizado.getNombre(), doctorActualizado.getApellido());
+            DisponibilidadService.doctoresCambiaron();
             
             return convertirADTO(doctorActualizado);
             
@@ -121,6 +149,8 @@ public class DoctorService implements IDoctorService {
             Doctor doctorEliminado = repository.eliminar(id);
             
             JpaUtil.commitTransaction();
+            INDICE.eliminar(id);
+            DisponibilidadService.doctoresCambiaron();
             
             return convertirADTO(doctorEliminado);
             
@@ -145,7 +175,7 @@ public class DoctorService implements IDoctorService {
                 throw new ServiceException("El ID del doctor no puede ser nulo");
             }
             
-            IDoctorRepository repository = new DoctorRepository(JpaUtil.getEntityManager());
+            IDoctorRepository repository = new DoctorRepository(JpaUtil.getReadOnlyEntityManager());
             Doctor doctor = repository.buscarPorId(id);
             return convertirADTO(doctor);
             
@@ -165,14 +195,8 @@ public class DoctorService implements IDoctorService {
                 return null;
             }
             
-            IDoctorRepository repository = new DoctorRepository(JpaUtil.getEntityManager());
-            List<Doctor> doctores = repository.listarPorNombre(cedulaProfesional, 100, 0);
-            
-            Doctor doctor = doctores.stream()
-                    .filter(d -> d.getCedulaProfesional().equals(cedulaProfesional))
-                    .findFirst()
-                    .orElse(null);
-                    
+            IDoctorRepository repository = new DoctorRepository(JpaUtil.getReadOnlyEntityManager());
+            Doctor doctor = repository.buscarPorCedula(cedulaProfesional);
             return convertirADTO(doctor);
             
         } catch (RepositoryException e) {
@@ -193,11 +217,12 @@ public class DoctorService implements IDoctorService {
             
             validarPaginacion(limit, offset);
             
-            IDoctorRepository repository = new DoctorRepository(JpaUtil.getEntityManager());
-            List<Doctor> doctores = repository.listarPorNombre(nombre, limit, offset);
-            return doctores.stream()
-                    .map(this::convertirADTO)
-                    .collect(Collectors.toList());
+            IDoctorRepository repository = new DoctorRepository(JpaUtil.getReadOnlyEntityManager());
+            List<Long> ids = INDICE.buscar(nombre, offset, limit);
+            if (ids != null) {
+                return ordenarPorIds(repository.proyectarPorIds(ids), ids);
+            }
+            return repository.proyectarPorNombre(nombre, limit, offset);
                     
         } catch (RepositoryException e) {
             throw new ServiceException("buscar doctores por nombre", "error en la búsqueda", e);
@@ -217,7 +242,7 @@ public class DoctorService implements IDoctorService {
             
             validarPaginacion(limit, offset);
             
-            IDoctorRepository repository = new DoctorRepository(JpaUtil.getEntityManager());
+            IDoctorRepository repository = new DoctorRepository(JpaUtil.getReadOnlyEntityManager());
             List<Doctor> doctores = repository.listarPorEspecialidad(especialidad, limit, offset);
             return doctores.stream()
                     .map(this::convertirADTO)
@@ -237,11 +262,8 @@ public class DoctorService implements IDoctorService {
         try {
             validarPaginacion(limit, offset);
             
-            IDoctorRepository repository = new DoctorRepository(JpaUtil.getEntityManager());
-            List<Doctor> doctores = repository.listarTodos(limit, offset);
-            return doctores.stream()
-                    .map(this::convertirADTO)
-                    .collect(Collectors.toList());
+            IDoctorRepository repository = new DoctorRepository(JpaUtil.getReadOnlyEntityManager());
+            return repository.proyectarTodos(limit, offset);
                     
         } catch (RepositoryException e) {
             throw new ServiceException("listar todos los doctores", "error en la búsqueda", e);
@@ -252,6 +274,142 @@ public class DoctorService implements IDoctorService {
         }
     }
     
+    @Override
+    public PaginaDTO<DoctorDTO> listarDoctoresPorCursor(String cursor, int limit) throws ServiceException {
+        try {
+            validarPaginacion(limit, 0);
+            CursorUtil.Posicion posicion = cursor == null ? null : CursorUtil.decodificar(cursor);
+
+            IDoctorRepository repository = new DoctorRepository(JpaUtil.getReadOnlyEntityManager());
+            List<DoctorDTO> doctores = repository.proyectarTodosDesde(
+                    posicion == null ? null : posicion.nombre(),
+                    posicion == null ? null : posicion.id(),
+                    limit + 1);
+            return crearPagina(doctores, limit);
+
+        } catch (IllegalArgumentException e) {
+            throw new ServiceException("listar doctores por cursor", "cursor inválido", e);
+        } catch (RepositoryException e) {
+            throw new ServiceException("listar doctores por cursor", "error en la búsqueda", e);
+        } catch (Exception e) {
+            throw new ServiceException("listar doctores por cursor", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public PaginaDTO<DoctorDTO> buscarDoctoresPorNombreCursor(String nombre, String cursor, int limit) throws ServiceException {
+        try {
+            if (nombre == null || nombre.trim().isEmpty()) {
+                throw new ServiceException("El nombre no puede estar vacío");
+            }
+
+            validarPaginacion(limit, 0);
+            CursorUtil.Posicion posicion = cursor == null ? null : CursorUtil.decodificar(cursor);
+
+            IDoctorRepository repository = new DoctorRepository(JpaUtil.getReadOnlyEntityManager());
+            String ultimoNombre = posicion == null ? null : posicion.nombre();
+            Long ultimoId = posicion == null ? null : posicion.id();
+
+            List<DoctorDTO> doctores;
+            List<Long> ids = INDICE.buscarDespues(nombre, ultimoNombre, ultimoId, limit + 1);
+            if (ids != null) {
+                doctores = ordenarPorIds(repository.proyectarPorIds(ids), ids);
+            } else {
+                doctores = repository.proyectarPorNombreDesde(nombre, ultimoNombre, ultimoId, limit + 1);
+            }
+            return crearPagina(doctores, limit);
+
+        } catch (IllegalArgumentException e) {
+            throw new ServiceException("buscar doctores por nombre", "cursor inválido", e);
+        } catch (RepositoryException e) {
+            throw new ServiceException("buscar doctores por nombre", "error en la búsqueda", e);
+        } catch (Exception e) {
+            throw new ServiceException("buscar doctores por nombre", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    /**
+     * arma la pagina a partir de una consulta que pidio limit + 1 filas, la
+     * fila extra solo indica que existe una pagina siguiente
+     */
+    private PaginaDTO<DoctorDTO> crearPagina(List<DoctorDTO> doctores, int limit) {
+        boolean hayMas = doctores.size() > limit;
+        List<DoctorDTO> elementos = hayMas ? doctores.subList(0, limit) : doctores;
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            DoctorDTO ultimo = elementos.get(elementos.size() - 1);
+            siguienteCursor = CursorUtil.codificar(ultimo.getNombre(), ultimo.getId());
+        }
+        return new PaginaDTO<>(elementos, siguienteCursor);
+    }
+
+    /**
+     * acomoda los DTOs en el orden que entrego el indice, los ids que ya no
+     * existen en la base de datos se omiten
+     */
+    private List<DoctorDTO> ordenarPorIds(List<DoctorDTO> doctores, List<Long> ids) {
+        Map<Long, DoctorDTO> porId = new HashMap<>();
+        for (DoctorDTO dto : doctores) {
+            porId.put(dto.getId(), dto);
+        }
+        List<DoctorDTO> ordenados = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            DoctorDTO dto = porId.get(id);
+            if (dto != null) {
+                ordenados.add(dto);
+            }
+        }
+        return ordenados;
+    }
+
+    @Override
+    public long exportarDoctores(Path archivo, FormatoExportacion formato) throws ServiceException {
+        if (archivo == null || formato == null) {
+            throw new ServiceException("El archivo y el formato son obligatorios");
+        }
+
+        try (EscritorRegistros escritor = new EscritorRegistros(archivo, formato, COLUMNAS_EXPORTACION)) {
+            IDoctorRepository repository = new DoctorRepository(JpaUtil.getReadOnlyEntityManager());
+            return repository.exportarTodos(d -> {
+                try {
+                    escritor.escribir(d.getId(), d.getNombre(), d.getApellido(), d.getDni(), d.getEmail(),
+                            d.getEspecialidad(), d.getCedulaProfesional());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+        } catch (IOException | UncheckedIOException e) {
+            throw new ServiceException("exportar doctores", "no se pudo escribir el archivo: " + e.getMessage(), e);
+        } catch (RepositoryException e) {
+            throw new ServiceException("exportar doctores", "error al leer los doctores", e);
+        } catch (Exception e) {
+            throw new ServiceException("exportar doctores", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    /**
+     * fuente del indice de busqueda, recorre la tabla en una transaccion de
+     * solo lectura en el hilo que carga el indice
+     */
+    private static void recorrerNombres(IndiceNombres.Receptor receptor) {
+        try {
+            IDoctorRepository repository = new DoctorRepository(JpaUtil.getReadOnlyEntityManager());
+            try (Stream<Object[]> filas = repository.recorrerNombres()) {
+                filas.forEach(fila -> receptor.aceptar((Long) fila[0], (String) fila[1], (String) fila[2]));
+            }
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
     private DoctorDTO convertirADTO(Doctor doctor) {
         if (doctor == null) {
             return null;
@@ -293,11 +451,29 @@ public class DoctorService implements IDoctorService {
             throw new ServiceException("La cédula profesional es obligatoria");
         }
         
-        if (doctorDTO.getEmail() != null && !doctorDTO.getEmail().isEmpty()) {
-            if (!doctorDTO.getEmail().matches(
-                    "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$")) {
-                throw new ServiceException("El formato del email no es válido");
-            }
+        if (!Regla.NOMBRE.valida(doctorDTO.getNombre())) {
+            throw new ServiceException("El formato del nombre no es válido");
+        }
+        
+        if (!Regla.NOMBRE.valida(doctorDTO.getApellido())) {
+            throw new ServiceException("El formato del apellido no es válido");
+        }
+        
+        if (!Regla.DNI.valida(doctorDTO.getDni())) {
+            throw new ServiceException("El DNI debe tener de 5 a 20 letras mayúsculas o dígitos");
+        }
+        
+        if (!Regla.NOMBRE.valida(doctorDTO.getEspecialidad())) {
+            throw new ServiceException("El formato de la especialidad no es válido");
+        }
+        
+        if (!Regla.CEDULA.valida(doctorDTO.getCedulaProfesional())) {
+            throw new ServiceException("La cédula profesional debe tener el formato CED-12345678");
+        }
+        
+        if (doctorDTO.getEmail() != null && !doctorDTO.getEmail().isEmpty()
+                && !Regla.EMAIL.valida(doctorDTO.getEmail())) {
+            throw new ServiceException("El formato del email no es válido");
         }
     }
     
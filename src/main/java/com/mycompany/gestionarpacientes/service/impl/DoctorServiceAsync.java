@@ -0,0 +1,89 @@
+package com.mycompany.gestionarpacientes.service.impl;
+
+import com.mycompany.gestionarpacientes.dto.DoctorDTO;
+import com.mycompany.gestionarpacientes.dto.FormatoExportacion;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
+import com.mycompany.gestionarpacientes.service.IDoctorService;
+import com.mycompany.gestionarpacientes.service.IDoctorServiceAsync;
+import com.mycompany.gestionarpacientes.util.AsyncExecutor;
+import com.mycompany.gestionarpacientes.util.ServicioMedido;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Implementación asincrona del servicio de gestión de doctores, delega en el
+ * servicio sincrono y ejecuta cada llamada en un hilo virtual
+ *
+ * @author gatog
+ */
+public class DoctorServiceAsync implements IDoctorServiceAsync {
+
+    private final IDoctorService service;
+    private final Executor executor;
+
+    public DoctorServiceAsync() {
+        this(ServicioMedido.medir(IDoctorService.class, new DoctorService()), AsyncExecutor.get());
+    }
+
+    public DoctorServiceAsync(IDoctorService service, Executor executor) {
+        this.service = service;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<DoctorDTO> registrarDoctorAsync(DoctorDTO doctorDTO) {
+        return CompletableFuture.supplyAsync(() -> service.registrarDoctor(doctorDTO), executor);
+    }
+
+    @Override
+    public CompletableFuture<DoctorDTO> actualizarDoctorAsync(DoctorDTO doctorDTO) {
+        return CompletableFuture.supplyAsync(() -> service.actualizarDoctor(doctorDTO), executor);
+    }
+
+    @Override
+    public CompletableFuture<DoctorDTO> eliminarDoctorAsync(Long id) {
+        return CompletableFuture.supplyAsync(() -> service.eliminarDoctor(id), executor);
+    }
+
+    @Override
+    public CompletableFuture<DoctorDTO> buscarDoctorPorIdAsync(Long id) {
+        return CompletableFuture.supplyAsync(() -> service.buscarDoctorPorId(id), executor);
+    }
+
+    @Override
+    public CompletableFuture<DoctorDTO> buscarDoctorPorCedulaAsync(String cedulaProfesional) {
+        return CompletableFuture.supplyAsync(() -> service.buscarDoctorPorCedula(cedulaProfesional), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<DoctorDTO>> buscarDoctoresPorNombreAsync(String nombre, int limit, int offset) {
+        return CompletableFuture.supplyAsync(() -> service.buscarDoctoresPorNombre(nombre, limit, offset), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<DoctorDTO>> buscarDoctoresPorEspecialidadAsync(String especialidad, int limit, int offset) {
+        return CompletableFuture.supplyAsync(() -> service.buscarDoctoresPorEspecialidad(especialidad, limit, offset), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<DoctorDTO>> listarTodosDoctoresAsync(int limit, int offset) {
+        return CompletableFuture.supplyAsync(() -> service.listarTodosDoctores(limit, offset), executor);
+    }
+
+    @Override
+    public CompletableFuture<PaginaDTO<DoctorDTO>> listarDoctoresPorCursorAsync(String cursor, int limit) {
+        return CompletableFuture.supplyAsync(() -> service.listarDoctoresPorCursor(cursor, limit), executor);
+    }
+
+    @Override
+    public CompletableFuture<PaginaDTO<DoctorDTO>> buscarDoctoresPorNombreCursorAsync(String nombre, String cursor, int limit) {
+        return CompletableFuture.supplyAsync(() -> service.buscarDoctoresPorNombreCursor(nombre, cursor, limit), executor);
+    }
+
+    @Override
+    public CompletableFuture<Long> exportarDoctoresAsync(Path archivo, FormatoExportacion formato) {
+        return CompletableFuture.supplyAsync(() -> service.exportarDoctores(archivo, formato), executor);
+    }
+}
@@ -0,0 +1,260 @@
+package com.mycompany.gestionarpacientes.service.impl;
+
+import com.mycompany.gestionarpacientes.dto.PacienteDTO;
+import com.mycompany.gestionarpacientes.dto.ResultadoImportacionDTO;
+import com.mycompany.gestionarpacientes.entitys.Paciente;
+import com.mycompany.gestionarpacientes.exceptions.ServiceException;
+import com.mycompany.gestionarpacientes.repository.IPacienteRepository;
+import com.mycompany.gestionarpacientes.repository.impl.PacienteRepository;
+import com.mycompany.gestionarpacientes.search.IndiceNombres;
+import com.mycompany.gestionarpacientes.util.JpaUtil;
+import com.mycompany.gestionarpacientes.util.LectorCsv;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+/**
+ * importa pacientes desde un CSV por lotes: cada lote se valida en paralelo,
+ * se quitan los DNI repetidos en el archivo y los que ya existen en la base de
+ * datos con una sola consulta, y se inserta con una StatelessSession en lotes
+ * JDBC, sin contexto de persistencia ni flush por registro
+ *
+ * solo se mantiene en memoria el lote actual y el conjunto de DNI vistos
+ *
+ * @author gatog
+ */
+final class ImportadorPacientes {
+
+    static final int MAXIMO_RECHAZOS_DETALLADOS = 1000;
+
+    private static final String[] OBLIGATORIAS = {"nombre", "apellido", "dni", "fechanacimiento"};
+
+    private record Fila(long linea, String[] campos) {
+    }
+
+    private record Validada(long linea, PacienteDTO paciente, String motivo) {
+    }
+
+    private final IndiceNombres indice;
+    private final int tamanoLote;
+    private final Set<String> dnisVistos = new HashSet<>();
+    private final List<ResultadoImportacionDTO.Rechazo> rechazos = new ArrayList<>();
+
+    private int colNombre;
+    private int colApellido;
+    private int colDni;
+    private int colEmail;
+    private int colFecha;
+    private int colTipoSangre;
+    private int colSeguro;
+
+    private long leidos;
+    private long importados;
+    private long rechazados;
+
+    ImportadorPacientes(IndiceNombres indice, int tamanoLote) {
+        this.indice = indice;
+        this.tamanoLote = tamanoLote;
+    }
+
+    ResultadoImportacionDTO importar(Reader reader) throws IOException {
+        long inicio = System.nanoTime();
+        SessionFactory sessionFactory = JpaUtil.getEntityManagerFactory().unwrap(SessionFactory.class);
+
+        try (LectorCsv lector = new LectorCsv(reader);
+                StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(tamanoLote);
+            leerEncabezado(lector.siguiente());
+
+            List<Fila> lote = new ArrayList<>(tamanoLote);
+            String[] campos;
+            while ((campos = lector.siguiente()) != null) {
+                leidos++;
+                lote.add(new Fila(lector.getLineaRegistro(), campos));
+                if (lote.size() == tamanoLote) {
+                    procesar(session, lote);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                procesar(session, lote);
+            }
+        }
+
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        return new ResultadoImportacionDTO(leidos, importados, rechazados, duracionMs, rechazos);
+    }
+
+    private void procesar(StatelessSession session, List<Fila> lote) {
+        // la validacion no toca la base de datos, se reparte entre los nucleos
+        List<Validada> validadas = lote.parallelStream().map(this::validar).toList();
+
+        List<Validada> candidatas = new ArrayList<>(validadas.size());
+        for (Validada validada : validadas) {
+            if (validada.motivo() != null) {
+                rechazar(validada, validada.motivo());
+            } else if (!dnisVistos.add(validada.paciente().getDni())) {
+                rechazar(validada, "DNI repetido en el archivo");
+            } else {
+                candidatas.add(validada);
+            }
+        }
+        if (candidatas.isEmpty()) {
+            return;
+        }
+
+        Set<String> existentes = new HashSet<>(dnisExistentes(candidatas));
+        List<Validada> nuevas = new ArrayList<>(candidatas.size());
+        for (Validada validada : candidatas) {
+            if (existentes.contains(validada.paciente().getDni())) {
+                rechazar(validada, "ya existe un paciente con ese DNI");
+            } else {
+                nuevas.add(validada);
+            }
+        }
+        insertar(session, nuevas);
+    }
+
+    private List<String> dnisExistentes(List<Validada> candidatas) {
+        try {
+            List<String> dnis = candidatas.stream().map(validada -> validada.paciente().getDni()).toList();
+            IPacienteRepository repository = new PacienteRepository(JpaUtil.getReadOnlyEntityManager());
+            return repository.listarDnisExistentes(dnis);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    private void insertar(StatelessSession session, List<Validada> nuevas) {
+        if (nuevas.isEmpty()) {
+            return;
+        }
+        List<Paciente> pacientes = new ArrayList<>(nuevas.size());
+        Transaction tx = session.beginTransaction();
+        try {
+            for (Validada validada : nuevas) {
+                Paciente paciente = crearPaciente(validada.paciente());
+                session.insert(paciente);
+                pacientes.add(paciente);
+            }
+            tx.commit();
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            // otra estacion pudo registrar un DNI del lote, se reintenta uno por uno
+            insertarUnoPorUno(session, nuevas);
+            return;
+        }
+        importados += pacientes.size();
+        for (Paciente paciente : pacientes) {
+            indice.agregar(paciente.getId(), paciente.getNombre(), paciente.getApellido());
+        }
+    }
+
+    private void insertarUnoPorUno(StatelessSession session, List<Validada> nuevas) {
+        for (Validada validada : nuevas) {
+            Paciente paciente = crearPaciente(validada.paciente());
+            Transaction tx = session.beginTransaction();
+            try {
+                session.insert(paciente);
+                tx.commit();
+                importados++;
+                indice.agregar(paciente.getId(), paciente.getNombre(), paciente.getApellido());
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                rechazar(validada, "no se pudo insertar: " + e.getMessage());
+            }
+        }
+    }
+
+    private Validada validar(Fila fila) {
+        String[] campos = fila.campos();
+        try {
+            String fechaTexto = campo(campos, colFecha);
+            if (fechaTexto == null) {
+                throw new ServiceException("La fecha de nacimiento es obligatoria");
+            }
+            PacienteDTO paciente = new PacienteDTO(
+                    campo(campos, colNombre),
+                    campo(campos, colApellido),
+                    campo(campos, colDni),
+                    campo(campos, colEmail),
+                    LocalDate.parse(fechaTexto),
+                    campo(campos, colTipoSangre),
+                    campo(campos, colSeguro));
+            PacienteService.validarDatosPaciente(paciente);
+            return new Validada(fila.linea(), paciente, null);
+        } catch (DateTimeParseException e) {
+            return new Validada(fila.linea(), dniSinValidar(campos), "Formato de fecha inválido. Use YYYY-MM-DD");
+        } catch (ServiceException e) {
+            return new Validada(fila.linea(), dniSinValidar(campos), e.getMessage());
+        }
+    }
+
+    private PacienteDTO dniSinValidar(String[] campos) {
+        PacienteDTO paciente = new PacienteDTO();
+        paciente.setDni(campo(campos, colDni));
+        return paciente;
+    }
+
+    private void rechazar(Validada validada, String motivo) {
+        rechazados++;
+        if (rechazos.size() < MAXIMO_RECHAZOS_DETALLADOS) {
+            rechazos.add(new ResultadoImportacionDTO.Rechazo(validada.linea(), validada.paciente().getDni(), motivo));
+        }
+    }
+
+    private void leerEncabezado(String[] encabezado) {
+        if (encabezado == null) {
+            throw new IllegalArgumentException("el archivo está vacío");
+        }
+        List<String> columnas = new ArrayList<>(encabezado.length);
+        for (String columna : encabezado) {
+            columnas.add(columna.replace("\uFEFF", "").replaceAll("[\\s_]", "").toLowerCase(Locale.ROOT));
+        }
+        for (String obligatoria : OBLIGATORIAS) {
+            if (!columnas.contains(obligatoria)) {
+                throw new IllegalArgumentException("falta la columna " + obligatoria);
+            }
+        }
+        colNombre = columnas.indexOf("nombre");
+        colApellido = columnas.indexOf("apellido");
+        colDni = columnas.indexOf("dni");
+        colFecha = columnas.indexOf("fechanacimiento");
+        colEmail = columnas.indexOf("email");
+        colTipoSangre = columnas.indexOf("tiposangre");
+        colSeguro = columnas.indexOf("seguromedico");
+    }
+
+    private static String campo(String[] campos, int posicion) {
+        if (posicion < 0 || posicion >= campos.length) {
+            return null;
+        }
+        String valor = campos[posicion].trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static Paciente crearPaciente(PacienteDTO dto) {
+        Paciente paciente = new Paciente();
+        paciente.setNombre(dto.getNombre());
+        paciente.setApellido(dto.getApellido());
+        paciente.setDni(dto.getDni());
+        paciente.setEmail(dto.getEmail());
+        paciente.setFechaNacimiento(dto.getFechaNacimiento());
+        paciente.setTipoSangre(dto.getTipoSangre());
+        paciente.setSeguroMedico(dto.getSeguroMedico());
+        return paciente;
+    }
+}
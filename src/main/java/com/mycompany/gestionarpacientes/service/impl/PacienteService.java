@@ -1,17 +1,39 @@
 package com.mycompany.gestionarpacientes.service.impl;
 
+import com.mycompany.gestionarpacientes.dto.FormatoExportacion;
+import com.mycompany.gestionarpacientes.dto.MapaBloquesDTO;
 import com.mycompany.gestionarpacientes.dto.PacienteDTO;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
+import com.mycompany.gestionarpacientes.dto.ResultadoImportacionDTO;
 import com.mycompany.gestionarpacientes.entitys.Paciente;
 import com.mycompany.gestionarpacientes.exceptions.DuplicateEntityException;
 import com.mycompany.gestionarpacientes.exceptions.EntityNotFoundException;
 import com.mycompany.gestionarpacientes.exceptions.RepositoryException;
 import com.mycompany.gestionarpacientes.exceptions.ServiceException;
 import com.mycompany.gestionarpacientes.repository.IPacienteRepository;
+import com.mycompany.gestionarpacientes.repository.impl.CitaRepository;
 import com.mycompany.gestionarpacientes.repository.impl.PacienteRepository;
+import com.mycompany.gestionarpacientes.search.IndiceNombres;
 import com.mycompany.gestionarpacientes.service.IPacienteService;
+import com.mycompany.gestionarpacientes.util.ConnectionPool;
+import com.mycompany.gestionarpacientes.util.CursorUtil;
+import com.mycompany.gestionarpacientes.util.EscritorRegistros;
 import com.mycompany.gestionarpacientes.util.JpaUtil;
+import com.mycompany.gestionarpacientes.validacion.Regla;
+import jakarta.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementación del servicio de gestión de pacientes
@@ -20,21 +42,31 @@ import java.util.stream.Collectors;
  */
 public class PacienteService implements IPacienteService {
 
+    /**
+     * indice en memoria para buscar por nombre o apellido, se recarga cada 10
+     * minutos para recoger los cambios hechos desde otras estaciones
+     */
+    private static final IndiceNombres INDICE = new IndiceNombres("pacientes", PacienteService::recorrerNombres, 10 * 60 * 1000L,
+            () -> ConnectionPool.usarIntercalacionInsensible()
+            ? IndiceNombres.Intercalacion.SIN_MAYUSCULAS_NI_ACENTOS
+            : IndiceNombres.Intercalacion.BINARIA);
+
+    private static final String[] COLUMNAS_EXPORTACION = {"id", "nombre", "apellido", "dni", "email", "fecha_nacimiento", "tipo_sangre", "seguro_medico"};
+
     @Override
     public PacienteDTO registrarPaciente(PacienteDTO pacienteDTO) throws ServiceException {
         try {
             validarDatosPaciente(pacienteDTO);
 
-            // Verificar que no exista un paciente con el mismo DNI
-            PacienteDTO existente = buscarPacientePorDni(pacienteDTO.getDni());
-            if (existente != null) {
-                throw new DuplicateEntityException("Ya existe un paciente con el DNI: " + pacienteDTO.getDni());
-            }
-
             JpaUtil.beginTransaction();
 
             IPacienteRepository repository = new PacienteRepository(JpaUtil.getEntityManager());
 
+            // Verificar que no exista un paciente con el mismo DNI
+            if (repository.existePorDni(pacienteDTO.getDni())) {
+                throw new DuplicateEntityException("Ya existe un paciente con el DNI: " + pacienteDTO.getDni());
+            }
+
             Paciente paciente = new Paciente();
             paciente.setNombre(pacienteDTO.getNombre());
             paciente.setApellido(pacienteDTO.getApellido());
@@ -47,6 +79,7 @@ public class PacienteService implements IPacienteService {
             Paciente pacienteGuardado = repository.agregar(paciente);
 
             JpaUtil.commitTransaction();
+            INDICE.agregar(pacienteGuardado.getId(), pacienteGuardado.getNombre(), pacienteGuardado.getApellido());
 
             return convertirADTO(pacienteGuardado);
 
@@ -93,6 +126,7 @@ public class PacienteService implements IPacienteService {
             Paciente pacienteActualizado = repository.actualizar(pacienteExistente);
 
             JpaUtil.commitTransaction();
+            INDICE.actualizar(pacienteActualizado.getId(), pacienteActualizado.getNombre(), pacienteActualizado.getApellido());
 
             return convertirADTO(pacienteActualizado);
 
@@ -119,11 +153,16 @@ public class PacienteService implements IPacienteService {
 
             JpaUtil.beginTransaction();
 
-            IPacienteRepository repository = new PacienteRepository(JpaUtil.getEntityManager());
+            EntityManager em = JpaUtil.getEntityManager();
+            IPacienteRepository repository = new PacienteRepository(em);
 
+            // las citas se borran en cascada, hay que sacarlas de las agendas en memoria
+            List<Object[]> citas = new CitaRepository(em).listarOcupacionPorPaciente(id, LocalDate.now().atStartOfDay());
             Paciente pacienteEliminado = repository.eliminar(id);
 
             JpaUtil.commitTransaction();
+            INDICE.eliminar(id);
+            CitaService.citasEliminadas(citas);
 
             return convertirADTO(pacienteEliminado);
 
@@ -148,7 +187,7 @@ public class PacienteService implements IPacienteService {
                 throw new ServiceException("El ID del paciente no puede ser nulo");
             }
 
-            IPacienteRepository repository = new PacienteRepository(JpaUtil.getEntityManager());
+            IPacienteRepository repository = new PacienteRepository(JpaUtil.getReadOnlyEntityManager());
             Paciente paciente = repository.buscarPorId(id);
             return convertirADTO(paciente);
 
@@ -168,14 +207,8 @@ public class PacienteService implements IPacienteService {
                 return null;
             }
 
-            IPacienteRepository repository = new PacienteRepository(JpaUtil.getEntityManager());
-            List<Paciente> pacientes = repository.listarPorNombre(dni, 100, 0);
-
-            Paciente paciente = pacientes.stream()
-                    .filter(p -> p.getDni().equals(dni))
-                    .findFirst()
-                    .orElse(null);
-
+            IPacienteRepository repository = new PacienteRepository(JpaUtil.getReadOnlyEntityManager());
+            Paciente paciente = repository.buscarPorDni(dni);
             return convertirADTO(paciente);
 
         } catch (RepositoryException e) {
@@ -196,11 +229,12 @@ public class PacienteService implements IPacienteService {
 
             validarPaginacion(limit, offset);
 
-            IPacienteRepository repository = new PacienteRepository(JpaUtil.getEntityManager());
-            List<Paciente> pacientes = repository.listarPorNombre(nombre, limit, offset);
-            return pacientes.stream()
-                    .map(this::convertirADTO)
-                    .collect(Collectors.toList());
+            IPacienteRepository repository = new PacienteRepository(JpaUtil.getReadOnlyEntityManager());
+            List<Long> ids = INDICE.buscar(nombre, offset, limit);
+            if (ids != null) {
+                return ordenarPorIds(repository.proyectarPorIds(ids), ids);
+            }
+            return repository.proyectarPorNombre(nombre, limit, offset);
 
         } catch (RepositoryException e) {
             throw new ServiceException("buscar pacientes por nombre", "error en la búsqueda", e);
@@ -220,7 +254,7 @@ public class PacienteService implements IPacienteService {
 
             validarPaginacion(limit, offset);
 
-            IPacienteRepository repository = new PacienteRepository(JpaUtil.getEntityManager());
+            IPacienteRepository repository = new PacienteRepository(JpaUtil.getReadOnlyEntityManager());
             List<Paciente> pacientes = repository.listarPorTipoDeSeguro(tipoSeguro, limit, offset);
             return pacientes.stream()
                     .map(this::convertirADTO)
@@ -240,11 +274,8 @@ public class PacienteService implements IPacienteService {
         try {
             validarPaginacion(limit, offset);
 
-            IPacienteRepository repository = new PacienteRepository(JpaUtil.getEntityManager());
-            List<Paciente> pacientes = repository.listarTodos(limit, offset);
-            return pacientes.stream()
-                    .map(this::convertirADTO)
-                    .collect(Collectors.toList());
+            IPacienteRepository repository = new PacienteRepository(JpaUtil.getReadOnlyEntityManager());
+            return repository.proyectarTodos(limit, offset);
 
         } catch (RepositoryException e) {
             throw new ServiceException("listar todos los pacientes", "error en la búsqueda", e);
@@ -255,6 +286,149 @@ public class PacienteService implements IPacienteService {
         }
     }
 
+    @Override
+    public long contarPacientes() throws ServiceException {
+        try {
+            IPacienteRepository repository = new PacienteRepository(JpaUtil.getReadOnlyEntityManager());
+            return repository.contarTodos();
+
+        } catch (RepositoryException e) {
+            throw new ServiceException("contar pacientes", "error al contar", e);
+        } catch (Exception e) {
+            throw new ServiceException("contar pacientes", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public PaginaDTO<PacienteDTO> listarPacientesPorCursor(String cursor, int limit) throws ServiceException {
+        try {
+            validarPaginacion(limit, 0);
+            CursorUtil.Posicion posicion = cursor == null ? null : CursorUtil.decodificar(cursor);
+
+            IPacienteRepository repository = new PacienteRepository(JpaUtil.getReadOnlyEntityManager());
+            List<PacienteDTO> pacientes = repository.proyectarTodosDesde(
+                    posicion == null ? null : posicion.nombre(),
+                    posicion == null ? null : posicion.id(),
+                    limit + 1);
+            return crearPagina(pacientes, limit);
+
+        } catch (IllegalArgumentException e) {
+            throw new ServiceException("listar pacientes por cursor", "cursor inválido", e);
+        } catch (RepositoryException e) {
+            throw new ServiceException("listar pacientes por cursor", "error en la búsqueda", e);
+        } catch (Exception e) {
+            throw new ServiceException("listar pacientes por cursor", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public MapaBloquesDTO mapearBloquesPacientes(int filasPorBloque) throws ServiceException {
+        try {
+            validarPaginacion(filasPorBloque, 0);
+
+            IPacienteRepository repository = new PacienteRepository(JpaUtil.getReadOnlyEntityManager());
+            List<String> cursores = new ArrayList<>();
+            long total = repository.recorrerLlaves(filasPorBloque,
+                    llave -> cursores.add(CursorUtil.codificar((String) llave[0], (Long) llave[1])));
+            return new MapaBloquesDTO(total, filasPorBloque, cursores);
+
+        } catch (RepositoryException e) {
+            throw new ServiceException("mapear bloques de pacientes", "error al recorrer", e);
+        } catch (Exception e) {
+            throw new ServiceException("mapear bloques de pacientes", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public PaginaDTO<PacienteDTO> buscarPacientesPorNombreCursor(String nombre, String cursor, int limit) throws ServiceException {
+        try {
+            if (nombre == null || nombre.trim().isEmpty()) {
+                throw new ServiceException("El nombre no puede estar vacío");
+            }
+
+            validarPaginacion(limit, 0);
+            CursorUtil.Posicion posicion = cursor == null ? null : CursorUtil.decodificar(cursor);
+
+            IPacienteRepository repository = new PacienteRepository(JpaUtil.getReadOnlyEntityManager());
+            String ultimoNombre = posicion == null ? null : posicion.nombre();
+            Long ultimoId = posicion == null ? null : posicion.id();
+
+            List<PacienteDTO> pacientes;
+            List<Long> ids = INDICE.buscarDespues(nombre, ultimoNombre, ultimoId, limit + 1);
+            if (ids != null) {
+                pacientes = ordenarPorIds(repository.proyectarPorIds(ids), ids);
+            } else {
+                pacientes = repository.proyectarPorNombreDesde(nombre, ultimoNombre, ultimoId, limit + 1);
+            }
+            return crearPagina(pacientes, limit);
+
+        } catch (IllegalArgumentException e) {
+            throw new ServiceException("buscar pacientes por nombre", "cursor inválido", e);
+        } catch (RepositoryException e) {
+            throw new ServiceException("buscar pacientes por nombre", "error en la búsqueda", e);
+        } catch (Exception e) {
+            throw new ServiceException("buscar pacientes por nombre", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    /**
+     * arma la pagina a partir de una consulta que pidio limit + 1 filas, la
+     * fila extra solo indica que existe una pagina siguiente
+     */
+    private PaginaDTO<PacienteDTO> crearPagina(List<PacienteDTO> pacientes, int limit) {
+        boolean hayMas = pacientes.size() > limit;
+        List<PacienteDTO> elementos = hayMas ? pacientes.subList(0, limit) : pacientes;
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            PacienteDTO ultimo = elementos.get(elementos.size() - 1);
+            siguienteCursor = CursorUtil.codificar(ultimo.getNombre(), ultimo.getId());
+        }
+        return new PaginaDTO<>(elementos, siguienteCursor);
+    }
+
+    /**
+     * acomoda los DTOs en el orden que entrego el indice, los ids que ya no
+     * existen en la base de datos se omiten
+     */
+    private List<PacienteDTO> ordenarPorIds(List<PacienteDTO> pacientes, List<Long> ids) {
+        Map<Long, PacienteDTO> porId = new HashMap<>();
+        for (PacienteDTO dto : pacientes) {
+            porId.put(dto.getId(), dto);
+        }
+        List<PacienteDTO> ordenados = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            PacienteDTO dto = porId.get(id);
+            if (dto != null) {
+                ordenados.add(dto);
+            }
+        }
+        return ordenados;
+    }
+
+    /**
+     * fuente del indice de busqueda, recorre la tabla en una transaccion de
+     * solo lectura en el hilo que carga el indice
+     */
+    private static void recorrerNombres(IndiceNombres.Receptor receptor) {
+        try {
+            IPacienteRepository repository = new PacienteRepository(JpaUtil.getReadOnlyEntityManager());
+            try (Stream<Object[]> filas = repository.recorrerNombres()) {
+                filas.forEach(fila -> receptor.aceptar((Long) fila[0], (String) fila[1], (String) fila[2]));
+            }
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
     private PacienteDTO convertirADTO(Paciente paciente) {
         if (paciente == null) {
             return null;
@@ -272,7 +446,58 @@ public class PacienteService implements IPacienteService {
         );
     }
 
-    private void validarDatosPaciente(PacienteDTO pacienteDTO) throws ServiceException {
+    @Override
+    public ResultadoImportacionDTO importarPacientes(Path archivo, int tamanoLote) throws ServiceException {
+        if (archivo == null) {
+            throw new ServiceException("El archivo es obligatorio");
+        }
+        if (tamanoLote <= 0 || tamanoLote > 10_000) {
+            throw new ServiceException("El tamaño de lote debe estar entre 1 y 10000");
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            return new ImportadorPacientes(INDICE, tamanoLote).importar(reader);
+
+        } catch (IOException e) {
+            throw new ServiceException("importar pacientes", "no se pudo leer el archivo: " + e.getMessage(), e);
+        } catch (RepositoryException e) {
+            throw new ServiceException("importar pacientes", "error en la persistencia", e);
+        } catch (Exception e) {
+            throw new ServiceException("importar pacientes", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    @Override
+    public long exportarPacientes(Path archivo, FormatoExportacion formato) throws ServiceException {
+        if (archivo == null || formato == null) {
+            throw new ServiceException("El archivo y el formato son obligatorios");
+        }
+
+        try (EscritorRegistros escritor = new EscritorRegistros(archivo, formato, COLUMNAS_EXPORTACION)) {
+            IPacienteRepository repository = new PacienteRepository(JpaUtil.getReadOnlyEntityManager());
+            return repository.exportarTodos(p -> {
+                try {
+                    escritor.escribir(p.getId(), p.getNombre(), p.getApellido(), p.getDni(), p.getEmail(),
+                            p.getFechaNacimiento(), p.getTipoSangre(), p.getSeguroMedico());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+        } catch (IOException | UncheckedIOException e) {
+            throw new ServiceException("exportar pacientes", "no se pudo escribir el archivo: " + e.getMessage(), e);
+        } catch (RepositoryException e) {
+            throw new ServiceException("exportar pacientes", "error al leer los pacientes", e);
+        } catch (Exception e) {
+            throw new ServiceException("exportar pacientes", "error inesperado: " + e.getMessage(), e);
+        } finally {
+            JpaUtil.closeEntityManager();
+        }
+    }
+
+    static void validarDatosPaciente(PacienteDTO pacienteDTO) throws ServiceException {
         if (pacienteDTO == null) {
             throw new ServiceException("Los datos del paciente no pueden ser nulos");
         }
@@ -293,11 +518,31 @@ public class PacienteService implements IPacienteService {
             throw new ServiceException("La fecha de nacimiento es obligatoria");
         }
 
-        if (pacienteDTO.getEmail() != null && !pacienteDTO.getEmail().isEmpty()) {
-            if (!pacienteDTO.getEmail().matches(
-                    "^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$")) {
-                throw new ServiceException("El formato del email no es válido");
-            }
+        if (!Regla.NOMBRE.valida(pacienteDTO.getNombre())) {
+            throw new ServiceException("El formato del nombre no es válido");
+        }
+
+        if (!Regla.NOMBRE.valida(pacienteDTO.getApellido())) {
+            throw new ServiceException("El formato del apellido no es válido");
+        }
+
+        if (!Regla.DNI.valida(pacienteDTO.getDni())) {
+            throw new ServiceException("El DNI debe tener de 5 a 20 letras mayúsculas o dígitos");
+        }
+
+        if (pacienteDTO.getEmail() != null && !pacienteDTO.getEmail().isEmpty()
+                && !Regla.EMAIL.valida(pacienteDTO.getEmail())) {
+            throw new ServiceException("El formato del email no es válido");
+        }
+
+        if (pacienteDTO.getTipoSangre() != null && !pacienteDTO.getTipoSangre().isEmpty()
+                && !Regla.TIPO_SANGRE.valida(pacienteDTO.getTipoSangre())) {
+            throw new ServiceException("El tipo de sangre no es válido");
+        }
+
+        if (pacienteDTO.getSeguroMedico() != null && !pacienteDTO.getSeguroMedico().isEmpty()
+                && !Regla.TEXTO_CORTO.valida(pacienteDTO.getSeguroMedico())) {
+            throw new ServiceException("El seguro médico no puede pasar de 100 caracteres");
         }
     }
 
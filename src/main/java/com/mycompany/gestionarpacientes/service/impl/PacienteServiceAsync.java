@@ -0,0 +1,106 @@
+package com.mycompany.gestionarpacientes.service.impl;
+
+import com.mycompany.gestionarpacientes.dto.FormatoExportacion;
+import com.mycompany.gestionarpacientes.dto.MapaBloquesDTO;
+import com.mycompany.gestionarpacientes.dto.PacienteDTO;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
+import com.mycompany.gestionarpacientes.dto.ResultadoImportacionDTO;
+import com.mycompany.gestionarpacientes.service.IPacienteService;
+import com.mycompany.gestionarpacientes.service.IPacienteServiceAsync;
+import com.mycompany.gestionarpacientes.util.AsyncExecutor;
+import com.mycompany.gestionarpacientes.util.ServicioMedido;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Implementación asincrona del servicio de gestión de pacientes, delega en el
+ * servicio sincrono y ejecuta cada llamada en un hilo virtual
+ *
+ * @author gatog
+ */
+public class PacienteServiceAsync implements IPacienteServiceAsync {
+
+    private final IPacienteService service;
+    private final Executor executor;
+
+    public PacienteServiceAsync() {
+        this(ServicioMedido.medir(IPacienteService.class, new PacienteService()), AsyncExecutor.get());
+    }
+
+    public PacienteServiceAsync(IPacienteService service, Executor executor) {
+        this.service = service;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<PacienteDTO> registrarPacienteAsync(PacienteDTO pacienteDTO) {
+        return CompletableFuture.supplyAsync(() -> service.registrarPaciente(pacienteDTO), executor);
+    }
+
+    @Override
+    public CompletableFuture<PacienteDTO> actualizarPacienteAsync(PacienteDTO pacienteDTO) {
+        return CompletableFuture.supplyAsync(() -> service.actualizarPaciente(pacienteDTO), executor);
+    }
+
+    @Override
+    public CompletableFuture<PacienteDTO> eliminarPacienteAsync(Long id) {
+        return CompletableFuture.supplyAsync(() -> service.eliminarPaciente(id), executor);
+    }
+
+    @Override
+    public CompletableFuture<PacienteDTO> buscarPacientePorIdAsync(Long id) {
+        return CompletableFuture.supplyAsync(() -> service.buscarPacientePorId(id), executor);
+    }
+
+    @Override
+    public CompletableFuture<PacienteDTO> buscarPacientePorDniAsync(String dni) {
+        return CompletableFuture.supplyAsync(() -> service.buscarPacientePorDni(dni), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<PacienteDTO>> buscarPacientesPorNombreAsync(String nombre, int limit, int offset) {
+        return CompletableFuture.supplyAsync(() -> service.buscarPacientesPorNombre(nombre, limit, offset), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<PacienteDTO>> buscarPacientesPorTipoSeguroAsync(String tipoSeguro, int limit, int offset) {
+        return CompletableFuture.supplyAsync(() -> service.buscarPacientesPorTipoSeguro(tipoSeguro, limit, offset), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<PacienteDTO>> listarTodosPacientesAsync(int limit, int offset) {
+        return CompletableFuture.supplyAsync(() -> service.listarTodosPacientes(limit, offset), executor);
+    }
+
+    @Override
+    public CompletableFuture<Long> contarPacientesAsync() {
+        return CompletableFuture.supplyAsync(service::contarPacientes, executor);
+    }
+
+    @Override
+    public CompletableFuture<PaginaDTO<PacienteDTO>> listarPacientesPorCursorAsync(String cursor, int limit) {
+        return CompletableFuture.supplyAsync(() -> service.listarPacientesPorCursor(cursor, limit), executor);
+    }
+
+    @Override
+    public CompletableFuture<MapaBloquesDTO> mapearBloquesPacientesAsync(int filasPorBloque) {
+        return CompletableFuture.supplyAsync(() -> service.mapearBloquesPacientes(filasPorBloque), executor);
+    }
+
+    @Override
+    public CompletableFuture<PaginaDTO<PacienteDTO>> buscarPacientesPorNombreCursorAsync(String nombre, String cursor, int limit) {
+        return CompletableFuture.supplyAsync(() -> service.buscarPacientesPorNombreCursor(nombre, cursor, limit), executor);
+    }
+
+    @Override
+    public CompletableFuture<ResultadoImportacionDTO> importarPacientesAsync(Path archivo, int tamanoLote) {
+        return CompletableFuture.supplyAsync(() -> service.importarPacientes(archivo, tamanoLote), executor);
+    }
+
+    @Override
+    public CompletableFuture<Long> exportarPacientesAsync(Path archivo, FormatoExportacion formato) {
+        return CompletableFuture.supplyAsync(() -> service.exportarPacientes(archivo, formato), executor);
+    }
+}
@@ -0,0 +1,49 @@
+package com.mycompany.gestionarpacientes.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * clase que concentra el executor de hilos virtuales donde corren las llamadas
+ * asincronas a los servicios, cada tarea tiene su propio hilo asi que el
+ * EntityManager por hilo de JpaUtil no se comparte entre tareas
+ *
+ * @author gatog
+ */
+public class AsyncExecutor {
+
+    private static volatile ExecutorService executor;
+
+    private AsyncExecutor() {
+    }
+
+    /**
+     * obtiene el executor compartido, creandolo la primera vez que se usa
+     *
+     * @return executor de un hilo virtual por tarea
+     */
+    public static ExecutorService get() {
+        ExecutorService ex = AsyncExecutor.executor;
+        if (ex == null) {
+            synchronized (AsyncExecutor.class) {
+                ex = AsyncExecutor.executor;
+                if (ex == null) {
+                    AsyncExecutor.executor = ex = Executors.newVirtualThreadPerTaskExecutor();
+                }
+            }
+        }
+        return ex;
+    }
+
+    /**
+     * deja de aceptar tareas, las que estan corriendo terminan normalmente
+     */
+    public static void shutdown() {
+        synchronized (AsyncExecutor.class) {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+}
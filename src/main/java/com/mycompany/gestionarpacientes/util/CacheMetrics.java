@@ -0,0 +1,89 @@
+package com.mycompany.gestionarpacientes.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * clase que expone las estadisticas de la cache de segundo nivel, los aciertos
+ * y fallos se cuentan desde que se creo el EntityManagerFactory
+ *
+ * @author gatog
+ */
+public class CacheMetrics {
+
+    private CacheMetrics() {
+    }
+
+    /**
+     * obtiene las estadisticas de cada region de la cache de segundo nivel
+     *
+     * @return una entrada por region configurada
+     */
+    public static List<RegionMetrics> porRegion() {
+        Statistics statistics = getStatistics();
+        List<RegionMetrics> regiones = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics stats = statistics.getDomainDataRegionStatistics(region);
+            if (stats != null) {
+                // JCache no expone el numero de entradas, Hibernate devuelve un valor negativo
+                long enMemoria = stats.getElementCountInMemory();
+                regiones.add(new RegionMetrics(
+                        region,
+                        stats.getHitCount(),
+                        stats.getMissCount(),
+                        stats.getPutCount(),
+                        enMemoria < 0 ? -1 : enMemoria));
+            }
+        }
+        return regiones;
+    }
+
+    /**
+     * obtiene los totales de todas las regiones
+     *
+     * @return estadisticas sumadas de la cache de segundo nivel
+     */
+    public static RegionMetrics total() {
+        Statistics statistics = getStatistics();
+        return new RegionMetrics(
+                "total",
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                -1);
+    }
+
+    /**
+     * reinicia todos los contadores de Hibernate
+     */
+    public static void reiniciar() {
+        getStatistics().clear();
+    }
+
+    static Statistics getStatistics() {
+        return JpaUtil.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * estadisticas de una region de la cache
+     *
+     * @param region nombre de la region
+     * @param aciertos lecturas resueltas por la cache
+     * @param fallos lecturas que tuvieron que ir a la base de datos
+     * @param escrituras entradas agregadas a la cache
+     * @param elementosEnMemoria entradas actuales, -1 si no aplica
+     */
+    public record RegionMetrics(String region, long aciertos, long fallos, long escrituras, long elementosEnMemoria) {
+
+        /**
+         * @return proporcion de aciertos entre 0 y 1
+         */
+        public double tasaAciertos() {
+            long total = aciertos + fallos;
+            return total == 0 ? 0.0 : (double) aciertos / total;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.mycompany.gestionarpacientes.util;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import javax.sql.DataSource;
+
+/**
+ * clase que administra el pool de conexiones JDBC que usa el
+ * EntityManagerFactory, la configuracion se lee de database.properties, luego
+ * de database-&lt;perfil&gt;.properties si el perfil activo no es el de MySQL,
+ * y cada valor puede sobrescribirse con una propiedad del sistema
+ *
+ * @author gatog
+ */
+public class ConnectionPool {
+
+    private static final String CONFIG_FILE = "database.properties";
+    private static final String CONFIG_PERFIL = "database-%s.properties";
+    private static final String POOL_NAME = "RecetasClinicasPool";
+
+    private static volatile HikariDataSource dataSource;
+    private static volatile boolean conexionesSoloLectura;
+    private static volatile boolean intercalacionInsensible;
+    private static volatile Map<String, String> propiedadesHibernate = Map.of();
+
+    private ConnectionPool() {
+    }
+
+    /**
+     * obtiene el DataSource del pool, creandolo la primera vez que se usa
+     *
+     * @return DataSource con pool de conexiones
+     */
+    public static DataSource getDataSource() {
+        HikariDataSource ds = ConnectionPool.dataSource;
+        if (ds == null) {
+            synchronized (ConnectionPool.class) {
+                ds = ConnectionPool.dataSource;
+                if (ds == null) {
+                    try {
+                        Properties props = cargarPropiedades();
+                        propiedadesHibernate = extraerPropiedadesHibernate(props);
+                        ConnectionPool.dataSource = ds = new HikariDataSource(crearConfiguracion(props));
+                    } catch (Exception e) {
+                        throw new RuntimeException("No se pudo crear el pool de conexiones", e);
+                    }
+                }
+            }
+        }
+        return ds;
+    }
+
+    /**
+     * indica si las consultas de solo lectura deben marcar la conexion JDBC
+     * como read-only, con una URL jdbc:mysql:replication:// el driver las envia
+     * a una replica
+     *
+     * @return true si se deben usar conexiones de solo lectura
+     */
+    public static boolean usarConexionesSoloLectura() {
+        getDataSource();
+        return conexionesSoloLectura;
+    }
+
+    /**
+     * indica si las columnas de texto ignoran mayusculas y acentos al comparar
+     * y ordenar, como utf8mb4_0900_ai_ci en MySQL
+     *
+     * @return false si la base compara las cadenas de forma binaria
+     */
+    public static boolean usarIntercalacionInsensible() {
+        getDataSource();
+        return intercalacionInsensible;
+    }
+
+    /**
+     * propiedades hibernate.* y jakarta.persistence.* del archivo del perfil,
+     * se aplican al crear el EntityManagerFactory
+     *
+     * @return propiedades del perfil activo, vacio si no define ninguna
+     */
+    public static Map<String, String> getPropiedadesHibernate() {
+        getDataSource();
+        return propiedadesHibernate;
+    }
+
+    /**
+     * obtiene una foto del estado actual del pool
+     *
+     * @return metricas del pool, todas en cero si el pool no se ha creado
+     */
+    public static PoolMetrics getMetrics() {
+        HikariDataSource ds = ConnectionPool.dataSource;
+        if (ds == null || ds.isClosed()) {
+            return new PoolMetrics(0, 0, 0, 0, 0, 0);
+        }
+        HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+        if (pool == null) {
+            return new PoolMetrics(0, 0, 0, 0, ds.getMinimumIdle(), ds.getMaximumPoolSize());
+        }
+        return new PoolMetrics(
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getThreadsAwaitingConnection(),
+                pool.getTotalConnections(),
+                ds.getMinimumIdle(),
+                ds.getMaximumPoolSize());
+    }
+
+    /**
+     * cierra todas las conexiones del pool
+     */
+    public static void shutdown() {
+        synchronized (ConnectionPool.class) {
+            if (dataSource != null) {
+                dataSource.close();
+                dataSource = null;
+            }
+        }
+    }
+
+    private static HikariConfig crearConfiguracion(Properties props) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(POOL_NAME);
+        config.setJdbcUrl(props.getProperty("db.url"));
+        config.setUsername(props.getProperty("db.user"));
+        config.setPassword(props.getProperty("db.password"));
+        if (props.getProperty("db.driver") != null) {
+            config.setDriverClassName(props.getProperty("db.driver"));
+        }
+
+        config.setMinimumIdle(entero(props, "pool.minIdle", 2));
+        config.setMaximumPoolSize(entero(props, "pool.maxSize", 10));
+        config.setIdleTimeout(largo(props, "pool.idleTimeoutMs", 300_000L));
+        config.setMaxLifetime(largo(props, "pool.maxLifetimeMs", 1_800_000L));
+        config.setConnectionTimeout(largo(props, "pool.connectionTimeoutMs", 10_000L));
+        config.setLeakDetectionThreshold(largo(props, "pool.leakDetectionMs", 0L));
+        conexionesSoloLectura = Boolean.parseBoolean(props.getProperty("db.readOnlyConnections", "true"));
+        intercalacionInsensible = Boolean.parseBoolean(props.getProperty("db.intercalacionInsensible", "true"));
+
+        // Hibernate maneja el autocommit al iniciar cada transaccion
+        config.setAutoCommit(true);
+        config.setRegisterMbeans(true);
+        config.setMetricsTrackerFactory(Metricas.trackerPool());
+        return config;
+    }
+
+    private static Properties cargarPropiedades() throws IOException {
+        Properties props = new Properties();
+        cargar(props, CONFIG_FILE);
+        String perfil = JpaUtil.getPerfil();
+        if (!JpaUtil.PERFIL_MYSQL.equals(perfil)) {
+            cargar(props, String.format(CONFIG_PERFIL, perfil));
+        }
+        for (String nombre : System.getProperties().stringPropertyNames()) {
+            if (nombre.startsWith("db.") || nombre.startsWith("pool.")) {
+                props.setProperty(nombre, System.getProperty(nombre));
+            }
+        }
+        return props;
+    }
+
+    private static void cargar(Properties props, String archivo) throws IOException {
+        try (InputStream in = ConnectionPool.class.getClassLoader().getResourceAsStream(archivo)) {
+            if (in == null) {
+                throw new IOException("no se encontro " + archivo + " en el classpath");
+            }
+            props.load(in);
+        }
+    }
+
+    private static Map<String, String> extraerPropiedadesHibernate(Properties props) {
+        Map<String, String> hibernate = new HashMap<>();
+        for (String nombre : props.stringPropertyNames()) {
+            if (nombre.startsWith("hibernate.") || nombre.startsWith("jakarta.persistence.")) {
+                hibernate.put(nombre, props.getProperty(nombre));
+            }
+        }
+        return Map.copyOf(hibernate);
+    }
+
+    private static int entero(Properties props, String nombre, int porDefecto) {
+        String valor = props.getProperty(nombre);
+        return valor == null || valor.isBlank() ? porDefecto : Integer.parseInt(valor.trim());
+    }
+
+    private static long largo(Properties props, String nombre, long porDefecto) {
+        String valor = props.getProperty(nombre);
+        return valor == null || valor.isBlank() ? porDefecto : Long.parseLong(valor.trim());
+    }
+
+    /**
+     * estado del pool en un instante dado
+     *
+     * @param activas conexiones prestadas a algun hilo
+     * @param ociosas conexiones abiertas esperando ser usadas
+     * @param enEspera hilos bloqueados esperando una conexion
+     * @param total conexiones abiertas en total
+     * @param minimoOciosas tamano minimo configurado
+     * @param maximo tamano maximo configurado
+     */
+    public record PoolMetrics(int activas, int ociosas, int enEspera, int total, int minimoOciosas, int maximo) {
+    }
+}
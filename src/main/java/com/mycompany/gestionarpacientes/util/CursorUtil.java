@@ -0,0 +1,61 @@
+package com.mycompany.gestionarpacientes.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * clase que codifica y decodifica los cursores de paginacion por llave
+ * (nombre, id), el cursor apunta a la ultima fila entregada de modo que la
+ * siguiente pagina empieza justo despues de ella
+ *
+ * @author gatog
+ */
+public class CursorUtil {
+
+    private static final char SEPARADOR = ':';
+
+    private CursorUtil() {
+    }
+
+    /**
+     * genera el cursor que apunta a la fila indicada
+     *
+     * @param nombre nombre de la ultima fila entregada
+     * @param id id de la ultima fila entregada
+     * @return cursor opaco
+     */
+    public static String codificar(String nombre, Long id) {
+        String valor = id + String.valueOf(SEPARADOR) + nombre;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * obtiene la posicion a la que apunta un cursor
+     *
+     * @param cursor cursor generado por codificar
+     * @return posicion del cursor
+     * @throws IllegalArgumentException si el cursor no es valido
+     */
+    public static Posicion decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.indexOf(SEPARADOR);
+            if (separador <= 0) {
+                throw new IllegalArgumentException("cursor inválido");
+            }
+            Long id = Long.valueOf(valor.substring(0, separador));
+            return new Posicion(valor.substring(separador + 1), id);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("cursor inválido: " + cursor, e);
+        }
+    }
+
+    /**
+     * llave (nombre, id) de la ultima fila entregada
+     *
+     * @param nombre nombre de la fila
+     * @param id id de la fila
+     */
+    public record Posicion(String nombre, Long id) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.mycompany.gestionarpacientes.util;
+
+import com.mycompany.gestionarpacientes.dto.FormatoExportacion;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * escribe registros como CSV o JSON Lines directamente sobre un FileChannel,
+ * cada linea se codifica en UTF-8 dentro de un buffer directo que se vacia al
+ * canal cuando se llena, la memoria usada no depende del numero de registros
+ *
+ * @author gatog
+ */
+public class EscritorRegistros implements Closeable {
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private final FileChannel canal;
+    private final FormatoExportacion formato;
+    private final String[] columnas;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+    private final StringBuilder linea = new StringBuilder(256);
+    private long registros = 0;
+
+    /**
+     * crea o reemplaza el archivo, en CSV escribe la linea de encabezado
+     *
+     * @param archivo archivo de destino
+     * @param formato formato de las lineas
+     * @param columnas nombres de las columnas en el orden de los valores
+     * @throws IOException si no se puede abrir el archivo
+     */
+    public EscritorRegistros(Path archivo, FormatoExportacion formato, String... columnas) throws IOException {
+        this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.formato = formato;
+        this.columnas = columnas.clone();
+        if (formato == FormatoExportacion.CSV) {
+            linea.setLength(0);
+            for (int i = 0; i < columnas.length; i++) {
+                if (i > 0) {
+                    linea.append(',');
+                }
+                agregarCsv(columnas[i]);
+            }
+            terminarLinea();
+        }
+    }
+
+    /**
+     * escribe un registro, los valores van en el orden de las columnas y null
+     * se escribe como campo vacio en CSV o null en JSON
+     *
+     * @param valores valores del registro
+     * @throws IOException si falla la escritura
+     */
+    public void escribir(Object... valores) throws IOException {
+        if (valores.length != columnas.length) {
+            throw new IllegalArgumentException("se esperaban " + columnas.length + " valores y llegaron " + valores.length);
+        }
+        linea.setLength(0);
+        if (formato == FormatoExportacion.CSV) {
+            for (int i = 0; i < valores.length; i++) {
+                if (i > 0) {
+                    linea.append(',');
+                }
+                if (valores[i] != null) {
+                    agregarCsv(valores[i].toString());
+                }
+            }
+        } else {
+            linea.append('{');
+            for (int i = 0; i < valores.length; i++) {
+                if (i > 0) {
+                    linea.append(',');
+                }
+                agregarJson(columnas[i]);
+                linea.append(':');
+                Object valor = valores[i];
+                if (valor == null || valor instanceof Number || valor instanceof Boolean) {
+                    linea.append(valor);
+                } else {
+                    agregarJson(valor.toString());
+                }
+            }
+            linea.append('}');
+        }
+        terminarLinea();
+        registros++;
+    }
+
+    /**
+     * @return registros escritos sin contar el encabezado
+     */
+    public long getRegistros() {
+        return registros;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            vaciar();
+        } finally {
+            canal.close();
+        }
+    }
+
+    private void agregarCsv(String valor) {
+        boolean comillas = false;
+        for (int i = 0; i < valor.length() && !comillas; i++) {
+            char c = valor.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            linea.append(valor);
+            return;
+        }
+        linea.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                linea.append('"');
+            }
+            linea.append(c);
+        }
+        linea.append('"');
+    }
+
+    private void agregarJson(String valor) {
+        linea.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> linea.append("\\\"");
+                case '\\' -> linea.append("\\\\");
+                case '\n' -> linea.append("\\n");
+                case '\r' -> linea.append("\\r");
+                case '\t' -> linea.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        linea.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        linea.append(c);
+                    }
+                }
+            }
+        }
+        linea.append('"');
+    }
+
+    private void terminarLinea() throws IOException {
+        linea.append('\n');
+        CharBuffer caracteres = CharBuffer.wrap(linea);
+        while (true) {
+            CoderResult resultado = encoder.encode(caracteres, buffer, false);
+            if (resultado.isOverflow()) {
+                vaciar();
+            } else if (resultado.isUnderflow()) {
+                return;
+            } else {
+                resultado.throwException();
+            }
+        }
+    }
+
+    private void vaciar() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+}
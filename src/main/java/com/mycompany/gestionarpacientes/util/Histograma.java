@@ -0,0 +1,140 @@
+package com.mycompany.gestionarpacientes.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * histograma de latencias sin bloqueos: registrar un valor cuesta un calculo
+ * de bits y tres incrementos atomicos. Los valores menores a 16 tienen cubeta
+ * propia y los demas se agrupan en 8 cubetas por potencia de dos, asi el
+ * percentil reportado se equivoca a lo mas en 12.5%
+ *
+ * @author gatog
+ */
+public class Histograma {
+
+    private static final int LINEALES = 16;
+    private static final int SUBCUBETAS_BITS = 3;
+    private static final int SUBCUBETAS = 1 << SUBCUBETAS_BITS;
+    private static final int CUBETAS = LINEALES + (63 - 4) * SUBCUBETAS;
+
+    private final String nombre;
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder cuenta = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    public Histograma(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * registra un valor, los negativos cuentan como cero
+     *
+     * @param valor duracion en nanosegundos u otra unidad entera
+     */
+    public void registrar(long valor) {
+        long v = Math.max(valor, 0);
+        cubetas.incrementAndGet(cubeta(v));
+        cuenta.increment();
+        suma.add(v);
+        maximo.accumulate(v);
+    }
+
+    /**
+     * cuenta una llamada que termino con excepcion, su duracion se registra
+     * aparte con {@link #registrar(long)}
+     */
+    public void registrarError() {
+        errores.increment();
+    }
+
+    /**
+     * obtiene una foto de los contadores, no es atomica respecto a los hilos
+     * que siguen registrando pero cada valor es consistente por si mismo
+     *
+     * @return resumen con cuenta, media, percentiles y maximo
+     */
+    public Resumen resumen() {
+        long[] copia = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cubetas.get(i);
+            total += copia[i];
+        }
+        long n = cuenta.sum();
+        long max = maximo.get();
+        // el limite de la cubeta puede pasar del maximo real
+        return new Resumen(nombre, n, errores.sum(), n == 0 ? 0 : suma.sum() / n,
+                Math.min(percentil(copia, total, 0.50), max), Math.min(percentil(copia, total, 0.95), max),
+                Math.min(percentil(copia, total, 0.99), max), max);
+    }
+
+    /**
+     * pone todos los contadores en cero
+     */
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas.set(i, 0);
+        }
+        cuenta.reset();
+        suma.reset();
+        errores.reset();
+        maximo.reset();
+    }
+
+    static int cubeta(long v) {
+        if (v < LINEALES) {
+            return (int) v;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exponente - SUBCUBETAS_BITS)) & (SUBCUBETAS - 1);
+        return LINEALES + (exponente - 4) * SUBCUBETAS + sub;
+    }
+
+    static long limiteSuperior(int cubeta) {
+        if (cubeta < LINEALES) {
+            return cubeta;
+        }
+        int exponente = (cubeta - LINEALES) / SUBCUBETAS + 4;
+        int sub = (cubeta - LINEALES) % SUBCUBETAS;
+        long ancho = 1L << (exponente - SUBCUBETAS_BITS);
+        return ((SUBCUBETAS + sub) * ancho) + ancho - 1;
+    }
+
+    private static long percentil(long[] cubetas, long total, double p) {
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = (long) Math.ceil(total * p);
+        long acumulado = 0;
+        for (int i = 0; i < cubetas.length; i++) {
+            acumulado += cubetas[i];
+            if (acumulado >= objetivo) {
+                return limiteSuperior(i);
+            }
+        }
+        return limiteSuperior(cubetas.length - 1);
+    }
+
+    /**
+     * foto de un histograma, los tiempos en la unidad registrada
+     *
+     * @param nombre nombre del histograma
+     * @param cuenta valores registrados
+     * @param errores llamadas que terminaron con excepcion
+     * @param media promedio
+     * @param p50 mediana
+     * @param p95 percentil 95
+     * @param p99 percentil 99
+     * @param maximo valor mas alto registrado
+     */
+    public record Resumen(String nombre, long cuenta, long errores, long media, long p50, long p95, long p99, long maximo) {
+    }
+}
@@ -3,6 +3,10 @@ package com.mycompany.gestionarpacientes.util;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import java.util.HashMap;
+import java.util.Map;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
 
 
 /**
@@ -15,6 +19,15 @@ public class JpaUtil {
 
     private static final String PERSISTENCE_UNIT = "RecetasClinicasPU";
 
+    /**
+     * perfiles de persistencia, se elige con -Dapp.perfil o la variable de
+     * entorno APP_PERFIL; los perfiles H2 usan el modo de compatibilidad con
+     * MySQL y no necesitan un servidor
+     */
+    public static final String PERFIL_MYSQL = "mysql";
+    public static final String PERFIL_H2_MEMORIA = "h2-mem";
+    public static final String PERFIL_H2_ARCHIVO = "h2-file";
+
     private static volatile EntityManagerFactory emf;
     private static final ThreadLocal<EntityManager> threadLocal = new ThreadLocal<>();
 
@@ -22,7 +35,8 @@ public class JpaUtil {
     }
 
     /**
-     * obtiene el EntityManagerFactory Thread-safe con double-check locking
+     * obtiene el EntityManagerFactory Thread-safe con double-check locking,
+     * antes de crearlo aplica las migraciones pendientes del esquema
      *
      * @return EntityManagerFactory
      */
@@ -33,7 +47,10 @@ public class JpaUtil {
                 entityManagerFactory = JpaUtil.emf;
                 if (entityManagerFactory == null) {
                     try {
-                        JpaUtil.emf = entityManagerFactory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+                        MigradorEsquema.migrar(ConnectionPool.getDataSource());
+                        Map<String, Object> propiedades = new HashMap<>(ConnectionPool.getPropiedadesHibernate());
+                        propiedades.put("jakarta.persistence.nonJtaDataSource", ConnectionPool.getDataSource());
+                        JpaUtil.emf = entityManagerFactory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT, propiedades);
                     } catch (Exception e) {
                         throw new RuntimeException("No se pudo inicializar la conexión a la base de datos", e);
                     }
@@ -43,6 +60,31 @@ public class JpaUtil {
         return entityManagerFactory;
     }
 
+    /**
+     * obtiene el perfil de persistencia activo, primero de la propiedad del
+     * sistema app.perfil y luego de la variable de entorno APP_PERFIL
+     *
+     * @return nombre del perfil, mysql si no se indico ninguno
+     */
+    public static String getPerfil() {
+        String perfil = System.getProperty("app.perfil");
+        if (perfil == null || perfil.isBlank()) {
+            perfil = System.getenv("APP_PERFIL");
+        }
+        return perfil == null || perfil.isBlank() ? PERFIL_MYSQL : perfil.trim().toLowerCase();
+    }
+
+    /**
+     * indica si el EntityManagerFactory ya se creo y sigue abierto, no lo
+     * inicializa
+     *
+     * @return true si ya hay conexion con la base de datos
+     */
+    public static boolean estaIniciado() {
+        EntityManagerFactory entityManagerFactory = JpaUtil.emf;
+        return entityManagerFactory != null && entityManagerFactory.isOpen();
+    }
+
     /**
      * obtiene el EntityManager para el hilo actual
      *
@@ -57,6 +99,39 @@ public class JpaUtil {
         return em;
     }
 
+    /**
+     * indica si el hilo actual todavia tiene un EntityManager asignado, sirve
+     * para detectar llamadas que no pasaron por closeEntityManager
+     *
+     * @return true si hay un EntityManager en el ThreadLocal
+     */
+    public static boolean tieneEntityManager() {
+        return threadLocal.get() != null;
+    }
+
+    /**
+     * obtiene el EntityManager del hilo actual preparado para consultas que no
+     * escriben: la sesion no guarda snapshots para dirty checking, el flush es
+     * manual y la transaccion corre sobre una conexion JDBC de solo lectura.
+     * Si el hilo ya tiene una transaccion activa se respeta y se devuelve tal
+     * cual. La transaccion se descarta en closeEntityManager
+     *
+     * @return EntityManager de solo lectura
+     */
+    public static EntityManager getReadOnlyEntityManager() {
+        EntityManager em = getEntityManager();
+        if (!em.getTransaction().isActive()) {
+            Session session = em.unwrap(Session.class);
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            if (ConnectionPool.usarConexionesSoloLectura()) {
+                session.doWork(connection -> connection.setReadOnly(true));
+            }
+            em.getTransaction().begin();
+        }
+        return em;
+    }
+
     /**
      * metodo que cierra el EntityManager del hilo actual
      */
@@ -117,6 +192,7 @@ public class JpaUtil {
             if (emf != null && emf.isOpen()) {
                 emf.close();
             }
+            ConnectionPool.shutdown();
         } catch (Exception e) {
             throw new RuntimeException("No se pudo cerrar la conexión a la base de datos", e);
         }
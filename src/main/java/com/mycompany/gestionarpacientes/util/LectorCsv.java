@@ -0,0 +1,106 @@
+package com.mycompany.gestionarpacientes.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * lector de CSV que entrega un registro a la vez sin cargar el archivo en
+ * memoria, soporta campos entre comillas con comas, saltos de linea y comillas
+ * dobles escapadas ("")
+ *
+ * @author gatog
+ */
+public class LectorCsv implements Closeable {
+
+    private final BufferedReader reader;
+    private final char separador;
+    private final StringBuilder campo = new StringBuilder();
+    private long linea = 0;
+    private long lineaRegistro = 0;
+
+    public LectorCsv(Reader reader) {
+        this(reader, ',');
+    }
+
+    public LectorCsv(Reader reader, char separador) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, 64 * 1024);
+        this.separador = separador;
+    }
+
+    /**
+     * lee el siguiente registro, las lineas vacias se saltan
+     *
+     * @return campos del registro o null al final del archivo
+     * @throws IOException si falla la lectura o una comilla queda abierta
+     */
+    public String[] siguiente() throws IOException {
+        String texto;
+        do {
+            texto = reader.readLine();
+            if (texto == null) {
+                return null;
+            }
+            linea++;
+        } while (texto.isEmpty());
+        lineaRegistro = linea;
+
+        List<String> campos = new ArrayList<>();
+        campo.setLength(0);
+        boolean entreComillas = false;
+        int i = 0;
+        while (true) {
+            if (i == texto.length()) {
+                if (!entreComillas) {
+                    break;
+                }
+                // el campo entre comillas sigue en la siguiente linea
+                texto = reader.readLine();
+                if (texto == null) {
+                    throw new IOException("comilla sin cerrar en el registro de la linea " + lineaRegistro);
+                }
+                linea++;
+                campo.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = texto.charAt(i++);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i < texto.length() && texto.charAt(i) == '"') {
+                        campo.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString());
+        return campos.toArray(String[]::new);
+    }
+
+    /**
+     * @return linea del archivo donde empieza el ultimo registro leido
+     */
+    public long getLineaRegistro() {
+        return lineaRegistro;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
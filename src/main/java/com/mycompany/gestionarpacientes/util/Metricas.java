@@ -0,0 +1,159 @@
+package com.mycompany.gestionarpacientes.util;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.hibernate.stat.Statistics;
+
+/**
+ * registro en memoria de las metricas de la aplicacion: un histograma de
+ * latencia por nombre (metodos de servicio, espera y uso de conexiones) mas
+ * las estadisticas de Hibernate y del pool. Se consulta con
+ * {@link #resumen()} o se vuelca como texto con {@link #volcar()}
+ *
+ * @author gatog
+ */
+public class Metricas {
+
+    public static final String POOL_ESPERA = "pool.espera";
+    public static final String POOL_USO = "pool.uso";
+    public static final String POOL_CREACION = "pool.creacion";
+
+    private static final ConcurrentMap<String, Histograma> HISTOGRAMAS = new ConcurrentHashMap<>();
+
+    private Metricas() {
+    }
+
+    /**
+     * obtiene el histograma con ese nombre, lo crea la primera vez
+     *
+     * @param nombre nombre del histograma
+     * @return histograma compartido
+     */
+    public static Histograma histograma(String nombre) {
+        Histograma histograma = HISTOGRAMAS.get(nombre);
+        return histograma != null ? histograma : HISTOGRAMAS.computeIfAbsent(nombre, Histograma::new);
+    }
+
+    /**
+     * registra una duracion en el histograma indicado
+     *
+     * @param nombre nombre del histograma
+     * @param nanos duracion en nanosegundos
+     */
+    public static void registrar(String nombre, long nanos) {
+        histograma(nombre).registrar(nanos);
+    }
+
+    /**
+     * @return resumen de todos los histogramas ordenado por nombre, tiempos
+     * en nanosegundos
+     */
+    public static List<Histograma.Resumen> resumen() {
+        List<Histograma.Resumen> resumenes = new ArrayList<>(HISTOGRAMAS.size());
+        for (Histograma histograma : HISTOGRAMAS.values()) {
+            resumenes.add(histograma.resumen());
+        }
+        resumenes.sort(Comparator.comparing(Histograma.Resumen::nombre));
+        return resumenes;
+    }
+
+    /**
+     * @param nombre nombre del histograma
+     * @return resumen del histograma o null si no se ha registrado nada
+     */
+    public static Histograma.Resumen resumen(String nombre) {
+        Histograma histograma = HISTOGRAMAS.get(nombre);
+        return histograma == null ? null : histograma.resumen();
+    }
+
+    /**
+     * pone en cero los histogramas y, si ya se creo el EntityManagerFactory,
+     * las estadisticas de Hibernate
+     */
+    public static void reiniciar() {
+        HISTOGRAMAS.values().forEach(Histograma::reiniciar);
+        if (JpaUtil.estaIniciado()) {
+            CacheMetrics.reiniciar();
+        }
+    }
+
+    /**
+     * genera un reporte de texto con los histogramas, las estadisticas de
+     * Hibernate, la cache de segundo nivel y el pool de conexiones
+     *
+     * @return reporte listo para imprimir
+     */
+    public static String volcar() {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append(String.format(Locale.ROOT, "%-55s %9s %7s %9s %9s %9s %9s %9s%n",
+                "latencia (ms)", "llamadas", "errores", "media", "p50", "p95", "p99", "max"));
+        for (Histograma.Resumen r : resumen()) {
+            sb.append(String.format(Locale.ROOT, "%-55s %9d %7d %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    r.nombre(), r.cuenta(), r.errores(), ms(r.media()), ms(r.p50()), ms(r.p95()), ms(r.p99()), ms(r.maximo())));
+        }
+
+        if (JpaUtil.estaIniciado()) {
+            Statistics stats = CacheMetrics.getStatistics();
+            sb.append(String.format(Locale.ROOT, "%nhibernate: sentencias=%d consultas=%d cargas=%d fetch=%d colecciones=%d "
+                    + "inserts=%d updates=%d deletes=%d transacciones=%d%n",
+                    stats.getPrepareStatementCount(), stats.getQueryExecutionCount(), stats.getEntityLoadCount(),
+                    stats.getEntityFetchCount(), stats.getCollectionFetchCount(), stats.getEntityInsertCount(),
+                    stats.getEntityUpdateCount(), stats.getEntityDeleteCount(), stats.getTransactionCount()));
+            sb.append(String.format(Locale.ROOT, "consulta mas lenta: %d ms %s%n",
+                    stats.getQueryExecutionMaxTime(), stats.getQueryExecutionMaxTimeQueryString()));
+            CacheMetrics.RegionMetrics cache = CacheMetrics.total();
+            sb.append(String.format(Locale.ROOT, "cache L2: aciertos=%d fallos=%d escrituras=%d tasa=%.1f%%%n",
+                    cache.aciertos(), cache.fallos(), cache.escrituras(), cache.tasaAciertos() * 100));
+        }
+
+        ConnectionPool.PoolMetrics pool = ConnectionPool.getMetrics();
+        sb.append(String.format(Locale.ROOT, "pool: activas=%d ociosas=%d en espera=%d total=%d maximo=%d%n",
+                pool.activas(), pool.ociosas(), pool.enEspera(), pool.total(), pool.maximo()));
+        return sb.toString();
+    }
+
+    /**
+     * fabrica de trackers para HikariCP que registra la espera por una
+     * conexion, su tiempo de uso y su creacion; los timeouts cuentan como
+     * errores de la espera
+     *
+     * @return fabrica para HikariConfig.setMetricsTrackerFactory
+     */
+    static MetricsTrackerFactory trackerPool() {
+        return (poolName, poolStats) -> new IMetricsTracker() {
+            private final Histograma espera = histograma(POOL_ESPERA);
+            private final Histograma uso = histograma(POOL_USO);
+            private final Histograma creacion = histograma(POOL_CREACION);
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                espera.registrar(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                uso.registrar(elapsedBorrowedMillis * 1_000_000L);
+            }
+
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                creacion.registrar(connectionCreatedMillis * 1_000_000L);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                espera.registrarError();
+            }
+        };
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,322 @@
+package com.mycompany.gestionarpacientes.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import javax.sql.DataSource;
+
+/**
+ * aplica los scripts de db/migracion en orden de version antes de crear el
+ * EntityManagerFactory. Cada script aplicado queda en schema_version con su
+ * checksum; si el esquema ya esta al dia basta una consulta a esa tabla y no se
+ * revisa el catalogo. Una base creada por la version original (Hibernate en
+ * modo update) empieza sin schema_version: V1 no toca sus tablas y los scripts
+ * siguientes agregan lo que le falta.
+ *
+ * Si varias estaciones arrancan a la vez solo una aplica los scripts: la fila
+ * version 0 de schema_version sirve de bloqueo (SELECT ... FOR UPDATE en una
+ * segunda conexion, porque en MySQL cada DDL confirma la transaccion en curso)
+ * y las demas esperan y vuelven a leer las versiones aplicadas
+ *
+ * @author gatog
+ */
+public class MigradorEsquema {
+
+    private static final Logger LOGGER = Logger.getLogger(MigradorEsquema.class.getName());
+    private static final String CARPETA = "db/migracion/";
+    private static final String INDICE = CARPETA + "indice.txt";
+    private static final Pattern NOMBRE_SCRIPT = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final int VERSION_BLOQUEO = 0;
+
+    private static final String CREAR_TABLA_VERSION = "CREATE TABLE IF NOT EXISTS schema_version ("
+            + "version INTEGER NOT NULL PRIMARY KEY, "
+            + "descripcion VARCHAR(200) NOT NULL, "
+            + "checksum BIGINT NOT NULL, "
+            + "aplicada_en TIMESTAMP NOT NULL, "
+            + "duracion_ms BIGINT NOT NULL)";
+
+    private MigradorEsquema() {
+    }
+
+    /**
+     * lleva el esquema a la ultima version
+     *
+     * @param dataSource origen de las conexiones
+     * @return resultado con la version final y los scripts aplicados
+     * @throws IllegalStateException si un script aplicado cambio, si la base
+     * es de una version mas nueva que la aplicacion o si falla un script; las
+     * sentencias de un script que fallo antes del error quedan aplicadas
+     */
+    public static Resultado migrar(DataSource dataSource) {
+        long inicio = System.nanoTime();
+        List<Script> scripts = cargarScripts();
+        int ultima = scripts.isEmpty() ? 0 : scripts.get(scripts.size() - 1).version();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            Map<Integer, Long> aplicadas = leerAplicadas(connection);
+            if (aplicadas != null) {
+                verificar(scripts, aplicadas);
+                if (aplicadas.size() == scripts.size()) {
+                    LOGGER.log(Level.FINE, "esquema al dia en la version {0}", ultima);
+                    return registrar(inicio, new Resultado(ultima, 0));
+                }
+            }
+
+            try (Statement st = connection.createStatement()) {
+                st.execute(CREAR_TABLA_VERSION);
+            }
+            crearFilaBloqueo(connection);
+            try (Connection bloqueo = dataSource.getConnection()) {
+                bloqueo.setAutoCommit(false);
+                try {
+                    bloquear(bloqueo);
+                    // otra estacion pudo migrar mientras se esperaba el bloqueo
+                    aplicadas = leerAplicadas(connection);
+                    verificar(scripts, aplicadas);
+                    int aplicados = 0;
+                    for (Script script : scripts) {
+                        if (!aplicadas.containsKey(script.version())) {
+                            aplicar(connection, script);
+                            aplicados++;
+                        }
+                    }
+                    return registrar(inicio, new Resultado(ultima, aplicados));
+                } finally {
+                    bloqueo.rollback();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("no se pudo migrar el esquema: " + e.getMessage(), e);
+        }
+    }
+
+    private static Resultado registrar(long inicio, Resultado resultado) {
+        Metricas.registrar("arranque.migracion", System.nanoTime() - inicio);
+        return resultado;
+    }
+
+    /**
+     * @return version y checksum de cada script aplicado, null si todavia no
+     * existe schema_version
+     * @throws SQLException si la tabla existe pero no se pudo leer (permisos,
+     * conexion)
+     */
+    private static Map<Integer, Long> leerAplicadas(Connection connection) throws SQLException {
+        Map<Integer, Long> aplicadas = new HashMap<>();
+        try (Statement st = connection.createStatement();
+                ResultSet rs = st.executeQuery("SELECT version, checksum FROM schema_version WHERE version > " + VERSION_BLOQUEO)) {
+            while (rs.next()) {
+                aplicadas.put(rs.getInt(1), rs.getLong(2));
+            }
+            return aplicadas;
+        } catch (SQLException e) {
+            // el catalogo solo se consulta cuando la lectura falla
+            if (!existeTablaVersion(connection)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean existeTablaVersion(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String tabla = metaData.storesUpperCaseIdentifiers() ? "SCHEMA_VERSION" : "schema_version";
+        try (ResultSet rs = metaData.getTables(connection.getCatalog(), connection.getSchema(), tabla, new String[]{"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * inserta la fila de bloqueo si falta, si otra estacion la inserto al
+     * mismo tiempo se ignora la llave duplicada
+     */
+    private static void crearFilaBloqueo(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO schema_version "
+                + "(version, descripcion, checksum, aplicada_en, duracion_ms) "
+                + "SELECT ?, 'bloqueo de migracion', 0, ?, 0 FROM DUAL "
+                + "WHERE NOT EXISTS (SELECT 1 FROM schema_version WHERE version = ?)")) {
+            ps.setInt(1, VERSION_BLOQUEO);
+            ps.setTimestamp(2, Timestamp.from(Instant.now()));
+            ps.setInt(3, VERSION_BLOQUEO);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * toma el bloqueo de la fila version 0, se libera con el rollback de la
+     * conexion
+     */
+    private static void bloquear(Connection bloqueo) throws SQLException {
+        try (PreparedStatement ps = bloqueo.prepareStatement(
+                "SELECT version FROM schema_version WHERE version = ? FOR UPDATE")) {
+            ps.setInt(1, VERSION_BLOQUEO);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalStateException("no existe la fila de bloqueo de schema_version");
+                }
+            }
+        }
+    }
+
+    private static void verificar(List<Script> scripts, Map<Integer, Long> aplicadas) {
+        Map<Integer, Script> porVersion = new HashMap<>();
+        for (Script script : scripts) {
+            porVersion.put(script.version(), script);
+        }
+        for (Map.Entry<Integer, Long> aplicada : aplicadas.entrySet()) {
+            Script script = porVersion.get(aplicada.getKey());
+            if (script == null) {
+                throw new IllegalStateException("la base de datos tiene la version " + aplicada.getKey()
+                        + " que esta aplicacion no conoce");
+            }
+            if (script.checksum() != aplicada.getValue()) {
+                throw new IllegalStateException("el script " + script.recurso()
+                        + " cambio despues de aplicarse, los cambios deben ir en un script nuevo");
+            }
+        }
+    }
+
+    private static void aplicar(Connection connection, Script script) throws SQLException {
+        long inicio = System.nanoTime();
+        try (Statement st = connection.createStatement()) {
+            for (String sentencia : dividir(script.sql())) {
+                st.execute(sentencia);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("fallo el script " + script.recurso() + ": " + e.getMessage(), e);
+        }
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        guardarVersion(connection, script, ms);
+        LOGGER.log(Level.INFO, "aplicado {0} en {1} ms", new Object[]{script.recurso(), ms});
+    }
+
+    private static void guardarVersion(Connection connection, Script script, long ms) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO schema_version "
+                + "(version, descripcion, checksum, aplicada_en, duracion_ms) VALUES (?, ?, ?, ?, ?)")) {
+            ps.setInt(1, script.version());
+            ps.setString(2, script.descripcion());
+            ps.setLong(3, script.checksum());
+            ps.setTimestamp(4, Timestamp.from(Instant.now()));
+            ps.setLong(5, ms);
+            ps.executeUpdate();
+        }
+    }
+
+    private static List<Script> cargarScripts() {
+        List<Script> scripts = new ArrayList<>();
+        for (String linea : leerRecurso(INDICE).split("\n")) {
+            String nombre = linea.trim();
+            if (nombre.isEmpty() || nombre.startsWith("#")) {
+                continue;
+            }
+            Matcher m = NOMBRE_SCRIPT.matcher(nombre);
+            if (!m.matches()) {
+                throw new IllegalStateException("nombre de script invalido en " + INDICE + ": " + nombre);
+            }
+            int version = Integer.parseInt(m.group(1));
+            if (!scripts.isEmpty() && version <= scripts.get(scripts.size() - 1).version()) {
+                throw new IllegalStateException("las versiones de " + INDICE + " deben ir en orden creciente: " + nombre);
+            }
+            String sql = leerRecurso(CARPETA + nombre);
+            CRC32 crc = new CRC32();
+            crc.update(sql.getBytes(StandardCharsets.UTF_8));
+            scripts.add(new Script(version, m.group(2).replace('_', ' '), nombre, sql, crc.getValue()));
+        }
+        return scripts;
+    }
+
+    /**
+     * lee un recurso del classpath con saltos de linea normalizados, asi el
+     * checksum no cambia si el archivo se guarda con CRLF
+     */
+    private static String leerRecurso(String recurso) {
+        InputStream in = MigradorEsquema.class.getClassLoader().getResourceAsStream(recurso);
+        if (in == null) {
+            throw new IllegalStateException("no se encontro " + recurso + " en el classpath");
+        }
+        StringBuilder sb = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                sb.append(linea).append('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * separa un script en sentencias por punto y coma, ignorando los que estan
+     * dentro de comillas y los comentarios de linea --
+     */
+    static List<String> dividir(String sql) {
+        List<String> sentencias = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean enComillas = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (!enComillas && c == '-' && i + 1 < sql.length() && sql.charAt(i + 1) == '-') {
+                while (i < sql.length() && sql.charAt(i) != '\n') {
+                    i++;
+                }
+                actual.append('\n');
+                continue;
+            }
+            if (c == '\'') {
+                enComillas = !enComillas;
+            }
+            if (c == ';' && !enComillas) {
+                agregar(sentencias, actual);
+            } else {
+                actual.append(c);
+            }
+        }
+        agregar(sentencias, actual);
+        return sentencias;
+    }
+
+    private static void agregar(List<String> sentencias, StringBuilder actual) {
+        String sentencia = actual.toString().trim();
+        if (!sentencia.isEmpty()) {
+            sentencias.add(sentencia);
+        }
+        actual.setLength(0);
+    }
+
+    private record Script(int version, String descripcion, String recurso, String sql, long checksum) {
+    }
+
+    /**
+     * resultado de una migracion
+     *
+     * @param version version del esquema al terminar
+     * @param aplicados scripts ejecutados en esta llamada
+     */
+    public record Resultado(int version, int aplicados) {
+    }
+}
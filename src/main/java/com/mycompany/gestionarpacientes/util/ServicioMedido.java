@@ -0,0 +1,60 @@
+package com.mycompany.gestionarpacientes.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * proxy que mide cada llamada a una interfaz de servicio y la registra en
+ * {@link Metricas} con el nombre Interfaz.metodo, el histograma de cada metodo
+ * se resuelve una sola vez
+ *
+ * @author gatog
+ */
+public class ServicioMedido implements InvocationHandler {
+
+    private final Object destino;
+    private final String prefijo;
+    private final ConcurrentMap<Method, Histograma> histogramas = new ConcurrentHashMap<>();
+
+    private ServicioMedido(Object destino, String prefijo) {
+        this.destino = destino;
+        this.prefijo = prefijo;
+    }
+
+    /**
+     * envuelve un servicio para medir sus llamadas
+     *
+     * @param <T> interfaz del servicio
+     * @param interfaz interfaz que se expone
+     * @param destino implementacion real
+     * @return proxy que delega en destino
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T medir(Class<T> interfaz, T destino) {
+        return (T) Proxy.newProxyInstance(interfaz.getClassLoader(), new Class<?>[]{interfaz},
+                new ServicioMedido(destino, interfaz.getSimpleName() + "."));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(destino, args);
+        }
+        Histograma histograma = histogramas.computeIfAbsent(method,
+                m -> Metricas.histograma(prefijo + m.getName()));
+
+        long inicio = System.nanoTime();
+        try {
+            return method.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            histograma.registrarError();
+            throw e.getCause();
+        } finally {
+            histograma.registrar(System.nanoTime() - inicio);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.mycompany.gestionarpacientes.validacion;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * reglas de validacion compartidas por los formularios, los servicios y la
+ * importacion masiva. Cada regla guarda su expresion regular, que usan los
+ * formularios, y una revision caracter por caracter equivalente que es la que
+ * corre en {@link #valida(CharSequence)}, asi validar no crea objetos. EMAIL es
+ * la unica regla que sigue usando el patron y crea un Matcher corto por llamada
+ *
+ * @author gatog
+ */
+public enum Regla {
+    /**
+     * nombres, apellidos y especialidades: letras separadas por espacio o guion
+     */
+    NOMBRE("^(?=.{1,50}$)[a-zA-ZáéíóúÁÉÍÓÚñÑ]+(?:[\\s-][a-zA-ZáéíóúÁÉÍÓÚñÑ]+)*$", Regla::esNombre),
+    EMAIL("^(?=.{1,100}$)[a-zA-Z0-9._%+-]{1,25}@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$", null),
+    /**
+     * fecha en formato YYYY-MM-DD entre 1900 y 2099
+     */
+    FECHA("^(19|20)\\d{2}-(0[1-9]|1[0-2])-(0[1-9]|[12]\\d|3[01])$", Regla::esFecha),
+    DNI("^[A-Z0-9]{5,20}$", Regla::esDni),
+    TIPO_SANGRE("^(A|B|AB|O)[+-]$", Regla::esTipoSangre),
+    CEDULA("^CED-[0-9]{8}$", Regla::esCedula),
+    TEXTO_CORTO("^.{1,100}$", valor -> longitudSinSaltos(valor, 100)),
+    BIOGRAFIA("^[\\s\\S]{1,500}$", valor -> longitud(valor, 500)),
+    CONTRASENA("^[\\s\\S]{1,255}$", valor -> longitud(valor, 255));
+
+    private final String regex;
+    private final Pattern patron;
+    private final Predicate<CharSequence> revision;
+
+    Regla(String regex, Predicate<CharSequence> revision) {
+        this.regex = regex;
+        this.patron = Pattern.compile(regex);
+        this.revision = revision;
+    }
+
+    public String getRegex() {
+        return regex;
+    }
+
+    public Pattern getPatron() {
+        return patron;
+    }
+
+    /**
+     * revisa si el valor completo cumple la regla
+     *
+     * @param valor texto a validar
+     * @return true si cumple, false si no cumple o es null
+     */
+    public boolean valida(CharSequence valor) {
+        if (valor == null) {
+            return false;
+        }
+        if (revision != null) {
+            return revision.test(valor);
+        }
+        return patron.matcher(valor).matches();
+    }
+
+    private static boolean esNombre(CharSequence valor) {
+        int n = valor.length();
+        if (n == 0 || n > 50) {
+            return false;
+        }
+        // empieza y termina en letra y nunca hay dos separadores seguidos
+        boolean letraAnterior = false;
+        for (int i = 0; i < n; i++) {
+            char c = valor.charAt(i);
+            if (esLetra(c)) {
+                letraAnterior = true;
+            } else if (letraAnterior && esSeparador(c)) {
+                letraAnterior = false;
+            } else {
+                return false;
+            }
+        }
+        return letraAnterior;
+    }
+
+    private static boolean esLetra(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || "áéíóúÁÉÍÓÚñÑ".indexOf(c) >= 0;
+    }
+
+    /**
+     * espacios de \s sin los saltos de linea, que el limite de 50 con . ya
+     * excluye, o guion
+     */
+    private static boolean esSeparador(char c) {
+        return c == ' ' || c == '\t' || c == '\u000B' || c == '\f' || c == '-';
+    }
+
+    private static boolean esFecha(CharSequence valor) {
+        if (valor.length() != 10 || valor.charAt(4) != '-' || valor.charAt(7) != '-') {
+            return false;
+        }
+        int siglo = numero(valor, 0);
+        int anio = numero(valor, 2);
+        int mes = numero(valor, 5);
+        int dia = numero(valor, 8);
+        return (siglo == 19 || siglo == 20) && anio >= 0
+                && mes >= 1 && mes <= 12
+                && dia >= 1 && dia <= 31;
+    }
+
+    /**
+     * lee dos digitos ascii desde la posicion indicada, -1 si alguno no es
+     * digito
+     */
+    private static int numero(CharSequence valor, int desde) {
+        char decena = valor.charAt(desde);
+        char unidad = valor.charAt(desde + 1);
+        if (decena < '0' || decena > '9' || unidad < '0' || unidad > '9') {
+            return -1;
+        }
+        return (decena - '0') * 10 + (unidad - '0');
+    }
+
+    private static boolean esDni(CharSequence valor) {
+        int n = valor.length();
+        if (n < 5 || n > 20) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            char c = valor.charAt(i);
+            if (!((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean esTipoSangre(CharSequence valor) {
+        int n = valor.length();
+        if (n < 2 || n > 3) {
+            return false;
+        }
+        char signo = valor.charAt(n - 1);
+        if (signo != '+' && signo != '-') {
+            return false;
+        }
+        char grupo = valor.charAt(0);
+        if (n == 3) {
+            return grupo == 'A' && valor.charAt(1) == 'B';
+        }
+        return grupo == 'A' || grupo == 'B' || grupo == 'O';
+    }
+
+    private static boolean esCedula(CharSequence valor) {
+        if (valor.length() != 12 || valor.charAt(0) != 'C' || valor.charAt(1) != 'E'
+                || valor.charAt(2) != 'D' || valor.charAt(3) != '-') {
+            return false;
+        }
+        for (int i = 4; i < 12; i++) {
+            char c = valor.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * entre 1 y maximo caracteres contados como el patron, un par sustituto
+     * vale por uno
+     */
+    private static boolean longitud(CharSequence valor, int maximo) {
+        int n = valor.length();
+        if (n == 0) {
+            return false;
+        }
+        return n <= maximo || Character.codePointCount(valor, 0, n) <= maximo;
+    }
+
+    /**
+     * como {@link #longitud(CharSequence, int)} pero sin terminadores de linea,
+     * los mismos que excluye . en el patron
+     */
+    private static boolean longitudSinSaltos(CharSequence valor, int maximo) {
+        int n = valor.length();
+        for (int i = 0; i < n; i++) {
+            char c = valor.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return longitud(valor, maximo);
+    }
+}
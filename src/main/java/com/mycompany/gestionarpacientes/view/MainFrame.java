@@ -1,8 +1,20 @@
 package com.mycompany.gestionarpacientes.view;
 
+import com.mycompany.gestionarpacientes.util.Metricas;
 import com.mycompany.gestionarpacientes.view.panels.PanelGestionDoctores;
 import com.mycompany.gestionarpacientes.view.panels.PanelGestionPacientes;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.*;
 
 /**
@@ -12,11 +24,18 @@ import javax.swing.*;
  */
 public class MainFrame extends JFrame {
 
+    private static final Logger LOGGER = Logger.getLogger(MainFrame.class.getName());
+
+    // espera tras abrir la ventana antes de precargar las demás pestañas, y
+    // edad máxima de una precarga para usarla al abrir su pestaña
+    private static final int ESPERA_PRECARGA_MS = 1500;
+    private static final long VIGENCIA_PRECARGA_NANOS = 60_000_000_000L;
+
     private JTabbedPane tabbedPane;
-    private PanelGestionPacientes panelPacientes;
-    private PanelGestionDoctores panelDoctores;
+    private final List<PestanaPerezosa<?>> pestanas = new ArrayList<>();
 
     public MainFrame() {
+        long inicio = System.nanoTime();
         setTitle("Sistema de Gestión de Citas Médicas");
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
@@ -31,6 +50,7 @@ public class MainFrame extends JFrame {
         }
 
         initComponents();
+        Metricas.registrar("arranque.ventana", System.nanoTime() - inicio);
     }
 
     private void initComponents() {
@@ -54,13 +74,22 @@ public class MainFrame extends JFrame {
         UIManager.put("TabbedPane.foreground", Color.WHITE);
         UIManager.put("TabbedPane.contentAreaColor", new Color(30, 30, 48));
 
-        // Crear paneles
-        panelPacientes = new PanelGestionPacientes();
-        panelDoctores = new PanelGestionDoctores();
-
-        // Agregar pestañas con iconos (opcional)
-        tabbedPane.addTab("Pacientes", panelPacientes);
-        tabbedPane.addTab("Doctores", panelDoctores);
+        // Las pestañas se crean y cargan sus datos al seleccionarse por
+        // primera vez, las demás se precargan cuando la ventana ya está abierta
+        agregarPestana(new PestanaPerezosa<>("Pacientes",
+                PanelGestionPacientes::precargar, PanelGestionPacientes::new));
+        agregarPestana(new PestanaPerezosa<>("Doctores",
+                PanelGestionDoctores::precargar, PanelGestionDoctores::new));
+        tabbedPane.addChangeListener(e -> materializarSeleccionada());
+        materializarSeleccionada();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                Timer precarga = new Timer(ESPERA_PRECARGA_MS, evt -> precargarPestanas());
+                precarga.setRepeats(false);
+                precarga.start();
+            }
+        });
 
         // Personalizar la altura de las pestañas
         tabbedPane.setPreferredSize(new Dimension(getWidth(), getHeight() - 100));
@@ -72,6 +101,83 @@ public class MainFrame extends JFrame {
         panelPrincipal.add(panelPie, BorderLayout.SOUTH);
 
         setContentPane(panelPrincipal);
+        registrarAtajoMetricas(panelPrincipal);
+    }
+
+    private void agregarPestana(PestanaPerezosa<?> pestana) {
+        pestanas.add(pestana);
+        JPanel vacio = new JPanel();
+        vacio.setBackground(new Color(30, 30, 48));
+        tabbedPane.addTab(pestana.titulo, vacio);
+    }
+
+    private void materializarSeleccionada() {
+        int indice = tabbedPane.getSelectedIndex();
+        if (indice >= 0) {
+            PestanaPerezosa<?> pestana = pestanas.get(indice);
+            if (pestana.panel == null) {
+                tabbedPane.setComponentAt(indice, pestana.materializar());
+            }
+        }
+    }
+
+    private void precargarPestanas() {
+        for (PestanaPerezosa<?> pestana : pestanas) {
+            pestana.precargar();
+        }
+    }
+
+    /**
+     * pestaña que crea su panel la primera vez que se selecciona; si antes se
+     * precargaron sus datos y siguen vigentes, el panel los recibe y no repite
+     * la consulta. Solo se usa en el EDT
+     *
+     * @param <P> tipo de la precarga del panel
+     */
+    private static final class PestanaPerezosa<P> {
+
+        private final String titulo;
+        private final Supplier<P> precarga;
+        private final Function<P, JComponent> crear;
+        private P precargada;
+        private long precargadaEn;
+        private JComponent panel;
+
+        PestanaPerezosa(String titulo, Supplier<P> precarga, Function<P, JComponent> crear) {
+            this.titulo = titulo;
+            this.precarga = precarga;
+            this.crear = crear;
+        }
+
+        void precargar() {
+            if (panel == null && precargada == null) {
+                precargada = precarga.get();
+                precargadaEn = System.nanoTime();
+            }
+        }
+
+        JComponent materializar() {
+            long inicio = System.nanoTime();
+            P datos = precargada != null && inicio - precargadaEn < VIGENCIA_PRECARGA_NANOS ? precargada : null;
+            precargada = null;
+            panel = crear.apply(datos);
+            Metricas.registrar("arranque.pestana." + titulo.toLowerCase(), System.nanoTime() - inicio);
+            return panel;
+        }
+    }
+
+    /**
+     * Ctrl+Shift+M escribe en el log el reporte de metricas de la aplicacion
+     */
+    private void registrarAtajoMetricas(JComponent componente) {
+        KeyStroke atajo = KeyStroke.getKeyStroke(KeyEvent.VK_M, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK);
+        componente.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(atajo, "volcarMetricas");
+        componente.getActionMap().put("volcarMetricas", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                LOGGER.log(Level.INFO, "metricas:\n{0}", Metricas.volcar());
+            }
+        });
     }
 
     private JPanel crearPanelEncabezado() {
@@ -0,0 +1,57 @@
+package com.mycompany.gestionarpacientes.view;
+
+import java.awt.*;
+import javax.swing.*;
+
+/**
+ * ventana sin bordes que muestra el avance del arranque mientras se conecta la
+ * base de datos, se actualiza desde cualquier hilo
+ *
+ * @author gatog
+ */
+public class SplashArranque extends JWindow {
+
+    private final JProgressBar barra;
+    private final JLabel lblMensaje;
+
+    public SplashArranque() {
+        JPanel panel = new JPanel(new BorderLayout(0, 12));
+        panel.setBackground(new Color(47, 35, 72));
+        panel.setBorder(BorderFactory.createEmptyBorder(30, 40, 30, 40));
+
+        JLabel lblTitulo = new JLabel("Sistema de Gestión de Citas Médicas");
+        lblTitulo.setFont(new Font("Segoe UI", Font.BOLD, 22));
+        lblTitulo.setForeground(Color.WHITE);
+
+        lblMensaje = new JLabel("Iniciando...");
+        lblMensaje.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        lblMensaje.setForeground(new Color(158, 140, 185));
+
+        barra = new JProgressBar(0, 100);
+        barra.setForeground(new Color(59, 130, 246));
+        barra.setBackground(new Color(30, 30, 48));
+        barra.setBorderPainted(false);
+        barra.setPreferredSize(new Dimension(420, 8));
+
+        panel.add(lblTitulo, BorderLayout.NORTH);
+        panel.add(lblMensaje, BorderLayout.CENTER);
+        panel.add(barra, BorderLayout.SOUTH);
+
+        setContentPane(panel);
+        pack();
+        setLocationRelativeTo(null);
+    }
+
+    /**
+     * actualiza la barra y el mensaje, se puede llamar fuera del EDT
+     *
+     * @param porcentaje avance de 0 a 100
+     * @param mensaje paso actual
+     */
+    public void avanzar(int porcentaje, String mensaje) {
+        SwingUtilities.invokeLater(() -> {
+            barra.setValue(porcentaje);
+            lblMensaje.setText(mensaje);
+        });
+    }
+}
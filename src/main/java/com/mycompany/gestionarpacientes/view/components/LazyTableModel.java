@@ -0,0 +1,348 @@
+package com.mycompany.gestionarpacientes.view.components;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * modelo de tabla que conoce el total de filas pero solo guarda en memoria los
+ * bloques que se han mostrado, cada bloque se pide a la fuente cuando la tabla
+ * pinta una fila que no esta cargada y los bloques menos usados se descartan
+ *
+ * los bloques pedidos se cargan cuando la tabla deja de pedir bloques nuevos
+ * por ESPERA_MS y solo si siguen a la vista, asi al arrastrar la barra no se
+ * carga cada bloque por el que se paso. Hay a lo mas MAXIMO_EN_CURSO cargas a
+ * la vez y un bloque que falla se vuelve a pedir despues de una espera que se
+ * duplica en cada fallo
+ *
+ * todos los metodos deben llamarse desde el EDT
+ *
+ * @author gatog
+ * @param <T> tipo de cada fila
+ */
+public class LazyTableModel<T> extends AbstractTableModel {
+
+    /**
+     * origen de las filas del modelo
+     *
+     * @param <T> tipo de cada fila
+     */
+    public interface Fuente<T> {
+
+        /**
+         * @return numero total de filas
+         */
+        CompletableFuture<Long> contar();
+
+        /**
+         * carga un bloque de filas consecutivas
+         *
+         * @param desde indice de la primera fila, siempre es el inicio de un
+         * bloque
+         * @param cantidad numero de filas del bloque
+         * @return filas del bloque
+         */
+        CompletableFuture<List<T>> cargar(int desde, int cantidad);
+    }
+
+    private static final int ESPERA_MS = 80;
+    private static final int MAXIMO_EN_CURSO = 2;
+    private static final long REINTENTO_MINIMO_MS = 1_000;
+    private static final long REINTENTO_MAXIMO_MS = 30_000;
+
+    private final String[] columnas;
+    private final Function<T, Object[]> convertidor;
+    private final int tamanoBloque;
+    private final Map<Integer, Bloque<T>> bloques;
+    // bloques en carga y bloques pintados que esperan a que la vista se detenga
+    private final Set<Integer> pendientes = new HashSet<>();
+    private final Set<Integer> deseados = new LinkedHashSet<>();
+    private final Map<Integer, Fallo> fallidos = new HashMap<>();
+    private final Timer espera;
+
+    private Fuente<T> fuente;
+    private Consumer<Throwable> alError = e -> { };
+    private JTable tabla;
+    private int totalFilas = 0;
+    // cambia en cada recarga para descartar bloques pedidos antes
+    private int generacion = 0;
+
+    /**
+     * @param columnas nombres de las columnas
+     * @param convertidor convierte una fila en los valores de sus columnas
+     * @param tamanoBloque filas por bloque
+     * @param maximoBloques bloques que se mantienen en memoria
+     */
+    public LazyTableModel(String[] columnas, Function<T, Object[]> convertidor, int tamanoBloque, int maximoBloques) {
+        this.columnas = columnas.clone();
+        this.convertidor = convertidor;
+        this.tamanoBloque = tamanoBloque;
+        this.bloques = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Bloque<T>> eldest) {
+                // una lista fija se guarda completa
+                return fuente != null && size() > maximoBloques;
+            }
+        };
+        this.espera = new Timer(ESPERA_MS, e -> despachar());
+        this.espera.setRepeats(false);
+    }
+
+    /**
+     * indica la tabla que muestra el modelo, con ella solo se cargan los
+     * bloques que quedan a la vista
+     *
+     * @param tabla tabla que usa este modelo
+     */
+    public void setTabla(JTable tabla) {
+        this.tabla = tabla;
+    }
+
+    /**
+     * define la funcion que recibe los errores al cargar, la excepcion ya
+     * viene sin envolver en CompletionException
+     *
+     * @param alError se llama en el EDT
+     */
+    public void setAlError(Consumer<Throwable> alError) {
+        this.alError = alError;
+    }
+
+    /**
+     * descarta todos los bloques y vuelve a contar las filas de la fuente
+     *
+     * @param fuente origen de las filas
+     */
+    public void cargarDesde(Fuente<T> fuente) {
+        this.fuente = fuente;
+        int solicitud = reiniciar();
+        fuente.contar().whenComplete((total, error) -> SwingUtilities.invokeLater(() -> {
+            if (solicitud != generacion) {
+                return;
+            }
+            if (error != null) {
+                alError.accept(causa(error));
+                return;
+            }
+            totalFilas = (int) Math.min(total, Integer.MAX_VALUE);
+            fireTableDataChanged();
+        }));
+    }
+
+    /**
+     * muestra una lista fija de filas, por ejemplo el resultado de una
+     * busqueda
+     *
+     * @param filas filas a mostrar
+     */
+    public void mostrar(List<T> filas) {
+        this.fuente = null;
+        reiniciar();
+        for (int desde = 0, bloque = 0; desde < filas.size(); desde += tamanoBloque, bloque++) {
+            List<T> filasBloque = filas.subList(desde, Math.min(desde + tamanoBloque, filas.size()));
+            bloques.put(bloque, new Bloque<>(filasBloque, convertir(filasBloque)));
+        }
+        totalFilas = filas.size();
+        fireTableDataChanged();
+    }
+
+    /**
+     * vuelve a pedir las filas a la fuente actual
+     */
+    public void recargar() {
+        if (fuente != null) {
+            cargarDesde(fuente);
+        }
+    }
+
+    /**
+     * obtiene la fila indicada si esta cargada
+     *
+     * @param fila indice de la fila en el modelo
+     * @return la fila o null si su bloque aun no esta en memoria
+     */
+    public T getFila(int fila) {
+        if (fila < 0 || fila >= totalFilas) {
+            return null;
+        }
+        int bloque = fila / tamanoBloque;
+        Bloque<T> cargado = bloques.get(bloque);
+        if (cargado == null) {
+            solicitar(bloque);
+            return null;
+        }
+        int posicion = fila % tamanoBloque;
+        return posicion < cargado.filas().size() ? cargado.filas().get(posicion) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return totalFilas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnas.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnas[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int bloque = rowIndex / tamanoBloque;
+        Bloque<T> cargado = bloques.get(bloque);
+        if (cargado == null) {
+            solicitar(bloque);
+            return null;
+        }
+        int posicion = rowIndex % tamanoBloque;
+        return posicion < cargado.valores().length ? cargado.valores()[posicion][columnIndex] : null;
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return false;
+    }
+
+    private int reiniciar() {
+        generacion++;
+        bloques.clear();
+        pendientes.clear();
+        deseados.clear();
+        fallidos.clear();
+        espera.stop();
+        totalFilas = 0;
+        return generacion;
+    }
+
+    private void solicitar(int bloque) {
+        if (fuente == null || pendientes.contains(bloque)) {
+            return;
+        }
+        Fallo fallo = fallidos.get(bloque);
+        if (fallo != null && System.currentTimeMillis() < fallo.reintentarEn()) {
+            return;
+        }
+        if (deseados.add(bloque)) {
+            espera.restart();
+        }
+    }
+
+    /**
+     * carga los bloques deseados que siguen a la vista hasta llenar las
+     * cargas en curso, los demas se vuelven a pedir si se pintan otra vez
+     */
+    private void despachar() {
+        int[] visibles = bloquesVisibles();
+        if (visibles != null) {
+            deseados.removeIf(bloque -> bloque < visibles[0] || bloque > visibles[1]);
+        }
+        Iterator<Integer> siguientes = deseados.iterator();
+        while (siguientes.hasNext() && pendientes.size() < MAXIMO_EN_CURSO) {
+            int bloque = siguientes.next();
+            siguientes.remove();
+            if (!bloques.containsKey(bloque)) {
+                cargar(bloque);
+            }
+        }
+    }
+
+    private int[] bloquesVisibles() {
+        if (tabla == null || !tabla.isShowing() || totalFilas == 0) {
+            return null;
+        }
+        Rectangle vista = tabla.getVisibleRect();
+        int primera = tabla.rowAtPoint(vista.getLocation());
+        int ultima = tabla.rowAtPoint(new Point(vista.x, vista.y + vista.height - 1));
+        primera = primera < 0 ? 0 : primera;
+        ultima = ultima < 0 ? totalFilas - 1 : ultima;
+        return new int[]{primera / tamanoBloque, ultima / tamanoBloque};
+    }
+
+    private void cargar(int bloque) {
+        pendientes.add(bloque);
+
+        int solicitud = generacion;
+        int desde = bloque * tamanoBloque;
+        int cantidad = Math.min(tamanoBloque, totalFilas - desde);
+
+        fuente.cargar(desde, cantidad).whenComplete((filas, error) -> SwingUtilities.invokeLater(() -> {
+            if (solicitud != generacion) {
+                return;
+            }
+            pendientes.remove(bloque);
+            if (error != null) {
+                fallar(bloque, solicitud, causa(error));
+            } else {
+                fallidos.remove(bloque);
+                bloques.put(bloque, new Bloque<>(filas, convertir(filas)));
+                int hasta = Math.min(desde + filas.size(), totalFilas) - 1;
+                if (hasta >= desde) {
+                    fireTableRowsUpdated(desde, hasta);
+                }
+            }
+            despachar();
+        }));
+    }
+
+    /**
+     * no se vuelve a pedir el bloque hasta que pase la espera, al terminarla
+     * se repintan sus filas para que la tabla lo pida de nuevo si sigue a la
+     * vista. El error se informa solo la primera vez
+     */
+    private void fallar(int bloque, int solicitud, Throwable error) {
+        Fallo anterior = fallidos.get(bloque);
+        int intentos = anterior == null ? 1 : anterior.intentos() + 1;
+        long esperaMs = Math.min(REINTENTO_MINIMO_MS << Math.min(intentos - 1, 16), REINTENTO_MAXIMO_MS);
+        fallidos.put(bloque, new Fallo(intentos, System.currentTimeMillis() + esperaMs));
+
+        Timer reintento = new Timer((int) esperaMs, e -> {
+            int desde = bloque * tamanoBloque;
+            if (solicitud == generacion && desde < totalFilas) {
+                fireTableRowsUpdated(desde, Math.min(desde + tamanoBloque, totalFilas) - 1);
+            }
+        });
+        reintento.setRepeats(false);
+        reintento.start();
+        if (intentos == 1) {
+            alError.accept(error);
+        }
+    }
+
+    private Object[][] convertir(List<T> filas) {
+        Object[][] valores = new Object[filas.size()][];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = convertidor.apply(filas.get(i));
+        }
+        return valores;
+    }
+
+    // los valores de las celdas se calculan una vez por bloque y no en cada repintado
+    private record Bloque<T>(List<T> filas, Object[][] valores) {
+    }
+
+    private record Fallo(int intentos, long reintentarEn) {
+    }
+
+    private static Throwable causa(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -1,27 +1,48 @@
 package com.mycompany.gestionarpacientes.view.components;
 
+import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.Shape;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.geom.Rectangle2D;
 import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 
+/**
+ * panel con esquinas redondeadas independientes. El contorno se calcula una
+ * sola vez por tamaño y radios, y con el buffer activo el fondo se pinta en una
+ * imagen a la escala de la pantalla, asi cada repintado solo copia la imagen
+ *
+ * @author gatog
+ */
 public class PanelRound extends JPanel {
 
     private JLabel labelImagen;
     private ImageIcon iconoActual;
 
+    private Shape contorno;
+    private int contornoAncho = -1;
+    private int contornoAlto = -1;
+    private boolean usarBuffer = true;
+    private BufferedImage buffer;
+    private int bufferColor;
+    private double bufferEscalaX;
+    private double bufferEscalaY;
+
     public int getRoundTopLeft() {
         return roundTopLeft;
     }
 
     public void setRoundTopLeft(int roundTopLeft) {
         this.roundTopLeft = roundTopLeft;
+        invalidarContorno();
         repaint();
     }
 
@@ -31,6 +52,7 @@ public class PanelRound extends JPanel {
 
     public void setRoundTopRight(int roundTopRight) {
         this.roundTopRight = roundTopRight;
+        invalidarContorno();
         repaint();
     }
 
@@ -40,6 +62,7 @@ public class PanelRound extends JPanel {
 
     public void setRoundBottomLeft(int roundBottomLeft) {
         this.roundBottomLeft = roundBottomLeft;
+        invalidarContorno();
         repaint();
     }
 
@@ -49,6 +72,7 @@ public class PanelRound extends JPanel {
 
     public void setRoundBottomRight(int roundBottomRight) {
         this.roundBottomRight = roundBottomRight;
+        invalidarContorno();
         repaint();
     }
 
@@ -57,6 +81,22 @@ public class PanelRound extends JPanel {
     private int roundBottomLeft = 0;
     private int roundBottomRight = 0;
 
+    public boolean isUsarBuffer() {
+        return usarBuffer;
+    }
+
+    /**
+     * activa o desactiva la imagen de fondo pre-renderizada, sin buffer el
+     * contorno cacheado se rellena en cada repintado
+     *
+     * @param usarBuffer true para pintar el fondo desde una imagen
+     */
+    public void setUsarBuffer(boolean usarBuffer) {
+        this.usarBuffer = usarBuffer;
+        buffer = null;
+        repaint();
+    }
+
     public PanelRound() {
         setOpaque(false);
         setLayout(null);
@@ -105,6 +145,9 @@ public class PanelRound extends JPanel {
     @Override
     public void setBounds(int x, int y, int width, int height) {
         super.setBounds(x, y, width, height);
+        if (width != contornoAncho || height != contornoAlto) {
+            invalidarContorno();
+        }
         if (labelImagen != null) {
             labelImagen.setBounds(0, 0, width, height);
         }
@@ -112,22 +155,78 @@ public class PanelRound extends JPanel {
 
     @Override
     protected void paintComponent(Graphics grphcs) {
-        Graphics2D g2 = (Graphics2D) grphcs.create();
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2.setColor(getBackground());
-        Area area = new Area(createRoundTopLeft());
-        if (roundTopRight > 0) {
-            area.intersect(new Area(createRoundTopRight()));
+        int width = getWidth();
+        int height = getHeight();
+        if (width > 0 && height > 0) {
+            Graphics2D g2 = (Graphics2D) grphcs.create();
+            BufferedImage imagen = usarBuffer ? getBuffer(g2, width, height) : null;
+            if (imagen != null) {
+                g2.drawImage(imagen, 0, 0, width, height, null);
+            } else {
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setColor(getBackground());
+                g2.fill(getContorno(width, height));
+            }
+            g2.dispose();
+        }
+        super.paintComponent(grphcs);
+    }
+
+    private void invalidarContorno() {
+        contorno = null;
+        buffer = null;
+    }
+
+    private Shape getContorno(int width, int height) {
+        if (contorno == null || width != contornoAncho || height != contornoAlto) {
+            Area area = new Area(createRoundTopLeft());
+            if (roundTopRight > 0) {
+                area.intersect(new Area(createRoundTopRight()));
+            }
+            if (roundBottomLeft > 0) {
+                area.intersect(new Area(createRoundBottomLeft()));
+            }
+            if (roundBottomRight > 0) {
+                area.intersect(new Area(createRoundBottomRight()));
+            }
+            contorno = area;
+            contornoAncho = width;
+            contornoAlto = height;
+            buffer = null;
         }
-        if (roundBottomLeft > 0) {
-            area.intersect(new Area(createRoundBottomLeft()));
+        return contorno;
+    }
+
+    /**
+     * imagen con el fondo ya antialiaseado, se vuelve a pintar solo si cambia
+     * el contorno, el color de fondo o la escala de la pantalla (HiDPI); con
+     * transformaciones sin escala positiva devuelve null y se pinta directo
+     */
+    private BufferedImage getBuffer(Graphics2D g2, int width, int height) {
+        AffineTransform transform = g2.getTransform();
+        double escalaX = transform.getScaleX();
+        double escalaY = transform.getScaleY();
+        if (escalaX <= 0 || escalaY <= 0) {
+            return null;
         }
-        if (roundBottomRight > 0) {
-            area.intersect(new Area(createRoundBottomRight()));
+        Shape forma = getContorno(width, height);
+        Color fondo = getBackground();
+        if (buffer == null || bufferColor != fondo.getRGB()
+                || escalaX != bufferEscalaX || escalaY != bufferEscalaY) {
+            BufferedImage imagen = g2.getDeviceConfiguration().createCompatibleImage(
+                    (int) Math.ceil(width * escalaX), (int) Math.ceil(height * escalaY), Transparency.TRANSLUCENT);
+            Graphics2D gb = imagen.createGraphics();
+            gb.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            gb.scale(escalaX, escalaY);
+            gb.setColor(fondo);
+            gb.fill(forma);
+            gb.dispose();
+            buffer = imagen;
+            bufferColor = fondo.getRGB();
+            bufferEscalaX = escalaX;
+            bufferEscalaY = escalaY;
         }
-        g2.fill(area);
-        g2.dispose();
-        super.paintComponent(grphcs);
+        return buffer;
     }
 
     private Shape createRoundTopLeft() {
@@ -1,6 +1,8 @@
 package com.mycompany.gestionarpacientes.view.components;
 
+import com.mycompany.gestionarpacientes.validacion.Regla;
 import java.awt.Color;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -10,13 +12,13 @@ import java.util.regex.Pattern;
  */
 public class TextFieldPanel extends javax.swing.JPanel {
 
-    public static final String BIOGRAPHY_REGEX = "^[\\s\\S]{1,500}$";
-    public static final String PASSWORD_REGEX = "^[\\s\\S]{1,255}$";
-    public static final String EMAIL_REGEX = "^(?=.{1,100}$)[a-zA-Z0-9._%+-]{1,25}@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$";
-    public static final String NAME_REGEX = "^(?=.{1,50}$)[a-zA-ZáéíóúÁÉÍÓÚñÑ]+(?:[\\s-][a-zA-ZáéíóúÁÉÍÓÚñÑ]+)*$";
-    public static final String DATE_REGEX =  "^(19|20)\\d{2}-(0[1-9]|1[0-2])-(0[1-9]|[12]\\d|3[01])$";;
+    public static final String BIOGRAPHY_REGEX = Regla.BIOGRAFIA.getRegex();
+    public static final String PASSWORD_REGEX = Regla.CONTRASENA.getRegex();
+    public static final String EMAIL_REGEX = Regla.EMAIL.getRegex();
+    public static final String NAME_REGEX = Regla.NOMBRE.getRegex();
+    public static final String DATE_REGEX = Regla.FECHA.getRegex();
     
-    private String regex;
+    private Predicate<CharSequence> validador;
     private String errorMessage;
     private String message = "default message";
 
@@ -28,7 +30,18 @@ public class TextFieldPanel extends javax.swing.JPanel {
     }
 
     public TextFieldPanel(String regex, String errorMessage) {
-        this.regex = regex;
+        if (regex != null) {
+            // se compila una vez, los eventos de foco solo reutilizan el Matcher
+            Matcher matcher = Pattern.compile(regex).matcher("");
+            this.validador = valor -> matcher.reset(valor).matches();
+        }
+        this.errorMessage = errorMessage;
+        initComponents();
+        errorDescriptionLabel.setVisible(false);
+    }
+
+    public TextFieldPanel(Regla regla, String errorMessage) {
+        this.validador = regla::valida;
         this.errorMessage = errorMessage;
         initComponents();
         errorDescriptionLabel.setVisible(false);
@@ -117,10 +130,8 @@ public class TextFieldPanel extends javax.swing.JPanel {
             inputTxt.setForeground(new Color(158, 140, 185));
             errorDescriptionLabel.setVisible(false);
         } else {
-            if (this.regex != null) {
-                Pattern pattern = Pattern.compile(this.regex);
-                Matcher matcher = pattern.matcher(input);
-                if (matcher.matches()) {
+            if (this.validador != null) {
+                if (this.validador.test(input)) {
                     this.inputBorderPane.setBackground(Color.GREEN);
                     errorDescriptionLabel.setVisible(false);
                     inputTxt.setForeground(Color.WHITE);
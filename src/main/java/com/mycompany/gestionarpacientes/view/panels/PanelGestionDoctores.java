@@ -1,15 +1,22 @@
 package com.mycompany.gestionarpacientes.view.panels;
 
 import com.mycompany.gestionarpacientes.dto.DoctorDTO;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
 import com.mycompany.gestionarpacientes.exceptions.ServiceException;
 import com.mycompany.gestionarpacientes.repository.impl.DoctorRepository;
-import com.mycompany.gestionarpacientes.service.IDoctorService;
-import com.mycompany.gestionarpacientes.service.impl.DoctorService;
+import com.mycompany.gestionarpacientes.service.IDoctorServiceAsync;
+import com.mycompany.gestionarpacientes.service.impl.DoctorServiceAsync;
 import com.mycompany.gestionarpacientes.util.JpaUtil;
+import com.mycompany.gestionarpacientes.validacion.Regla;
 import com.mycompany.gestionarpacientes.view.components.PanelRound;
 import com.mycompany.gestionarpacientes.view.components.TextFieldPanel;
 import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 
@@ -20,7 +27,7 @@ import javax.swing.table.DefaultTableModel;
  */
 public class PanelGestionDoctores extends JPanel {
 
-    private final IDoctorService doctorService;
+    private final IDoctorServiceAsync doctorService;
 
     // Componentes de formulario
     private TextFieldPanel txtNombre;
@@ -41,6 +48,7 @@ public class PanelGestionDoctores extends JPanel {
     private JButton btnLimpiar;
     private JButton btnBuscar;
     private JButton btnBuscarEspecialidad;
+    private JButton btnSiguiente;
 
     // Campos de búsqueda
     private TextFieldPanel txtBuscar;
@@ -50,11 +58,34 @@ public class PanelGestionDoctores extends JPanel {
     private Long doctorSeleccionadoId = null;
 
     // Paginación
-    private int paginaActual = 0;
-    private final int registrosPorPagina = 20;
+    // Paginación por cursor: cursor de la página actual, cursores de las
+    // páginas anteriores y cursor de la siguiente (null si es la última)
+    private String cursorActual = null;
+    private final Deque<String> cursoresAnteriores = new ArrayDeque<>();
+    private String siguienteCursor = null;
+    private static final int REGISTROS_POR_PAGINA = 20;
+
+    // Primera página pedida antes de abrir la pestaña, se usa una sola vez
+    // (solo se usa en el EDT)
+    private CompletableFuture<PaginaDTO<DoctorDTO>> paginaPrecargada;
+
+    // Número de la última carga de la tabla, las respuestas de cargas
+    // anteriores que lleguen tarde se descartan (solo se usa en el EDT)
+    private int solicitudTabla = 0;
 
     public PanelGestionDoctores() {
-        this.doctorService = new DoctorService();
+        this(null);
+    }
+
+    /**
+     * crea el panel usando, si se da, la primera pagina pedida en segundo
+     * plano con {@link #precargar()}
+     *
+     * @param primeraPagina primera pagina ya pedida o null para pedirla ahora
+     */
+    public PanelGestionDoctores(CompletableFuture<PaginaDTO<DoctorDTO>> primeraPagina) {
+        this.doctorService = new DoctorServiceAsync();
+        this.paginaPrecargada = primeraPagina;
 
         setLayout(new BorderLayout(10, 10));
         setBackground(new Color(30, 30, 48));
@@ -91,14 +122,14 @@ public class PanelGestionDoctores extends JPanel {
         JPanel panelBusqueda = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         panelBusqueda.setOpaque(false);
 
-        txtBuscar = new TextFieldPanel(TextFieldPanel.NAME_REGEX, "Nombre inválido");
+        txtBuscar = new TextFieldPanel(Regla.NOMBRE, "Nombre inválido");
         txtBuscar.setMessage("Buscar por nombre...");
         txtBuscar.setPreferredSize(new Dimension(250, 60));
 
         btnBuscar = crearBoton("Buscar", new Color(59, 130, 246));
         btnBuscar.addActionListener(e -> buscarDoctoresPorNombre());
 
-        txtBuscarEspecialidad = new TextFieldPanel(TextFieldPanel.NAME_REGEX, "Especialidad inválida");
+        txtBuscarEspecialidad = new TextFieldPanel(Regla.NOMBRE, "Especialidad inválida");
         txtBuscarEspecialidad.setMessage("Buscar por especialidad...");
         txtBuscarEspecialidad.setPreferredSize(new Dimension(250, 60));
 
@@ -172,21 +203,26 @@ public class PanelGestionDoctores extends JPanel {
 
         JButton btnAnterior = crearBoton("← Anterior", new Color(107, 114, 128));
         btnAnterior.addActionListener(e -> {
-            if (paginaActual > 0) {
-                paginaActual--;
+            if (!cursoresAnteriores.isEmpty()) {
+                String anterior = cursoresAnteriores.pop();
+                cursorActual = anterior.isEmpty() ? null : anterior;
                 cargarDoctores();
             }
         });
 
-        JButton btnSiguiente = crearBoton("Siguiente →", new Color(107, 114, 128));
+        btnSiguiente = crearBoton("Siguiente →", new Color(107, 114, 128));
         btnSiguiente.addActionListener(e -> {
-            paginaActual++;
-            cargarDoctores();
+            if (siguienteCursor != null) {
+                cursoresAnteriores.push(cursorActual == null ? "" : cursorActual);
+                cursorActual = siguienteCursor;
+                cargarDoctores();
+            }
         });
 
         JButton btnMostrarTodos = crearBoton("Mostrar Todos", new Color(59, 130, 246));
         btnMostrarTodos.addActionListener(e -> {
-            paginaActual = 0;
+            cursorActual = null;
+            cursoresAnteriores.clear();
             cargarDoctores();
         });
 
@@ -221,37 +257,37 @@ public class PanelGestionDoctores extends JPanel {
         formulario.add(Box.createRigidArea(new Dimension(0, 20)));
 
         // Campos
-        txtNombre = new TextFieldPanel(TextFieldPanel.NAME_REGEX, "Nombre inválido");
+        txtNombre = new TextFieldPanel(Regla.NOMBRE, "Nombre inválido");
         txtNombre.setMessage("Nombre");
         txtNombre.setAlignmentX(Component.LEFT_ALIGNMENT);
         formulario.add(txtNombre);
         formulario.add(Box.createRigidArea(new Dimension(0, 15)));
 
-        txtApellido = new TextFieldPanel(TextFieldPanel.NAME_REGEX, "Apellido inválido");
+        txtApellido = new TextFieldPanel(Regla.NOMBRE, "Apellido inválido");
         txtApellido.setMessage("Apellido");
         txtApellido.setAlignmentX(Component.LEFT_ALIGNMENT);
         formulario.add(txtApellido);
         formulario.add(Box.createRigidArea(new Dimension(0, 15)));
 
-        txtDni = new TextFieldPanel("^[A-Z0-9]{5,20}$", "DNI inválido (5-20 caracteres)");
+        txtDni = new TextFieldPanel(Regla.DNI, "DNI inválido (5-20 caracteres)");
         txtDni.setMessage("DNI");
         txtDni.setAlignmentX(Component.LEFT_ALIGNMENT);
         formulario.add(txtDni);
         formulario.add(Box.createRigidArea(new Dimension(0, 15)));
 
-        txtEmail = new TextFieldPanel(TextFieldPanel.EMAIL_REGEX, "Email inválido");
+        txtEmail = new TextFieldPanel(Regla.EMAIL, "Email inválido");
         txtEmail.setMessage("Email");
         txtEmail.setAlignmentX(Component.LEFT_ALIGNMENT);
         formulario.add(txtEmail);
         formulario.add(Box.createRigidArea(new Dimension(0, 15)));
 
-        txtEspecialidad = new TextFieldPanel(TextFieldPanel.NAME_REGEX, "Especialidad inválida");
+        txtEspecialidad = new TextFieldPanel(Regla.NOMBRE, "Especialidad inválida");
         txtEspecialidad.setMessage("Especialidad");
         txtEspecialidad.setAlignmentX(Component.LEFT_ALIGNMENT);
         formulario.add(txtEspecialidad);
         formulario.add(Box.createRigidArea(new Dimension(0, 15)));
 
-        txtCedulaProfesional = new TextFieldPanel("^CED-[0-9]{8}$", "Formato: CED-12345678");
+        txtCedulaProfesional = new TextFieldPanel(Regla.CEDULA, "Formato: CED-12345678");
         txtCedulaProfesional.setMessage("Cédula Profesional");
         txtCedulaProfesional.setAlignmentX(Component.LEFT_ALIGNMENT);
         formulario.add(txtCedulaProfesional);
@@ -323,15 +359,33 @@ public class PanelGestionDoctores extends JPanel {
         return boton;
     }
 
-    private void cargarDoctores() {
-        try {
-            int offset = paginaActual * registrosPorPagina;
-            List<DoctorDTO> doctores = doctorService.listarTodosDoctores(registrosPorPagina, offset);
+    /**
+     * pide la primera pagina de la tabla sin crear el panel
+     *
+     * @return pagina para pasar al constructor
+     */
+    public static CompletableFuture<PaginaDTO<DoctorDTO>> precargar() {
+        return new DoctorServiceAsync().listarDoctoresPorCursorAsync(null, REGISTROS_POR_PAGINA);
+    }
 
-            actualizarTabla(doctores);
-        } catch (ServiceException e) {
-            mostrarError("Error al cargar doctores: " + e.getMessage());
-        }
+    private void cargarDoctores() {
+        int solicitud = ++solicitudTabla;
+        // hasta que llegue la pagina no se sabe cual es la siguiente, asi un
+        // segundo clic no vuelve a apilar la misma pagina
+        siguienteCursor = null;
+        btnSiguiente.setEnabled(false);
+        CompletableFuture<PaginaDTO<DoctorDTO>> peticion = cursorActual == null && paginaPrecargada != null
+                ? paginaPrecargada
+                : doctorService.listarDoctoresPorCursorAsync(cursorActual, REGISTROS_POR_PAGINA);
+        paginaPrecargada = null;
+        alTerminar(peticion, pagina -> {
+            if (solicitud != solicitudTabla) {
+                return;
+            }
+            siguienteCursor = pagina.getSiguienteCursor();
+            btnSiguiente.setEnabled(siguienteCursor != null);
+            actualizarTabla(pagina.getElementos());
+        }, "Error al cargar doctores: ");
     }
 
     private void buscarDoctoresPorNombre() {
@@ -341,12 +395,12 @@ public class PanelGestionDoctores extends JPanel {
             return;
         }
 
-        try {
-            List<DoctorDTO> doctores = doctorService.buscarDoctoresPorNombre(busqueda, 50, 0);
-            actualizarTabla(doctores);
-        } catch (ServiceException e) {
-            mostrarError("Error en la búsqueda: " + e.getMessage());
-        }
+        int solicitud = ++solicitudTabla;
+        alTerminar(doctorService.buscarDoctoresPorNombreAsync(busqueda, 50, 0), doctores -> {
+            if (solicitud == solicitudTabla) {
+                mostrarBusqueda(doctores);
+            }
+        }, "Error en la búsqueda: ");
     }
 
     private void buscarDoctoresPorEspecialidad() {
@@ -356,12 +410,24 @@ public class PanelGestionDoctores extends JPanel {
             return;
         }
 
-        try {
-            List<DoctorDTO> doctores = doctorService.buscarDoctoresPorEspecialidad(busqueda, 50, 0);
-            actualizarTabla(doctores);
-        } catch (ServiceException e) {
-            mostrarError("Error en la búsqueda: " + e.getMessage());
-        }
+        int solicitud = ++solicitudTabla;
+        alTerminar(doctorService.buscarDoctoresPorEspecialidadAsync(busqueda, 50, 0), doctores -> {
+            if (solicitud == solicitudTabla) {
+                mostrarBusqueda(doctores);
+            }
+        }, "Error en la búsqueda: ");
+    }
+
+    /**
+     * muestra un resultado de busqueda, que no se pagina, y olvida los
+     * cursores del listado para que Siguiente no salte al directorio completo
+     */
+    private void mostrarBusqueda(List<DoctorDTO> doctores) {
+        cursorActual = null;
+        cursoresAnteriores.clear();
+        siguienteCursor = null;
+        btnSiguiente.setEnabled(false);
+        actualizarTabla(doctores);
     }
 
     private void actualizarTabla(List<DoctorDTO> doctores) {
@@ -381,16 +447,12 @@ public class PanelGestionDoctores extends JPanel {
     }
 
     private void agregarDoctor() {
-        try {
-            DoctorDTO doctor = obtenerDatosFormulario();
-            DoctorDTO guardado = doctorService.registrarDoctor(doctor);
-
+        DoctorDTO doctor = obtenerDatosFormulario();
+        alTerminar(doctorService.registrarDoctorAsync(doctor), guardado -> {
             mostrarExito("Doctor registrado exitosamente");
             limpiarFormulario();
             cargarDoctores();
-        } catch (ServiceException e) {
-            mostrarError("Error al registrar: " + e.getMessage());
-        }
+        }, "Error al registrar: ");
     }
 
     private void actualizarDoctor() {
@@ -399,17 +461,14 @@ public class PanelGestionDoctores extends JPanel {
             return;
         }
 
-        try {
-            DoctorDTO doctor = obtenerDatosFormulario();
-            doctor.setId(doctorSeleccionadoId);
+        DoctorDTO doctor = obtenerDatosFormulario();
+        doctor.setId(doctorSeleccionadoId);
 
-            doctorService.actualizarDoctor(doctor);
+        alTerminar(doctorService.actualizarDoctorAsync(doctor), actualizado -> {
             mostrarExito("Doctor actualizado exitosamente");
             limpiarFormulario();
             cargarDoctores();
-        } catch (ServiceException e) {
-            mostrarError("Error al actualizar: " + e.getMessage());
-        }
+        }, "Error al actualizar: ");
     }
 
     private void eliminarDoctor() {
@@ -426,17 +485,30 @@ public class PanelGestionDoctores extends JPanel {
         );
 
         if (confirmacion == JOptionPane.YES_OPTION) {
-            try {
-                doctorService.eliminarDoctor(doctorSeleccionadoId);
+            alTerminar(doctorService.eliminarDoctorAsync(doctorSeleccionadoId), eliminado -> {
                 mostrarExito("Doctor eliminado exitosamente");
                 limpiarFormulario();
                 cargarDoctores();
-            } catch (ServiceException e) {
-                mostrarError("Error al eliminar: " + e.getMessage());
-            }
+            }, "Error al eliminar: ");
         }
     }
 
+    /**
+     * aplica el resultado de una llamada asincrona en el EDT, si la llamada
+     * falla se muestra el mensaje de la excepcion original
+     */
+    private <T> void alTerminar(CompletableFuture<T> futuro, Consumer<T> alExito, String prefijoError) {
+        futuro.whenComplete((resultado, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                alExito.accept(resultado);
+            } else {
+                Throwable causa = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                mostrarError(prefijoError + causa.getMessage());
+            }
+        }));
+    }
+
     private void cargarDoctorSeleccionado() {
         int filaSeleccionada = tablaDoctores.getSelectedRow();
         if (filaSeleccionada >= 0) {
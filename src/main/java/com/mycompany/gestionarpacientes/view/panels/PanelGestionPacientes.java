@@ -1,19 +1,25 @@
 package com.mycompany.gestionarpacientes.view.panels;
 
+import com.mycompany.gestionarpacientes.dto.MapaBloquesDTO;
 import com.mycompany.gestionarpacientes.dto.PacienteDTO;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
 import com.mycompany.gestionarpacientes.exceptions.ServiceException;
 import com.mycompany.gestionarpacientes.repository.impl.PacienteRepository;
-import com.mycompany.gestionarpacientes.service.IPacienteService;
-import com.mycompany.gestionarpacientes.service.impl.PacienteService;
+import com.mycompany.gestionarpacientes.service.IPacienteServiceAsync;
+import com.mycompany.gestionarpacientes.service.impl.PacienteServiceAsync;
 import com.mycompany.gestionarpacientes.util.JpaUtil;
+import com.mycompany.gestionarpacientes.validacion.Regla;
+import com.mycompany.gestionarpacientes.view.components.LazyTableModel;
 import com.mycompany.gestionarpacientes.view.components.PanelRound;
 import com.mycompany.gestionarpacientes.view.components.TextFieldPanel;
 import java.awt.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 
 /**
  * Panel para la gestión de pacientes con CRUD completo
@@ -22,7 +28,7 @@ import javax.swing.table.DefaultTableModel;
  */
 public class PanelGestionPacientes extends JPanel {
 
-    private final IPacienteService pacienteService;
+    private final IPacienteServiceAsync pacienteService;
 
     // Componentes de formulario
     private TextFieldPanel txtNombre;
@@ -35,7 +41,8 @@ public class PanelGestionPacientes extends JPanel {
 
     // Tabla y modelo
     private JTable tablaPacientes;
-    private DefaultTableModel modeloTabla;
+    private LazyTableModel<PacienteDTO> modeloTabla;
+    private JLabel lblTotal;
 
     // Botones
     private JButton btnAgregar;
@@ -50,12 +57,68 @@ public class PanelGestionPacientes extends JPanel {
     // ID del paciente seleccionado
     private Long pacienteSeleccionadoId = null;
 
-    // Paginación
-    private int paginaActual = 0;
-    private final int registrosPorPagina = 20;
+    // La tabla pide bloques de filas mientras se desplaza y conserva en
+    // memoria solo los últimos bloquesEnMemoria
+    private static final int FILAS_POR_BLOQUE = 100;
+    private final int bloquesEnMemoria = 30;
+
+    // Mapa de bloques y primer bloque pedidos antes de abrir la pestaña, se
+    // usan en la primera carga y después se descartan (solo se usan en el EDT)
+    private CompletableFuture<MapaBloquesDTO> mapaPrecargado;
+    private CompletableFuture<List<PacienteDTO>> bloquePrecargado;
+
+    // Número de la última búsqueda, las respuestas de búsquedas anteriores
+    // que lleguen tarde se descartan (solo se usa en el EDT)
+    private int solicitudTabla = 0;
+
+    // Todos los pacientes ordenados por nombre. Al contar se lee una sola vez
+    // el cursor con que empieza cada bloque, así cualquier bloque, también
+    // después de arrastrar la barra, se pide por llave sin saltar filas
+    private final LazyTableModel.Fuente<PacienteDTO> todosLosPacientes = new LazyTableModel.Fuente<>() {
+        private CompletableFuture<MapaBloquesDTO> mapa;
+
+        @Override
+        public CompletableFuture<Long> contar() {
+            mapa = mapaPrecargado != null ? mapaPrecargado : pacienteService.mapearBloquesPacientesAsync(FILAS_POR_BLOQUE);
+            mapaPrecargado = null;
+            return mapa.thenApply(MapaBloquesDTO::getTotal);
+        }
+
+        @Override
+        public CompletableFuture<List<PacienteDTO>> cargar(int desde, int cantidad) {
+            if (desde == 0 && bloquePrecargado != null) {
+                CompletableFuture<List<PacienteDTO>> bloque = bloquePrecargado;
+                bloquePrecargado = null;
+                return bloque.thenApply(filas -> filas.size() > cantidad ? filas.subList(0, cantidad) : filas);
+            }
+            if (desde == 0) {
+                return pacienteService.listarPacientesPorCursorAsync(null, cantidad).thenApply(PaginaDTO::getElementos);
+            }
+            return mapa.thenCompose(bloques -> {
+                String cursor = bloques.cursorDelBloque(desde / FILAS_POR_BLOQUE);
+                return cursor == null
+                        ? CompletableFuture.completedFuture(List.<PacienteDTO>of())
+                        : pacienteService.listarPacientesPorCursorAsync(cursor, cantidad).thenApply(PaginaDTO::getElementos);
+            });
+        }
+    };
 
     public PanelGestionPacientes() {
-        this.pacienteService = new PacienteService();
+        this(null);
+    }
+
+    /**
+     * crea el panel usando, si se da, la primera carga pedida en segundo
+     * plano con {@link #precargar()}
+     *
+     * @param precarga primera carga ya pedida o null para pedirla ahora
+     */
+    public PanelGestionPacientes(PrimeraCarga precarga) {
+        this.pacienteService = new PacienteServiceAsync();
+        if (precarga != null) {
+            this.mapaPrecargado = precarga.mapa();
+            this.bloquePrecargado = precarga.filas();
+        }
 
         setLayout(new BorderLayout(10, 10));
         setBackground(new Color(30, 30, 48));
@@ -92,7 +155,7 @@ public class PanelGestionPacientes extends JPanel {
         JPanel panelBusqueda = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         panelBusqueda.setOpaque(false);
 
-        txtBuscar = new TextFieldPanel(TextFieldPanel.NAME_REGEX, "Nombre inválido");
+        txtBuscar = new TextFieldPanel(Regla.NOMBRE, "Nombre inválido");
         txtBuscar.setMessage("Buscar paciente...");
         txtBuscar.setPreferredSize(new Dimension(300, 60));
 
@@ -119,14 +182,21 @@ public class PanelGestionPacientes extends JPanel {
 
         // Modelo de tabla
         String[] columnas = {"ID", "Nombre", "Apellido", "DNI", "Email", "Fecha Nac.", "Tipo Sangre", "Seguro"};
-        modeloTabla = new DefaultTableModel(columnas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        modeloTabla = new LazyTableModel<>(columnas, p -> new Object[]{
+            p.getId(),
+            p.getNombre(),
+            p.getApellido(),
+            p.getDni(),
+            p.getEmail(),
+            p.getFechaNacimiento(),
+            p.getTipoSangre(),
+            p.getSeguroMedico()
+        }, FILAS_POR_BLOQUE, bloquesEnMemoria);
+        modeloTabla.setAlError(e -> mostrarError("Error al cargar pacientes: " + e.getMessage()));
+        modeloTabla.addTableModelListener(e -> lblTotal.setText(modeloTabla.getRowCount() + " pacientes"));
 
         tablaPacientes = new JTable(modeloTabla);
+        modeloTabla.setTabla(tablaPacientes);
         tablaPacientes.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         tablaPacientes.setRowHeight(30);
         tablaPacientes.setFont(new Font("Segoe UI", Font.PLAIN, 12));
@@ -151,33 +221,10 @@ public class PanelGestionPacientes extends JPanel {
 
         panel.add(scrollPane, BorderLayout.CENTER);
 
-        // Panel de paginación
-        JPanel panelPaginacion = crearPanelPaginacion();
-        panel.add(panelPaginacion, BorderLayout.SOUTH);
-
-        return panel;
-    }
-
-    private JPanel crearPanelPaginacion() {
-        JPanel panel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
-        panel.setOpaque(false);
-
-        JButton btnAnterior = crearBoton("← Anterior", new Color(107, 114, 128));
-        btnAnterior.addActionListener(e -> {
-            if (paginaActual > 0) {
-                paginaActual--;
-                cargarPacientes();
-            }
-        });
-
-        JButton btnSiguiente = crearBoton("Siguiente →", new Color(107, 114, 128));
-        btnSiguiente.addActionListener(e -> {
-            paginaActual++;
-            cargarPacientes();
-        });
-
-        panel.add(btnAnterior);
-        panel.add(btnSiguiente);
+        lblTotal = new JLabel(" ");
+        lblTotal.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        lblTotal.setForeground(new Color(158, 140, 185));
+        panel.add(lblTotal, BorderLayout.SOUTH);
 
         return panel;
     }
@@ -206,43 +253,43 @@ public class PanelGestionPacientes extends JPanel {
         formulario.add(Box.createRigidArea(new Dimension(0, 20)));
 
         // Campos
-        txtNombre = new TextFieldPanel(TextFieldPanel.NAME_REGEX, "Nombre inválido");
+        txtNombre = new TextFieldPanel(Regla.NOMBRE, "Nombre inválido");
         txtNombre.setMessage("Nombre");
         txtNombre.setAlignmentX(Component.LEFT_ALIGNMENT);
         formulario.add(txtNombre);
         formulario.add(Box.createRigidArea(new Dimension(0, 15)));
 
-        txtApellido = new TextFieldPanel(TextFieldPanel.NAME_REGEX, "Apellido inválido");
+        txtApellido = new TextFieldPanel(Regla.NOMBRE, "Apellido inválido");
         txtApellido.setMessage("Apellido");
         txtApellido.setAlignmentX(Component.LEFT_ALIGNMENT);
         formulario.add(txtApellido);
         formulario.add(Box.createRigidArea(new Dimension(0, 15)));
 
-        txtDni = new TextFieldPanel("^[A-Z0-9]{5,20}$", "DNI inválido (5-20 caracteres)");
+        txtDni = new TextFieldPanel(Regla.DNI, "DNI inválido (5-20 caracteres)");
         txtDni.setMessage("DNI");
         txtDni.setAlignmentX(Component.LEFT_ALIGNMENT);
         formulario.add(txtDni);
         formulario.add(Box.createRigidArea(new Dimension(0, 15)));
 
-        txtEmail = new TextFieldPanel(TextFieldPanel.EMAIL_REGEX, "Email inválido");
+        txtEmail = new TextFieldPanel(Regla.EMAIL, "Email inválido");
         txtEmail.setMessage("Email");
         txtEmail.setAlignmentX(Component.LEFT_ALIGNMENT);
         formulario.add(txtEmail);
         formulario.add(Box.createRigidArea(new Dimension(0, 15)));
 
-        txtFechaNacimiento = new TextFieldPanel(TextFieldPanel.DATE_REGEX, "Formato: YYYY-MM-DD");
+        txtFechaNacimiento = new TextFieldPanel(Regla.FECHA, "Formato: YYYY-MM-DD");
         txtFechaNacimiento.setMessage("Fecha Nacimiento (YYYY-MM-DD)");
         txtFechaNacimiento.setAlignmentX(Component.LEFT_ALIGNMENT);
         formulario.add(txtFechaNacimiento);
         formulario.add(Box.createRigidArea(new Dimension(0, 15)));
 
-        txtTipoSangre = new TextFieldPanel("^(A|B|AB|O)[+-]$", "Ej: A+, O-, AB+");
+        txtTipoSangre = new TextFieldPanel(Regla.TIPO_SANGRE, "Ej: A+, O-, AB+");
         txtTipoSangre.setMessage("Tipo de Sangre");
         txtTipoSangre.setAlignmentX(Component.LEFT_ALIGNMENT);
         formulario.add(txtTipoSangre);
         formulario.add(Box.createRigidArea(new Dimension(0, 15)));
 
-        txtSeguroMedico = new TextFieldPanel("^.{1,100}$", "Máximo 100 caracteres");
+        txtSeguroMedico = new TextFieldPanel(Regla.TEXTO_CORTO, "Máximo 100 caracteres");
         txtSeguroMedico.setMessage("Seguro Médico");
         txtSeguroMedico.setAlignmentX(Component.LEFT_ALIGNMENT);
         formulario.add(txtSeguroMedico);
@@ -314,28 +361,30 @@ public class PanelGestionPacientes extends JPanel {
         return boton;
     }
 
+    /**
+     * pide el mapa de bloques y el primer bloque de la tabla sin crear el
+     * panel
+     *
+     * @return primera carga para pasar al constructor
+     */
+    public static PrimeraCarga precargar() {
+        IPacienteServiceAsync service = new PacienteServiceAsync();
+        return new PrimeraCarga(service.mapearBloquesPacientesAsync(FILAS_POR_BLOQUE),
+                service.listarTodosPacientesAsync(FILAS_POR_BLOQUE, 0));
+    }
+
+    /**
+     * mapa de bloques y primer bloque de la tabla pedidos por adelantado
+     *
+     * @param mapa total de pacientes y cursor de cada bloque
+     * @param filas primer bloque ordenado por nombre
+     */
+    public record PrimeraCarga(CompletableFuture<MapaBloquesDTO> mapa, CompletableFuture<List<PacienteDTO>> filas) {
+    }
+
     private void cargarPacientes() {
-        try {
-            int offset = paginaActual * registrosPorPagina;
-            List<PacienteDTO> pacientes = pacienteService.listarTodosPacientes(registrosPorPagina, offset);
-
-            modeloTabla.setRowCount(0);
-            for (PacienteDTO p : pacientes) {
-                Object[] fila = {
-                    p.getId(),
-                    p.getNombre(),
-                    p.getApellido(),
-                    p.getDni(),
-                    p.getEmail(),
-                    p.getFechaNacimiento(),
-                    p.getTipoSangre(),
-                    p.getSeguroMedico()
-                };
-                modeloTabla.addRow(fila);
-            }
-        } catch (ServiceException e) {
-            mostrarError("Error al cargar pacientes: " + e.getMessage());
-        }
+        solicitudTabla++;
+        modeloTabla.cargarDesde(todosLosPacientes);
     }
 
     private void buscarPacientes() {
@@ -345,39 +394,28 @@ public class PanelGestionPacientes extends JPanel {
             return;
         }
 
-        try {
-            List<PacienteDTO> pacientes = pacienteService.buscarPacientesPorNombre(busqueda, 50, 0);
-
-            modeloTabla.setRowCount(0);
-            for (PacienteDTO p : pacientes) {
-                Object[] fila = {
-                    p.getId(),
-                    p.getNombre(),
-                    p.getApellido(),
-                    p.getDni(),
-                    p.getEmail(),
-                    p.getFechaNacimiento(),
-                    p.getTipoSangre(),
-                    p.getSeguroMedico()
-                };
-                modeloTabla.addRow(fila);
+        int solicitud = ++solicitudTabla;
+        alTerminar(pacienteService.buscarPacientesPorNombreAsync(busqueda, 50, 0), pacientes -> {
+            if (solicitud == solicitudTabla) {
+                modeloTabla.mostrar(pacientes);
             }
-        } catch (ServiceException e) {
-            mostrarError("Error en la búsqueda: " + e.getMessage());
-        }
+        }, "Error en la búsqueda: ");
     }
 
     private void agregarPaciente() {
+        PacienteDTO paciente;
         try {
-            PacienteDTO paciente = obtenerDatosFormulario();
-            PacienteDTO guardado = pacienteService.registrarPaciente(paciente);
+            paciente = obtenerDatosFormulario();
+        } catch (ServiceException e) {
+            mostrarError("Error al registrar: " + e.getMessage());
+            return;
+        }
 
+        alTerminar(pacienteService.registrarPacienteAsync(paciente), guardado -> {
             mostrarExito("Paciente registrado exitosamente");
             limpiarFormulario();
             cargarPacientes();
-        } catch (ServiceException e) {
-            mostrarError("Error al registrar: " + e.getMessage());
-        }
+        }, "Error al registrar: ");
     }
 
     private void actualizarPaciente() {
@@ -386,17 +424,20 @@ public class PanelGestionPacientes extends JPanel {
             return;
         }
 
+        PacienteDTO paciente;
         try {
-            PacienteDTO paciente = obtenerDatosFormulario();
+            paciente = obtenerDatosFormulario();
             paciente.setId(pacienteSeleccionadoId);
+        } catch (ServiceException e) {
+            mostrarError("Error al actualizar: " + e.getMessage());
+            return;
+        }
 
-            pacienteService.actualizarPaciente(paciente);
+        alTerminar(pacienteService.actualizarPacienteAsync(paciente), actualizado -> {
             mostrarExito("Paciente actualizado exitosamente");
             limpiarFormulario();
             cargarPacientes();
-        } catch (ServiceException e) {
-            mostrarError("Error al actualizar: " + e.getMessage());
-        }
+        }, "Error al actualizar: ");
     }
 
     private void eliminarPaciente() {
@@ -413,29 +454,43 @@ public class PanelGestionPacientes extends JPanel {
         );
 
         if (confirmacion == JOptionPane.YES_OPTION) {
-            try {
-                pacienteService.eliminarPaciente(pacienteSeleccionadoId);
+            alTerminar(pacienteService.eliminarPacienteAsync(pacienteSeleccionadoId), eliminado -> {
                 mostrarExito("Paciente eliminado exitosamente");
                 limpiarFormulario();
                 cargarPacientes();
-            } catch (ServiceException e) {
-                mostrarError("Error al eliminar: " + e.getMessage());
-            }
+            }, "Error al eliminar: ");
         }
     }
 
+    /**
+     * aplica el resultado de una llamada asincrona en el EDT, si la llamada
+     * falla se muestra el mensaje de la excepcion original
+     */
+    private <T> void alTerminar(CompletableFuture<T> futuro, Consumer<T> alExito, String prefijoError) {
+        futuro.whenComplete((resultado, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                alExito.accept(resultado);
+            } else {
+                Throwable causa = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                mostrarError(prefijoError + causa.getMessage());
+            }
+        }));
+    }
+
     private void cargarPacienteSeleccionado() {
         int filaSeleccionada = tablaPacientes.getSelectedRow();
-        if (filaSeleccionada >= 0) {
-            pacienteSeleccionadoId = (Long) modeloTabla.getValueAt(filaSeleccionada, 0);
-
-            txtNombre.setMessage((String) modeloTabla.getValueAt(filaSeleccionada, 1));
-            txtApellido.setMessage((String) modeloTabla.getValueAt(filaSeleccionada, 2));
-            txtDni.setMessage((String) modeloTabla.getValueAt(filaSeleccionada, 3));
-            txtEmail.setMessage((String) modeloTabla.getValueAt(filaSeleccionada, 4));
-            txtFechaNacimiento.setMessage(modeloTabla.getValueAt(filaSeleccionada, 5).toString());
-            txtTipoSangre.setMessage((String) modeloTabla.getValueAt(filaSeleccionada, 6));
-            txtSeguroMedico.setMessage((String) modeloTabla.getValueAt(filaSeleccionada, 7));
+        PacienteDTO paciente = filaSeleccionada >= 0 ? modeloTabla.getFila(filaSeleccionada) : null;
+        if (paciente != null) {
+            pacienteSeleccionadoId = paciente.getId();
+
+            txtNombre.setMessage(paciente.getNombre());
+            txtApellido.setMessage(paciente.getApellido());
+            txtDni.setMessage(paciente.getDni());
+            txtEmail.setMessage(paciente.getEmail());
+            txtFechaNacimiento.setMessage(paciente.getFechaNacimiento().toString());
+            txtTipoSangre.setMessage(paciente.getTipoSangre());
+            txtSeguroMedico.setMessage(paciente.getSeguroMedico());
 
             btnActualizar.setEnabled(true);
             btnEliminar.setEnabled(true);
@@ -0,0 +1,43 @@
+-- Esquema inicial: pacientes, doctores y citas tal como los creaba Hibernate en
+-- modo update con las entidades originales. Valido para MySQL 8 y para H2 en
+-- modo MySQL (perfiles h2-*). En una base creada por esa version no cambia
+-- nada; lo agregado despues va en los scripts siguientes.
+
+CREATE TABLE IF NOT EXISTS pacientes (
+    id BIGINT NOT NULL,
+    nombre VARCHAR(50) NOT NULL,
+    apellido VARCHAR(50) NOT NULL,
+    dni VARCHAR(20) NOT NULL,
+    email VARCHAR(100),
+    fecha_nacimiento DATE NOT NULL,
+    tipo_sangre VARCHAR(5),
+    seguro_medico VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_pacientes_dni UNIQUE (dni)
+);
+
+CREATE TABLE IF NOT EXISTS doctores (
+    id BIGINT NOT NULL,
+    nombre VARCHAR(50) NOT NULL,
+    apellido VARCHAR(50) NOT NULL,
+    dni VARCHAR(20) NOT NULL,
+    email VARCHAR(100),
+    especialidad VARCHAR(50) NOT NULL,
+    cedula_profesional VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_doctores_dni UNIQUE (dni),
+    CONSTRAINT uk_doctores_cedula UNIQUE (cedula_profesional)
+);
+
+CREATE TABLE IF NOT EXISTS citas (
+    id BIGINT NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    paciente_id BIGINT NOT NULL,
+    fecha_hora DATETIME(6) NOT NULL,
+    diagnostico TEXT,
+    tratamiento VARCHAR(500),
+    estado ENUM('CANCELADA', 'CONFIRMADA', 'FINALIZADA', 'PROGRAMADA'),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_citas_doctor FOREIGN KEY (doctor_id) REFERENCES doctores (id),
+    CONSTRAINT fk_citas_paciente FOREIGN KEY (paciente_id) REFERENCES pacientes (id)
+);
@@ -0,0 +1,34 @@
+-- Generador de ids por tabla id_generadores. En una base que venia usando
+-- AUTO_INCREMENT deja cada contador en el id mas alto ya usado; en una base
+-- nueva los deja en cero. Se puede repetir sin efectos.
+-- Cada fila guarda el ultimo id reservado de su contador, Hibernate toma los
+-- siguientes por bloques (optimizador pooled-lo).
+
+CREATE TABLE IF NOT EXISTS id_generadores (
+    entidad VARCHAR(255) NOT NULL PRIMARY KEY,
+    siguiente_id BIGINT
+);
+
+INSERT INTO id_generadores (entidad, siguiente_id)
+SELECT 'pacientes', 0 FROM DUAL
+WHERE NOT EXISTS (SELECT 1 FROM id_generadores WHERE entidad = 'pacientes');
+
+INSERT INTO id_generadores (entidad, siguiente_id)
+SELECT 'doctores', 0 FROM DUAL
+WHERE NOT EXISTS (SELECT 1 FROM id_generadores WHERE entidad = 'doctores');
+
+INSERT INTO id_generadores (entidad, siguiente_id)
+SELECT 'citas', 0 FROM DUAL
+WHERE NOT EXISTS (SELECT 1 FROM id_generadores WHERE entidad = 'citas');
+
+UPDATE id_generadores
+SET siguiente_id = GREATEST(siguiente_id, (SELECT COALESCE(MAX(id), 0) FROM pacientes))
+WHERE entidad = 'pacientes';
+
+UPDATE id_generadores
+SET siguiente_id = GREATEST(siguiente_id, (SELECT COALESCE(MAX(id), 0) FROM doctores))
+WHERE entidad = 'doctores';
+
+UPDATE id_generadores
+SET siguiente_id = GREATEST(siguiente_id, (SELECT COALESCE(MAX(id), 0) FROM citas))
+WHERE entidad = 'citas';
@@ -0,0 +1,13 @@
+-- Lleva el esquema inicial a lo que mapean las entidades actuales: duracion de
+-- las citas e indices para paginar por (nombre, id) y buscar citas por doctor
+-- o paciente y fecha. Valido para MySQL 8 y H2 en modo MySQL.
+
+ALTER TABLE citas ADD COLUMN duracion_minutos INTEGER DEFAULT 30 NOT NULL;
+
+CREATE INDEX idx_pacientes_nombre_id ON pacientes (nombre, id);
+
+CREATE INDEX idx_doctores_nombre_id ON doctores (nombre, id);
+
+CREATE INDEX idx_citas_doctor_fecha ON citas (doctor_id, fecha_hora);
+
+CREATE INDEX idx_citas_paciente_fecha ON citas (paciente_id, fecha_hora);
@@ -0,0 +1,134 @@
+package com.mycompany.gestionarpacientes.perf;
+
+import com.mycompany.gestionarpacientes.util.ConnectionPool;
+import com.mycompany.gestionarpacientes.util.JpaUtil;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+
+/**
+ * prepara la base H2 en memoria del perfil h2-mem para los benchmarks y la
+ * llena con datos sinteticos por lotes JDBC, cada fork de JMH tiene su propia
+ * base
+ *
+ * @author gatog
+ */
+public final class BaseDatosH2 {
+
+    public static final String[] NOMBRES = {
+        "Ana", "Luis", "Maria", "Jose", "Carmen", "Juan", "Lucia", "Pedro", "Elena", "Jorge",
+        "Sofia", "Miguel", "Laura", "Diego", "Paula", "Andres", "Marta", "Pablo", "Rosa", "Raul",
+        "Sara", "Hugo", "Irene", "Ivan", "Julia", "Oscar", "Noelia", "Ruben", "Alba", "Sergio",
+        "Clara", "Mario", "Eva", "Adrian", "Nuria", "Alvaro", "Silvia", "Tomas", "Beatriz", "Victor"
+    };
+
+    public static final String[] APELLIDOS = {
+        "Garcia", "Lopez", "Martinez", "Sanchez", "Perez", "Gomez", "Martin", "Jimenez", "Ruiz", "Hernandez",
+        "Diaz", "Moreno", "Alvarez", "Romero", "Alonso", "Gutierrez", "Navarro", "Torres", "Dominguez", "Vazquez"
+    };
+
+    public static final String[] ESPECIALIDADES = {
+        "Cardiologia", "Pediatria", "Dermatologia", "Neurologia", "Oncologia",
+        "Traumatologia", "Ginecologia", "Oftalmologia", "Psiquiatria", "Medicina General"
+    };
+
+    private static final String[] TIPOS_SANGRE = {"O+", "O-", "A+", "A-", "B+", "B-", "AB+", "AB-"};
+    private static final String[] SEGUROS = {"IMSS", "ISSSTE", "Privado", "Ninguno"};
+    private static final int LOTE = 1000;
+
+    private BaseDatosH2() {
+    }
+
+    /**
+     * activa el perfil h2-mem si no se eligio otro y crea el esquema
+     */
+    public static void iniciar() {
+        if (System.getProperty("app.perfil") == null) {
+            System.setProperty("app.perfil", JpaUtil.PERFIL_H2_MEMORIA);
+        }
+        JpaUtil.getEntityManagerFactory();
+    }
+
+    /**
+     * inserta pacientes con ids 1..filas, el nombre de la fila i es
+     * NOMBRES[i % NOMBRES.length]
+     *
+     * @param filas numero de pacientes
+     * @throws SQLException si falla la carga
+     */
+    public static void sembrarPacientes(int filas) throws SQLException {
+        SplittableRandom random = new SplittableRandom(42);
+        String sql = "INSERT INTO pacientes (id, nombre, apellido, dni, email, fecha_nacimiento, tipo_sangre, seguro_medico) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Connection connection = ConnectionPool.getDataSource().getConnection();
+                PreparedStatement ps = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+            for (int i = 1; i <= filas; i++) {
+                ps.setLong(1, i);
+                ps.setString(2, NOMBRES[i % NOMBRES.length]);
+                ps.setString(3, APELLIDOS[random.nextInt(APELLIDOS.length)]);
+                ps.setString(4, String.format("P%09d", i));
+                ps.setString(5, "paciente" + i + "@correo.com");
+                ps.setDate(6, Date.valueOf(LocalDate.of(1940, 1, 1).plusDays(random.nextInt(30_000))));
+                ps.setString(7, TIPOS_SANGRE[random.nextInt(TIPOS_SANGRE.length)]);
+                ps.setString(8, SEGUROS[random.nextInt(SEGUROS.length)]);
+                agregarAlLote(connection, ps, i, filas);
+            }
+            ajustarGenerador(connection, "pacientes", filas);
+        }
+    }
+
+    /**
+     * inserta doctores con ids 1..filas, mismo reparto de nombres que los
+     * pacientes, las cedulas empiezan en CED-90000001 para no chocar con las
+     * que registran los benchmarks
+     *
+     * @param filas numero de doctores
+     * @throws SQLException si falla la carga
+     */
+    public static void sembrarDoctores(int filas) throws SQLException {
+        SplittableRandom random = new SplittableRandom(7);
+        String sql = "INSERT INTO doctores (id, nombre, apellido, dni, email, especialidad, cedula_profesional) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (Connection connection = ConnectionPool.getDataSource().getConnection();
+                PreparedStatement ps = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+            for (int i = 1; i <= filas; i++) {
+                ps.setLong(1, i);
+                ps.setString(2, NOMBRES[i % NOMBRES.length]);
+                ps.setString(3, APELLIDOS[random.nextInt(APELLIDOS.length)]);
+                ps.setString(4, String.format("D%09d", i));
+                ps.setString(5, "doctor" + i + "@clinica.com");
+                ps.setString(6, ESPECIALIDADES[random.nextInt(ESPECIALIDADES.length)]);
+                ps.setString(7, String.format("CED-%08d", 90_000_000 + i));
+                agregarAlLote(connection, ps, i, filas);
+            }
+            ajustarGenerador(connection, "doctores", filas);
+        }
+    }
+
+    private static void agregarAlLote(Connection connection, PreparedStatement ps, int fila, int filas) throws SQLException {
+        ps.addBatch();
+        if (fila % LOTE == 0 || fila == filas) {
+            ps.executeBatch();
+            connection.commit();
+        }
+    }
+
+    /**
+     * deja el contador del generador en el ultimo id sembrado para que los
+     * registros de los benchmarks no choquen con las filas cargadas
+     */
+    private static void ajustarGenerador(Connection connection, String entidad, long ultimoId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "UPDATE id_generadores SET siguiente_id = ? WHERE entidad = ?")) {
+            ps.setLong(1, ultimoId);
+            ps.setString(2, entidad);
+            ps.executeUpdate();
+            connection.commit();
+        }
+    }
+}
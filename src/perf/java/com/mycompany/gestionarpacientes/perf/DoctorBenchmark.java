@@ -0,0 +1,104 @@
+package com.mycompany.gestionarpacientes.perf;
+
+import com.mycompany.gestionarpacientes.dto.DoctorDTO;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
+import com.mycompany.gestionarpacientes.service.IDoctorService;
+import com.mycompany.gestionarpacientes.service.impl.DoctorService;
+import com.mycompany.gestionarpacientes.util.CursorUtil;
+import com.mycompany.gestionarpacientes.util.JpaUtil;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * benchmarks del servicio de doctores, los mismos casos que
+ * {@link PacienteBenchmark}
+ *
+ * @author gatog
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g"})
+public class DoctorBenchmark {
+
+    private static final int TAMANO_PAGINA = 50;
+
+    @Param({"10000", "100000", "1000000"})
+    public int filas;
+
+    private IDoctorService service;
+    private final AtomicLong secuencia = new AtomicLong();
+    private String cursorMitad;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        BaseDatosH2.iniciar();
+        BaseDatosH2.sembrarDoctores(filas);
+        service = new DoctorService();
+
+        service.buscarDoctoresPorNombre(BaseDatosH2.NOMBRES[0], 1, 0);
+        DoctorDTO mitad = service.listarTodosDoctores(1, filas / 2).get(0);
+        cursorMitad = CursorUtil.codificar(mitad.getNombre(), mitad.getId());
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        JpaUtil.shutdown();
+    }
+
+    @Benchmark
+    public DoctorDTO registrarDoctor() {
+        long n = secuencia.incrementAndGet();
+        return service.registrarDoctor(new DoctorDTO("Nuevo", "Doctor", String.format("N%09d", n),
+                null, "Medicina General", String.format("CED-%08d", n)));
+    }
+
+    @Benchmark
+    public DoctorDTO buscarDoctorPorId() {
+        return service.buscarDoctorPorId(1 + ThreadLocalRandom.current().nextLong(filas));
+    }
+
+    @Benchmark
+    public List<DoctorDTO> buscarDoctoresPorNombre() {
+        String nombre = BaseDatosH2.NOMBRES[ThreadLocalRandom.current().nextInt(BaseDatosH2.NOMBRES.length)];
+        return service.buscarDoctoresPorNombre(nombre, 20, 0);
+    }
+
+    @Benchmark
+    public List<DoctorDTO> listarTodosDoctoresInicio() {
+        return service.listarTodosDoctores(TAMANO_PAGINA, 0);
+    }
+
+    @Benchmark
+    public List<DoctorDTO> listarTodosDoctoresMitad() {
+        return service.listarTodosDoctores(TAMANO_PAGINA, filas / 2);
+    }
+
+    @Benchmark
+    public List<DoctorDTO> listarTodosDoctoresFinal() {
+        return service.listarTodosDoctores(TAMANO_PAGINA, filas - TAMANO_PAGINA);
+    }
+
+    @Benchmark
+    public PaginaDTO<DoctorDTO> listarDoctoresPorCursorMitad() {
+        return service.listarDoctoresPorCursor(cursorMitad, TAMANO_PAGINA);
+    }
+}
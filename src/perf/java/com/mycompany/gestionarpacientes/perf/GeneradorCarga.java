@@ -0,0 +1,372 @@
+package com.mycompany.gestionarpacientes.perf;
+
+import com.mycompany.gestionarpacientes.dto.DoctorDTO;
+import com.mycompany.gestionarpacientes.dto.PacienteDTO;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
+import com.mycompany.gestionarpacientes.service.IDoctorService;
+import com.mycompany.gestionarpacientes.service.IPacienteService;
+import com.mycompany.gestionarpacientes.service.impl.DoctorService;
+import com.mycompany.gestionarpacientes.service.impl.PacienteService;
+import com.mycompany.gestionarpacientes.util.ConnectionPool;
+import com.mycompany.gestionarpacientes.util.Histograma;
+import com.mycompany.gestionarpacientes.util.JpaUtil;
+import com.mycompany.gestionarpacientes.util.Metricas;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * generador de carga que simula varios mostradores de recepcion trabajando a
+ * la vez contra la misma base de datos. Cada mostrador es un hilo virtual que
+ * elige una operacion segun la mezcla configurada, la ejecuta contra
+ * PacienteService o DoctorService y espera un tiempo de reflexion.
+ *
+ * Registra la latencia de cada operacion en {@link Metricas} con el nombre
+ * carga.entidad.operacion y al terminar revisa que ningun hilo se haya quedado
+ * con un EntityManager de JpaUtil, que el pool no haya agotado sus conexiones
+ * y que todas se hayan devuelto. Si algo falla termina con codigo 1.
+ *
+ * Las opciones van como clave=valor:
+ * mostradores=20 duracion=PT5M pausa=PT0.2S reporte=PT30S filas=10000
+ * doctores=0.3 mezcla=registrar:20,buscar:40,paginar:25,actualizar:10,eliminar:5
+ *
+ * Con filas mayor a cero se siembra la base antes de empezar, solo sirve con
+ * una base vacia como la del perfil h2-mem; contra MySQL usar filas=0 y
+ * -Dapp.perfil=mysql
+ *
+ * @author gatog
+ */
+public class GeneradorCarga {
+
+    private static final Logger LOGGER = Logger.getLogger(GeneradorCarga.class.getName());
+    private static final int TAMANO_PAGINA = 20;
+    private static final int MAX_PROPIOS = 500;
+    // distingue los DNI de corridas distintas contra la misma base
+    private static final String CORRIDA = Long.toString(System.currentTimeMillis() % 2_176_782_336L, 36)
+            .toUpperCase(Locale.ROOT);
+    // las cedulas solo admiten 8 digitos, cada corrida arranca en un punto distinto
+    private static final AtomicLong CEDULAS = new AtomicLong(System.currentTimeMillis() / 1000 % 80_000_000L);
+
+    /**
+     * operaciones que puede hacer un mostrador
+     */
+    enum Operacion {
+        REGISTRAR, BUSCAR, PAGINAR, ACTUALIZAR, ELIMINAR;
+
+        String clave() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * opciones de una corrida
+     */
+    record Configuracion(int mostradores, Duration duracion, Duration pausa, Duration reporte,
+            int filas, double fraccionDoctores, Map<Operacion, Integer> mezcla) {
+
+        static Configuracion leer(String[] args) {
+            Map<String, String> valores = new HashMap<>();
+            for (String arg : args) {
+                int igual = arg.indexOf('=');
+                if (igual <= 0) {
+                    throw new IllegalArgumentException("argumento invalido, se esperaba clave=valor: " + arg);
+                }
+                valores.put(arg.substring(0, igual).trim().toLowerCase(Locale.ROOT), arg.substring(igual + 1).trim());
+            }
+            Map<Operacion, Integer> mezcla = new EnumMap<>(Operacion.class);
+            for (String parte : valores.getOrDefault("mezcla",
+                    "registrar:20,buscar:40,paginar:25,actualizar:10,eliminar:5").split(",")) {
+                String[] par = parte.split(":");
+                mezcla.put(Operacion.valueOf(par[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(par[1].trim()));
+            }
+            if (mezcla.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+                throw new IllegalArgumentException("la mezcla de operaciones no puede sumar cero");
+            }
+            return new Configuracion(
+                    Integer.parseInt(valores.getOrDefault("mostradores", "20")),
+                    Duration.parse(valores.getOrDefault("duracion", "PT5M")),
+                    Duration.parse(valores.getOrDefault("pausa", "PT0.2S")),
+                    Duration.parse(valores.getOrDefault("reporte", "PT30S")),
+                    Integer.parseInt(valores.getOrDefault("filas", "10000")),
+                    Double.parseDouble(valores.getOrDefault("doctores", "0.3")),
+                    mezcla);
+        }
+    }
+
+    private final Configuracion configuracion;
+    private final IPacienteService pacienteService = new PacienteService();
+    private final IDoctorService doctorService = new DoctorService();
+    private final Operacion[] ruleta;
+    private final LongAdder fugasEntityManager = new LongAdder();
+    private final AtomicInteger maximoEnEspera = new AtomicInteger();
+    private final LongAdder muestrasSaturado = new LongAdder();
+
+    GeneradorCarga(Configuracion configuracion) {
+        this.configuracion = configuracion;
+        int total = configuracion.mezcla().values().stream().mapToInt(Integer::intValue).sum();
+        this.ruleta = new Operacion[total];
+        int i = 0;
+        for (Map.Entry<Operacion, Integer> entrada : configuracion.mezcla().entrySet()) {
+            for (int j = 0; j < entrada.getValue(); j++) {
+                ruleta[i++] = entrada.getKey();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Configuracion configuracion = Configuracion.leer(args);
+        if (System.getProperty("pool.leakDetectionMs") == null) {
+            // Hikari avisa de conexiones que no se devuelven en 30 segundos
+            System.setProperty("pool.leakDetectionMs", "30000");
+        }
+        BaseDatosH2.iniciar();
+        int codigo;
+        try {
+            if (configuracion.filas() > 0) {
+                BaseDatosH2.sembrarPacientes(configuracion.filas());
+                BaseDatosH2.sembrarDoctores(Math.max(1, configuracion.filas() / 10));
+            }
+            codigo = new GeneradorCarga(configuracion).ejecutar() ? 0 : 1;
+        } finally {
+            JpaUtil.shutdown();
+        }
+        System.exit(codigo);
+    }
+
+    /**
+     * corre los mostradores durante la duracion configurada
+     *
+     * @return true si no hubo fugas de EntityManager ni de conexiones
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    boolean ejecutar() throws InterruptedException {
+        Metricas.reiniciar();
+        long fin = System.nanoTime() + configuracion.duracion().toNanos();
+        LOGGER.info(String.format(Locale.ROOT, "carga: %d mostradores durante %s, perfil %s, mezcla %s",
+                configuracion.mostradores(), configuracion.duracion(), JpaUtil.getPerfil(), configuracion.mezcla()));
+
+        ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor();
+        monitor.scheduleAtFixedRate(this::muestrearPool, 1, 1, TimeUnit.SECONDS);
+        long periodo = configuracion.reporte().toMillis();
+        monitor.scheduleAtFixedRate(this::reportar, periodo, periodo, TimeUnit.MILLISECONDS);
+        try (ExecutorService mostradores = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < configuracion.mostradores(); i++) {
+                int numero = i;
+                mostradores.submit(() -> new Mostrador(numero).trabajar(fin));
+            }
+        } finally {
+            monitor.shutdownNow();
+            monitor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        return verificar();
+    }
+
+    private void muestrearPool() {
+        ConnectionPool.PoolMetrics pool = ConnectionPool.getMetrics();
+        maximoEnEspera.accumulateAndGet(pool.enEspera(), Math::max);
+        if (pool.enEspera() > 0 && pool.activas() >= pool.maximo()) {
+            muestrasSaturado.increment();
+        }
+    }
+
+    private void reportar() {
+        StringBuilder sb = new StringBuilder("carga parcial:");
+        for (Histograma.Resumen r : Metricas.resumen()) {
+            if (r.nombre().startsWith("carga.")) {
+                sb.append(String.format(Locale.ROOT, "%n  %-32s n=%d err=%d p50=%.2fms p99=%.2fms",
+                        r.nombre(), r.cuenta(), r.errores(), r.p50() / 1e6, r.p99() / 1e6));
+            }
+        }
+        ConnectionPool.PoolMetrics pool = ConnectionPool.getMetrics();
+        sb.append(String.format(Locale.ROOT, "%n  pool activas=%d/%d en espera=%d",
+                pool.activas(), pool.maximo(), pool.enEspera()));
+        LOGGER.info(sb.toString());
+    }
+
+    private boolean verificar() {
+        System.out.println(Metricas.volcar());
+        ConnectionPool.PoolMetrics pool = ConnectionPool.getMetrics();
+        Histograma.Resumen espera = Metricas.resumen(Metricas.POOL_ESPERA);
+        long timeouts = espera == null ? 0 : espera.errores();
+        long fugas = fugasEntityManager.sum();
+
+        System.out.printf(Locale.ROOT, "EntityManager sin cerrar: %d%n", fugas);
+        System.out.printf(Locale.ROOT, "timeouts esperando conexion: %d%n", timeouts);
+        System.out.printf(Locale.ROOT, "maximo de hilos esperando conexion: %d, segundos con el pool agotado: %d%n",
+                maximoEnEspera.get(), muestrasSaturado.sum());
+        System.out.printf(Locale.ROOT, "conexiones sin devolver al terminar: %d%n", pool.activas());
+
+        boolean correcto = fugas == 0 && timeouts == 0 && pool.activas() == 0;
+        System.out.println(correcto ? "resultado: OK" : "resultado: FALLO");
+        return correcto;
+    }
+
+    /**
+     * un mostrador de recepcion, guarda los ids que registro para luego
+     * actualizarlos o eliminarlos sin chocar con los demas mostradores
+     */
+    private final class Mostrador {
+
+        private final int numero;
+        private final SplittableRandom random;
+        private final Deque<Long> pacientesPropios = new ArrayDeque<>();
+        private final Deque<Long> doctoresPropios = new ArrayDeque<>();
+        private String cursorPacientes;
+        private String cursorDoctores;
+        private long secuencia;
+
+        Mostrador(int numero) {
+            this.numero = numero;
+            this.random = new SplittableRandom(numero * 31L + 17);
+        }
+
+        void trabajar(long fin) {
+            while (System.nanoTime() < fin) {
+                boolean doctor = random.nextDouble() < configuracion.fraccionDoctores();
+                Operacion operacion = ruleta[random.nextInt(ruleta.length)];
+                Histograma histograma = Metricas.histograma(
+                        "carga." + (doctor ? "doctor." : "paciente.") + operacion.clave());
+                long inicio = System.nanoTime();
+                try {
+                    if (doctor) {
+                        operarDoctor(operacion);
+                    } else {
+                        operarPaciente(operacion);
+                    }
+                } catch (RuntimeException e) {
+                    histograma.registrarError();
+                    LOGGER.log(Level.FINE, "mostrador " + numero + ": " + operacion, e);
+                } finally {
+                    histograma.registrar(System.nanoTime() - inicio);
+                }
+                revisarEntityManager(operacion);
+                if (!pensar()) {
+                    return;
+                }
+            }
+        }
+
+        private void operarPaciente(Operacion operacion) {
+            switch (operacion) {
+                case REGISTRAR -> {
+                    PacienteDTO nuevo = pacienteService.registrarPaciente(new PacienteDTO(nombre(), apellido(),
+                            dni('P'), null, LocalDate.of(1940, 1, 1).plusDays(random.nextInt(30_000)), "O+", "IMSS"));
+                    guardar(pacientesPropios, nuevo.getId());
+                }
+                case BUSCAR -> pacienteService.buscarPacientesPorNombre(nombre(), TAMANO_PAGINA, 0);
+                case PAGINAR -> {
+                    PaginaDTO<PacienteDTO> pagina = pacienteService.listarPacientesPorCursor(cursorPacientes, TAMANO_PAGINA);
+                    cursorPacientes = pagina.hayMas() ? pagina.getSiguienteCursor() : null;
+                }
+                case ACTUALIZAR -> {
+                    Long id = pacientesPropios.peekLast();
+                    if (id != null) {
+                        PacienteDTO paciente = pacienteService.buscarPacientePorId(id);
+                        paciente.setSeguroMedico(random.nextBoolean() ? "ISSSTE" : "Privado");
+                        pacienteService.actualizarPaciente(paciente);
+                    }
+                }
+                case ELIMINAR -> {
+                    Long id = pacientesPropios.pollFirst();
+                    if (id != null) {
+                        pacienteService.eliminarPaciente(id);
+                    }
+                }
+            }
+        }
+
+        private void operarDoctor(Operacion operacion) {
+            switch (operacion) {
+                case REGISTRAR -> {
+                    String dni = dni('D');
+                    DoctorDTO nuevo = doctorService.registrarDoctor(new DoctorDTO(nombre(), apellido(), dni, null,
+                            BaseDatosH2.ESPECIALIDADES[random.nextInt(BaseDatosH2.ESPECIALIDADES.length)],
+                            String.format(Locale.ROOT, "CED-%08d", CEDULAS.incrementAndGet())));
+                    guardar(doctoresPropios, nuevo.getId());
+                }
+                case BUSCAR -> doctorService.buscarDoctoresPorNombre(nombre(), TAMANO_PAGINA, 0);
+                case PAGINAR -> {
+                    PaginaDTO<DoctorDTO> pagina = doctorService.listarDoctoresPorCursor(cursorDoctores, TAMANO_PAGINA);
+                    cursorDoctores = pagina.hayMas() ? pagina.getSiguienteCursor() : null;
+                }
+                case ACTUALIZAR -> {
+                    Long id = doctoresPropios.peekLast();
+                    if (id != null) {
+                        DoctorDTO doctor = doctorService.buscarDoctorPorId(id);
+                        doctor.setEspecialidad(BaseDatosH2.ESPECIALIDADES[random.nextInt(BaseDatosH2.ESPECIALIDADES.length)]);
+                        doctorService.actualizarDoctor(doctor);
+                    }
+                }
+                case ELIMINAR -> {
+                    Long id = doctoresPropios.pollFirst();
+                    if (id != null) {
+                        doctorService.eliminarDoctor(id);
+                    }
+                }
+            }
+        }
+
+        /**
+         * los servicios cierran su EntityManager en el finally, si el hilo
+         * todavia tiene uno es una fuga: se cuenta y se cierra para que no
+         * contamine la siguiente operacion
+         */
+        private void revisarEntityManager(Operacion operacion) {
+            if (JpaUtil.tieneEntityManager()) {
+                fugasEntityManager.increment();
+                LOGGER.warning("mostrador " + numero + " quedo con un EntityManager abierto despues de " + operacion.clave());
+                JpaUtil.closeEntityManager();
+            }
+        }
+
+        private boolean pensar() {
+            long media = configuracion.pausa().toNanos();
+            if (media <= 0) {
+                return true;
+            }
+            // pausa exponencial, las llegadas a un mostrador no son regulares
+            long pausa = (long) (-media * Math.log(1 - random.nextDouble()));
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(pausa, media * 10));
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private void guardar(Deque<Long> propios, Long id) {
+            propios.addLast(id);
+            if (propios.size() > MAX_PROPIOS) {
+                propios.pollFirst();
+            }
+        }
+
+        private String nombre() {
+            return BaseDatosH2.NOMBRES[random.nextInt(BaseDatosH2.NOMBRES.length)];
+        }
+
+        private String apellido() {
+            return BaseDatosH2.APELLIDOS[random.nextInt(BaseDatosH2.APELLIDOS.length)];
+        }
+
+        private String dni(char tipo) {
+            return String.format(Locale.ROOT, "%c%s%03d%07d", tipo, CORRIDA, numero % 1000, ++secuencia);
+        }
+    }
+}
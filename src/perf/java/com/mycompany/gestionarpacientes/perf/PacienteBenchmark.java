@@ -0,0 +1,107 @@
+package com.mycompany.gestionarpacientes.perf;
+
+import com.mycompany.gestionarpacientes.dto.PacienteDTO;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
+import com.mycompany.gestionarpacientes.service.IPacienteService;
+import com.mycompany.gestionarpacientes.service.impl.PacienteService;
+import com.mycompany.gestionarpacientes.util.CursorUtil;
+import com.mycompany.gestionarpacientes.util.JpaUtil;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * benchmarks del servicio de pacientes sobre H2 con 10k, 100k y 1M filas,
+ * las paginas por offset se miden al inicio, a la mitad y al final de la
+ * tabla para compararlas con la paginacion por cursor
+ *
+ * @author gatog
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g"})
+public class PacienteBenchmark {
+
+    private static final int TAMANO_PAGINA = 50;
+
+    @Param({"10000", "100000", "1000000"})
+    public int filas;
+
+    private IPacienteService service;
+    private final AtomicLong secuencia = new AtomicLong();
+    private String cursorMitad;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        BaseDatosH2.iniciar();
+        BaseDatosH2.sembrarPacientes(filas);
+        service = new PacienteService();
+
+        // carga el indice de nombres fuera de la medicion
+        service.buscarPacientesPorNombre(BaseDatosH2.NOMBRES[0], 1, 0);
+        PacienteDTO mitad = service.listarTodosPacientes(1, filas / 2).get(0);
+        cursorMitad = CursorUtil.codificar(mitad.getNombre(), mitad.getId());
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        JpaUtil.shutdown();
+    }
+
+    @Benchmark
+    public PacienteDTO registrarPaciente() {
+        long n = secuencia.incrementAndGet();
+        return service.registrarPaciente(new PacienteDTO("Nuevo", "Paciente", String.format("N%09d", n),
+                null, LocalDate.of(1990, 1, 1), "O+", "IMSS"));
+    }
+
+    @Benchmark
+    public PacienteDTO buscarPacientePorId() {
+        return service.buscarPacientePorId(1 + ThreadLocalRandom.current().nextLong(filas));
+    }
+
+    @Benchmark
+    public List<PacienteDTO> buscarPacientesPorNombre() {
+        String nombre = BaseDatosH2.NOMBRES[ThreadLocalRandom.current().nextInt(BaseDatosH2.NOMBRES.length)];
+        return service.buscarPacientesPorNombre(nombre, 20, 0);
+    }
+
+    @Benchmark
+    public List<PacienteDTO> listarTodosPacientesInicio() {
+        return service.listarTodosPacientes(TAMANO_PAGINA, 0);
+    }
+
+    @Benchmark
+    public List<PacienteDTO> listarTodosPacientesMitad() {
+        return service.listarTodosPacientes(TAMANO_PAGINA, filas / 2);
+    }
+
+    @Benchmark
+    public List<PacienteDTO> listarTodosPacientesFinal() {
+        return service.listarTodosPacientes(TAMANO_PAGINA, filas - TAMANO_PAGINA);
+    }
+
+    @Benchmark
+    public PaginaDTO<PacienteDTO> listarPacientesPorCursorMitad() {
+        return service.listarPacientesPorCursor(cursorMitad, TAMANO_PAGINA);
+    }
+}
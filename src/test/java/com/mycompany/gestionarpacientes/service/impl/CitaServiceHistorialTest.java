@@ -0,0 +1,107 @@
+package com.mycompany.gestionarpacientes.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.mycompany.gestionarpacientes.dto.CitaDTO;
+import com.mycompany.gestionarpacientes.dto.DoctorDTO;
+import com.mycompany.gestionarpacientes.dto.PacienteDTO;
+import com.mycompany.gestionarpacientes.dto.PaginaDTO;
+import com.mycompany.gestionarpacientes.util.JpaUtil;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * el historial de citas de un paciente o de un doctor debe cargar cada pagina,
+ * con el doctor y el paciente de cada cita, en una sola sentencia aunque la
+ * cache de segundo nivel este vacia
+ *
+ * @author gatog
+ */
+class CitaServiceHistorialTest {
+
+    private static final int DOCTORES = 5;
+    private static final int CITAS = 23;
+    private static final int TAMANO_PAGINA = 5;
+
+    private static final CitaService CITAS_SERVICE = new CitaService();
+    private static Long pacienteId;
+    private static final List<Long> doctorIds = new ArrayList<>();
+
+    private SessionFactory sessionFactory;
+    private Statistics estadisticas;
+
+    @BeforeAll
+    static void sembrar() {
+        pacienteId = new PacienteService().registrarPaciente(new PacienteDTO("Ana", "Lopez", "HIST00001",
+                "ana@correo.com", LocalDate.of(1990, 1, 1), "A+", "IMSS")).getId();
+
+        DoctorService doctores = new DoctorService();
+        for (int i = 0; i < DOCTORES; i++) {
+            doctorIds.add(doctores.registrarDoctor(new DoctorDTO("Doctor", "Historial", "HISTDOC0" + i,
+                    "doctor@correo.com", "Cardiologia", "CED-1000000" + i)).getId());
+        }
+
+        // varias citas por dia con doctores distintos, algunas a la misma hora
+        LocalDateTime inicio = LocalDateTime.of(2030, 1, 7, 9, 0);
+        for (int i = 0; i < CITAS; i++) {
+            LocalDateTime fechaHora = inicio.plusDays(i / 3).plusHours(i % 3 == 2 ? 0 : i % 3);
+            CITAS_SERVICE.agendarCita(new CitaDTO(doctorIds.get(i % DOCTORES), pacienteId, fechaHora, 30));
+        }
+    }
+
+    @AfterAll
+    static void cerrar() {
+        JpaUtil.shutdown();
+    }
+
+    @BeforeEach
+    void prepararEstadisticas() {
+        sessionFactory = JpaUtil.getEntityManagerFactory().unwrap(SessionFactory.class);
+        estadisticas = sessionFactory.getStatistics();
+    }
+
+    @Test
+    void historialPacienteUsaUnaSentenciaPorPagina() {
+        String cursor = null;
+        int total = 0;
+        do {
+            vaciarCache();
+            PaginaDTO<CitaDTO> pagina = CITAS_SERVICE.listarHistorialPaciente(pacienteId, cursor, TAMANO_PAGINA);
+
+            assertEquals(1, estadisticas.getPrepareStatementCount(), "sentencias de la pagina " + (total / TAMANO_PAGINA));
+            for (CitaDTO cita : pagina.getElementos()) {
+                assertFalse(cita.getDoctorNombre() == null || cita.getDoctorNombre().isBlank());
+            }
+            total += pagina.getElementos().size();
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+
+        assertEquals(CITAS, total);
+    }
+
+    @Test
+    void historialDoctorUsaUnaSentenciaPorPagina() {
+        vaciarCache();
+        PaginaDTO<CitaDTO> pagina = CITAS_SERVICE.listarHistorialDoctor(doctorIds.get(0), null, TAMANO_PAGINA);
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(TAMANO_PAGINA, pagina.getElementos().size());
+        for (CitaDTO cita : pagina.getElementos()) {
+            assertFalse(cita.getPacienteNombre() == null || cita.getPacienteNombre().isBlank());
+        }
+    }
+
+    private void vaciarCache() {
+        sessionFactory.getCache().evictAllRegions();
+        estadisticas.clear();
+    }
+}